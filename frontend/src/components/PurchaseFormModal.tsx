@@ -5,6 +5,8 @@ import type { ProductDTO } from '../services/productService';
 import type { SupplierDTO } from '../services/supplierService';
 import { supplierService } from '../services/supplierService';
 import { productService } from '../services/productService';
+import { lookupService } from '../services/lookupService';
+import type { Suggestion } from '../services/lookupService';
 
 interface PurchaseFormModalProps {
   isOpen: boolean;
@@ -18,8 +20,7 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
   const normalizePurchaseItem = (item: any): PurchaseItemDTO => {
     return {
       ...item,
-      product: item.product || 0, // Default to 0 if undefined
-      id: item.id || 0
+      product: item.product || 0 // Default to 0 if undefined
     };
   };
 
@@ -32,7 +33,7 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
     notes: ''
   });
   
-  const [products, setProducts] = useState<ProductDTO[]>([]);
+  const [products, setProducts] = useState<Suggestion[]>([]);
   const [suppliers, setSuppliers] = useState<SupplierDTO[]>([]);
   const [selectedProduct, setSelectedProduct] = useState<ProductDTO | null>(null);
   const [quantity, setQuantity] = useState(1);
@@ -53,23 +54,14 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
   const [filteredSuppliers, setFilteredSuppliers] = useState<SupplierDTO[]>([]);
   const supplierInputRef = useRef<HTMLInputElement>(null);
 
-  // Fetch suppliers with search functionality
+  // Fetch supplier suggestions (typeahead: only id and name come back)
   const fetchSuppliers = async (search: string = '') => {
     try {
       setLoading(prev => ({ ...prev, suppliers: true }));
-      let suppliersData;
-      if (search && search.trim().length > 2) {
-        suppliersData = await supplierService.search(search);
-        const suppliersList = Array.isArray(suppliersData) ? suppliersData : [];
-        setSuppliers(suppliersList);
-        setFilteredSuppliers(suppliersList);
-      } else {
-        suppliersData = await supplierService.getAll(0, 1000);
-        // A API retorna um array diretamente, não um objeto com content
-        const suppliersList = Array.isArray(suppliersData) ? suppliersData : [];
-        setSuppliers(suppliersList);
-        setFilteredSuppliers(suppliersList);
-      }
+      const data = await lookupService.typeahead(search.trim(), 'SUPPLIERS', 20);
+      const suppliersList: SupplierDTO[] = (data.suppliers || []).map(s => ({ id: s.id, name: s.label, cnpj: '' }));
+      setSuppliers(suppliersList);
+      setFilteredSuppliers(suppliersList);
     } catch (error) {
       console.error('Error fetching suppliers:', error);
       setError('Erro ao carregar fornecedores. Por favor, recarregue a página.');
@@ -80,32 +72,16 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
     }
   };
 
-  // Filter suppliers based on search input
-  useEffect(() => {
-    if (supplierSearch.trim() === '') {
-      setFilteredSuppliers(suppliers);
-    } else {
-      const searchLower = supplierSearch.toLowerCase();
-      const filtered = suppliers.filter(supplier =>
-        supplier.name?.toLowerCase().includes(searchLower) ||
-        (supplier.cnpj && supplier.cnpj.toLowerCase().includes(searchLower)) ||
-        (supplier.email && supplier.email.toLowerCase().includes(searchLower))
-      );
-      setFilteredSuppliers(filtered);
-    }
-  }, [supplierSearch, suppliers]);
-
-  // Auto-search suppliers when typing (debounced)
+  // Auto-search suppliers when typing (debounced); the server already filters by name or CNPJ
   useEffect(() => {
     const timer = setTimeout(() => {
-      if (supplierSearch.trim().length > 2 && showSupplierDropdown) {
+      if (showSupplierDropdown || (supplierSearch.trim() === '' && suppliers.length === 0 && isOpen)) {
         fetchSuppliers(supplierSearch);
-      } else if (supplierSearch.trim() === '' && suppliers.length === 0 && isOpen) {
-        fetchSuppliers();
       }
-    }, 300); // Debounce de 300ms
+    }, 150);
 
     return () => clearTimeout(timer);
+    // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [supplierSearch, showSupplierDropdown, isOpen]);
 
   // Update supplier search when suppliers are loaded and initialData exists
@@ -185,10 +161,14 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
         if (typeof initialData.supplier === 'object' && initialData.supplier) {
           setSupplierSearch(initialData.supplier.name || '');
         } else if (supplierId) {
-          // Find supplier name from suppliers list
+          // Only suggestions are loaded: fetch the supplier name when it is not among them
           const supplier = suppliers.find(s => s.id === supplierId);
           if (supplier) {
             setSupplierSearch(supplier.name || '');
+          } else {
+            supplierService.getById(supplierId as number)
+              .then((found: SupplierDTO) => setSupplierSearch(found.name || ''))
+              .catch(() => setSupplierSearch(''));
           }
         } else {
           setSupplierSearch('');
@@ -216,16 +196,8 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
   const handleSearchProducts = async (query: string) => {
     try {
       setLoading(prev => ({ ...prev, products: true }));
-      if (query.trim().length > 1) {
-        const data = await productService.search(query);
-        const productList = Array.isArray(data) ? data : [];
-        setProducts(productList);
-      } else {
-        // Load all products when search is short
-        const data = await productService.getAll(0, 100);
-        const productList = Array.isArray(data.content) ? data.content : [];
-        setProducts(productList);
-      }
+      const data = await lookupService.typeahead(query.trim(), 'PRODUCTS', 20);
+      setProducts(Array.isArray(data.products) ? data.products : []);
     } catch (error) {
       console.error('Error searching products:', error);
       setProducts([]);
@@ -234,40 +206,31 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
     }
   };
 
-  // Debounced product search
+  // Debounced product typeahead
   useEffect(() => {
     const timer = setTimeout(() => {
-      if (searchTerm.length > 1) {
+      if (isOpen) {
         handleSearchProducts(searchTerm);
-      } else if (searchTerm.length === 0 && products.length === 0 && isOpen) {
-        // Load initial products when modal opens
-        handleSearchProducts('');
       }
-    }, 300); // Debounce de 300ms
+    }, 150);
 
     return () => clearTimeout(timer);
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [searchTerm, isOpen]);
 
-  // Load initial products
-  useEffect(() => {
-    const loadInitialProducts = async () => {
-      try {
-        setLoading(prev => ({ ...prev, products: true }));
-        const data = await productService.getAll(0, 100);
-        const productList = Array.isArray(data.content) ? data.content : [];
-        setProducts(productList);
-      } catch (error) {
-        console.error('Error loading products:', error);
-      } finally {
-        setLoading(prev => ({ ...prev, products: false }));
-      }
-    };
-
-    if (isOpen) {
-      loadInitialProducts();
+  // The suggestion carries only id and label: load the product (price, SKU) when picked
+  const handleProductSelect = async (suggestion: Suggestion) => {
+    setShowProductDropdown(false);
+    try {
+      const product: ProductDTO = await productService.getById(suggestion.id);
+      setSelectedProduct(product);
+      setSearchTerm(product.name);
+      setUnitPrice(product.defaultPrice || 0);
+    } catch (error) {
+      console.error('Error loading product:', error);
+      setError('Erro ao carregar o produto selecionado.');
     }
-  }, [isOpen]);
+  };
 
   const handleAddItem = () => {
     if (!selectedProduct || quantity <= 0 || unitPrice < 0) return;
@@ -277,7 +240,7 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
       quantity,
       unitPrice,
       total: quantity * unitPrice,
-      id: Date.now(),
+      // Sem id: linha nova, o backend insere
       _productData: selectedProduct
     };
 
@@ -322,7 +285,9 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
       const submissionData = {
         ...formData,
         supplier: formData.supplier as number, // Ensure supplier is a number
+        // Linhas já gravadas levam o id, para o PUT atualizar só o que mudou
         items: (formData.items || []).map(item => ({
+          ...(item.id ? { id: item.id } : {}),
           product: item.product,
           quantity: item.quantity,
           unitPrice: item.unitPrice,
@@ -567,23 +532,9 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
                           setSearchTerm(value);
                           setSelectedProduct(null);
                           setShowProductDropdown(true);
-                          if (value.length === 0) {
-                            // Load initial products when clearing search
-                            productService.getAll(0, 100).then(data => {
-                              const productList = Array.isArray(data.content) ? data.content : [];
-                              setProducts(productList);
-                            });
-                          }
                         }}
                         onFocus={() => {
                           setShowProductDropdown(true);
-                          // Load initial products when focusing if not searching
-                          if (products.length === 0 && searchTerm.length <= 1) {
-                            productService.getAll(0, 100).then(data => {
-                              const productList = Array.isArray(data.content) ? data.content : [];
-                              setProducts(productList);
-                            });
-                          }
                         }}
                         onBlur={() => {
                           // Delay hiding dropdown to allow click events
@@ -600,25 +551,13 @@ const PurchaseFormModal = ({ isOpen, onClose, onSubmit, initialData }: PurchaseF
                           <div
                             key={product.id}
                             className="p-2 hover:bg-blue-50 cursor-pointer border-b border-gray-100 last:border-b-0"
-                            onClick={() => {
-                              setSelectedProduct(product);
-                              setSearchTerm(product.name);
-                              setShowProductDropdown(false);
-                              setUnitPrice(product.defaultPrice || 0);
+                            onMouseDown={(e) => {
+                              // Use onMouseDown to prevent blur from closing before click
+                              e.preventDefault();
+                              handleProductSelect(product);
                             }}
                           >
-                            <div className="font-medium text-gray-900">{product.name}</div>
-                            {product.sku && (
-                              <div className="text-xs text-gray-500">SKU: {product.sku}</div>
-                            )}
-                            {product.defaultPrice && (
-                              <div className="text-xs text-gray-600">
-                                Preço: {new Intl.NumberFormat('pt-BR', {
-                                  style: 'currency',
-                                  currency: 'BRL'
-                                }).format(product.defaultPrice)}
-                              </div>
-                            )}
+                            <div className="font-medium text-gray-900">{product.label}</div>
                           </div>
                         ))}
                       </div>
@@ -20,9 +20,9 @@ export default function Compras() {
       let data;
       
       if (search.trim()) {
-        data = await purchaseService.search(search);
-        setPurchases(Array.isArray(data) ? data : []);
-        setTotalPages(1);
+        data = await purchaseService.search(search, pageNum, pageSize);
+        setPurchases(data.content || []);
+        setTotalPages(data.totalPages || 1);
       } else {
         data = await purchaseService.getAll(pageNum, pageSize);
         setPurchases(data.content || []);
@@ -51,9 +51,10 @@ export default function Compras() {
       try {
         await purchaseService.delete(id);
         fetchPurchases(searchTerm, page);
-      } catch (error) {
+      } catch (error: any) {
         console.error('Error deleting purchase:', error);
-        alert('Erro ao excluir compra. Por favor, tente novamente.');
+        // 409: já há recebimento lançado no estoque; o servidor explica o motivo
+        alert(error.response?.data?.message || 'Erro ao excluir compra. Por favor, tente novamente.');
       }
     }
   };
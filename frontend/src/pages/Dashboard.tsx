@@ -34,6 +34,7 @@ export default function Dashboard() {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
   const [lastUpdated, setLastUpdated] = useState<Date | null>(null);
+  const [streamDown, setStreamDown] = useState(false);
 
   const fetchDashboardData = async () => {
     try {
@@ -72,6 +73,69 @@ export default function Dashboard() {
     fetchDashboardData();
   }, []);
 
+  // Recebe deltas das métricas via SSE (fetch para poder enviar o token no header).
+  // Reconecta com backoff quando o stream termina (timeout do emitter, queda de rede);
+  // cada conexão nova começa com um evento "snapshot" completo, que repõe o que se perdeu
+  useEffect(() => {
+    const controller = new AbortController();
+    let retryTimer: ReturnType<typeof setTimeout> | undefined;
+    let attempt = 0;
+
+    const subscribe = async () => {
+      try {
+        const token = authService.getToken();
+        if (!token) return;
+        const response = await fetch('http://localhost:8080/api/dashboard/stream', {
+          headers: { 'Authorization': `Bearer ${token}`, 'Accept': 'text/event-stream' },
+          signal: controller.signal
+        });
+        if (!response.ok || !response.body) {
+          throw new Error(`Stream do dashboard respondeu ${response.status}`);
+        }
+
+        attempt = 0;
+        setStreamDown(false);
+        const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = '';
+        while (true) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buffer += value;
+          const events = buffer.split('\n\n');
+          buffer = events.pop() ?? '';
+          for (const event of events) {
+            const data = event
+              .split('\n')
+              .filter((line) => line.startsWith('data:'))
+              .map((line) => line.slice(5))
+              .join('\n');
+            if (!data) continue;
+            const delta = JSON.parse(data) as Partial<DashboardMetrics>;
+            setMetrics((prev) => ({ ...prev, ...delta }));
+            setLastUpdated(new Date());
+          }
+        }
+      } catch (err) {
+        if (!controller.signal.aborted) {
+          console.error('Stream do dashboard interrompido:', err);
+        }
+      }
+      if (controller.signal.aborted) return;
+
+      // 1s, 2s, 4s... até 30s entre tentativas
+      setStreamDown(true);
+      const delay = Math.min(30000, 1000 * 2 ** attempt);
+      attempt++;
+      retryTimer = setTimeout(subscribe, delay);
+    };
+
+    subscribe();
+    return () => {
+      controller.abort();
+      clearTimeout(retryTimer);
+    };
+  }, []);
+
   // Formata valores monetários
   const formatCurrency = (value: number) => {
     return new Intl.NumberFormat('pt-BR', {
@@ -121,6 +185,11 @@ export default function Dashboard() {
               Atualizado em: {formatLastUpdated(lastUpdated)}
             </span>
           )}
+          {streamDown && (
+            <span className="text-xs text-amber-600 mr-3">
+              Atualização em tempo real desconectada, reconectando...
+            </span>
+          )}
           <button
             onClick={fetchDashboardData}
             disabled={loading}
@@ -1,15 +1,17 @@
 import { useState, useEffect } from 'react';
 import { FiSearch, FiPlus, FiEdit2, FiTrash2, FiFilter, FiRefreshCw } from 'react-icons/fi';
-import type { ProductDTO } from '../services/productService';
-import { productService } from '../services/productService';
+import type { StockBalance } from '../services/stockService';
+import { stockService } from '../services/stockService';
 
-interface InventoryItem extends Omit<ProductDTO, 'id'> {
-  id: number;
+interface InventoryItem {
+  key: string;
+  name: string;
+  sku: string;
+  description?: string;
   quantity: number;
-  minQuantity: number;
   lastUpdated: string;
   unit: string;
-  category: string;
+  location: string;
 }
 
 export default function Estoque() {
@@ -23,17 +25,17 @@ export default function Estoque() {
   const fetchInventory = async (pageNumber: number = 0) => {
     try {
       setIsLoading(true);
-      const response = await productService.getAll(pageNumber, pageSize);
+      const response = await stockService.getBalances(pageNumber, pageSize);
       
-      // Mapear os produtos para o formato de inventário
-      const inventoryData = response.content.map((product: ProductDTO) => ({
-        ...product,
-        id: product.id || 0, // Garante que sempre terá um ID
-        quantity: product.volume || 0,
-        minQuantity: product.volume ? Math.floor(product.volume * 0.3) : 0,
-        lastUpdated: new Date().toLocaleDateString('pt-BR'),
+      // Saldos reais por (produto, local), mantidos pelo razão de movimentações
+      const inventoryData = response.content.map((balance: StockBalance) => ({
+        key: `${balance.productId}-${balance.locationId ?? 0}`,
+        name: balance.productName,
+        sku: balance.sku,
+        quantity: balance.quantity,
+        lastUpdated: balance.updatedAt ? new Date(balance.updatedAt).toLocaleDateString('pt-BR') : '-',
         unit: 'un',
-        category: 'Geral'
+        location: balance.locationCode ?? 'Sem local'
       }));
       
       setInventory(inventoryData);
@@ -60,12 +62,11 @@ export default function Estoque() {
 
   const filteredItems = inventory.filter(item => 
     item.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
-    (item.description?.toLowerCase().includes(searchTerm.toLowerCase()) ?? false)
+    item.sku.toLowerCase().includes(searchTerm.toLowerCase())
   );
 
-  const getStatusColor = (quantity: number, minQuantity: number) => {
-    if (quantity <= minQuantity * 0.3) return 'bg-red-100 text-red-800';
-    if (quantity <= minQuantity) return 'bg-yellow-100 text-yellow-800';
+  const getStatusColor = (quantity: number) => {
+    if (quantity <= 0) return 'bg-red-100 text-red-800';
     return 'bg-green-100 text-green-800';
   };
 
@@ -125,7 +126,7 @@ export default function Estoque() {
             <thead className="bg-gray-50">
               <tr>
                 <th className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">Item</th>
-                <th className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">Categoria</th>
+                <th className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">Local</th>
                 <th className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">Quantidade</th>
                 <th className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">Status</th>
                 <th className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">Última Atualização</th>
@@ -134,20 +135,21 @@ export default function Estoque() {
             </thead>
             <tbody className="bg-white divide-y divide-gray-200">
               {filteredItems.map((item) => (
-                <tr key={item.id} className="hover:bg-gray-50">
+                <tr key={item.key} className="hover:bg-gray-50">
                   <td className="px-6 py-4 whitespace-nowrap">
                     <div className="font-medium text-gray-900">{item.name}</div>
+                    <div className="text-xs text-gray-500">{item.sku}</div>
                   </td>
                   <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">
-                    {item.category}
+                    {item.location}
                   </td>
                   <td className="px-6 py-4 whitespace-nowrap">
                     <span className="font-medium">{item.quantity}</span>
                     <span className="text-gray-500 ml-1">{item.unit}</span>
                   </td>
                   <td className="px-6 py-4 whitespace-nowrap">
-                    <span className={`px-2 inline-flex text-xs leading-5 font-semibold rounded-full ${getStatusColor(item.quantity, item.minQuantity)}`}>
-                      {item.quantity <= item.minQuantity ? 'Baixo Estoque' : 'Em Estoque'}
+                    <span className={`px-2 inline-flex text-xs leading-5 font-semibold rounded-full ${getStatusColor(item.quantity)}`}>
+                      {item.quantity <= 0 ? 'Sem Estoque' : 'Em Estoque'}
                     </span>
                   </td>
                   <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">
@@ -45,9 +45,10 @@ export default function Fornecedores() {
       try {
         await supplierService.delete(id);
         fetchSuppliers(searchTerm);
-      } catch (error) {
+      } catch (error: any) {
         console.error('Error deleting supplier:', error);
-        alert('Erro ao excluir fornecedor. Por favor, tente novamente.');
+        // 409: já há recebimento lançado no estoque; o servidor explica o motivo
+        alert(error.response?.data?.message || 'Erro ao excluir fornecedor. Por favor, tente novamente.');
       }
     }
   };
@@ -4,6 +4,9 @@ import { ProductFormModal } from '../components/ProductFormModal';
 import { productService } from '../services/productService';
 import type { ProductDTO } from '../services/productService';
 
+// Colunas exibidas na tabela; a edição busca o produto completo
+const GRID_FIELDS: (keyof ProductDTO)[] = ['id', 'sku', 'name', 'description', 'defaultPrice', 'volume', 'unit', 'active'];
+
 export default function Produtos() {
   const [products, setProducts] = useState<ProductDTO[]>([]);
   const [loading, setLoading] = useState(true);
@@ -20,11 +23,11 @@ export default function Produtos() {
       let data;
       
       if (search) {
-        const results = await productService.search(search);
-        setProducts(Array.isArray(results) ? results : []);
-        setTotalPages(1);
+        data = await productService.search(search, pageNum, pageSize);
+        setProducts(Array.isArray(data.content) ? data.content : []);
+        setTotalPages(data.totalPages);
       } else {
-        data = await productService.getAll(pageNum, pageSize);
+        data = await productService.getAll(pageNum, pageSize, GRID_FIELDS);
         setProducts(data.content);
         setTotalPages(data.totalPages);
       }
@@ -79,9 +82,14 @@ export default function Produtos() {
     }
   };
 
-  const openEditModal = (product: ProductDTO) => {
-    setCurrentProduct(product);
-    setIsModalOpen(true);
+  const openEditModal = async (product: ProductDTO) => {
+    if (!product.id) return;
+    try {
+      setCurrentProduct(await productService.getById(product.id));
+      setIsModalOpen(true);
+    } catch (error) {
+      console.error('Erro ao carregar produto:', error);
+    }
   };
 
   const handleSubmit = async (productData: Omit<ProductDTO, 'id'>) => {
@@ -245,10 +253,10 @@ export default function Produtos() {
           </div>
         )}
 
-        {!searchTerm && totalPages > 1 && (
+        {totalPages > 1 && (
           <div className="flex justify-between items-center mt-4">
             <button
-              onClick={() => loadProducts(page - 1, '')}
+              onClick={() => loadProducts(page - 1, searchTerm)}
               disabled={page === 0}
               className={`px-4 py-2 border rounded-md ${
                 page === 0
@@ -262,7 +270,7 @@ export default function Produtos() {
               Página {page + 1} de {totalPages}
             </span>
             <button
-              onClick={() => loadProducts(page + 1, '')}
+              onClick={() => loadProducts(page + 1, searchTerm)}
               disabled={page >= totalPages - 1}
               className={`px-4 py-2 border rounded-md ${
                 page >= totalPages - 1
@@ -0,0 +1,24 @@
+import { api } from './api';
+
+export interface Suggestion {
+  id: number;
+  label: string;
+}
+
+export interface TypeaheadResponse {
+  products: Suggestion[];
+  suppliers: Suggestion[];
+  serverMicros: number;
+}
+
+export type TypeaheadScope = 'ALL' | 'PRODUCTS' | 'SUPPLIERS';
+
+export const lookupService = {
+  // Sugestões por prefixo (SKU/nome de produto, nome/CNPJ de fornecedor): só id e rótulo
+  async typeahead(query: string, type: TypeaheadScope = 'ALL', limit: number = 10): Promise<TypeaheadResponse> {
+    const response = await api.get(
+      `/lookup/typeahead?q=${encodeURIComponent(query)}&type=${type}&limit=${limit}`
+    );
+    return response.data;
+  }
+};
@@ -17,8 +17,10 @@ export interface ProductDTO {
 }
 
 export const productService = {
-  async getAll(page: number = 0, size: number = 10) {
-    const response = await api.get(`/products?page=${page}&size=${size}`);
+  // fields: só as colunas pedidas (nomes do ProductDTO), ex.: ['id', 'sku', 'name']
+  async getAll(page: number = 0, size: number = 10, fields?: (keyof ProductDTO)[]) {
+    const selection = fields?.length ? `&fields=${fields.join(',')}` : '';
+    const response = await api.get(`/products?page=${page}&size=${size}${selection}`);
     return response.data;
   },
 
@@ -41,8 +43,11 @@ export const productService = {
     await api.delete(`/products/${id}`);
   },
 
-  async search(query: string) {
-    const response = await api.get(`/products/search?query=${encodeURIComponent(query)}`);
+  // Busca ranqueada (SKU exato primeiro), paginada como getAll
+  async search(query: string, page: number = 0, size: number = 20, activeOnly: boolean = false) {
+    const response = await api.get(
+      `/products/search?query=${encodeURIComponent(query)}&page=${page}&size=${size}&activeOnly=${activeOnly}`
+    );
     return response.data;
   }
 };
@@ -50,8 +50,8 @@ export const purchaseService = {
     await api.delete(`/purchases/${id}`);
   },
 
-  async search(query: string) {
-    const response = await api.get(`/purchases/search?query=${encodeURIComponent(query)}`);
+  async search(query: string, page: number = 0, size: number = 10) {
+    const response = await api.get(`/purchases/search?query=${encodeURIComponent(query)}&page=${page}&size=${size}`);
     return response.data;
   },
 
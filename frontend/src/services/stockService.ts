@@ -0,0 +1,32 @@
+import { api } from './api';
+
+export interface StockBalance {
+  productId: number;
+  sku: string;
+  productName: string;
+  locationId: number | null;
+  locationCode: string | null;
+  quantity: number;
+  updatedAt: string | null;
+}
+
+export const stockService = {
+  async getBalances(page: number = 0, size: number = 10, productId?: number) {
+    const params = new URLSearchParams({ page: String(page), size: String(size) });
+    if (productId) params.set('productId', String(productId));
+    const response = await api.get(`/stock?${params.toString()}`);
+    return response.data;
+  },
+
+  async getMovements(page: number = 0, size: number = 20, productId?: number) {
+    const params = new URLSearchParams({ page: String(page), size: String(size) });
+    if (productId) params.set('productId', String(productId));
+    const response = await api.get(`/stock/movements?${params.toString()}`);
+    return response.data;
+  },
+
+  async issue(productId: number, quantity: number, locationId?: number | null, reference?: string) {
+    const response = await api.post('/stock/issues', { productId, locationId, quantity, reference });
+    return response.data;
+  }
+};
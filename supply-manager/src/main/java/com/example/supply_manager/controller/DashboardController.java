@@ -1,82 +1,62 @@
 package com.example.supply_manager.controller;
 
-import com.example.supply_manager.model.Product;
-import com.example.supply_manager.model.PurchaseOrder;
-import com.example.supply_manager.repository.ProductRepository;
-import com.example.supply_manager.repository.PurchaseOrderRepository;
-import com.example.supply_manager.repository.SupplierRepository;
+import com.example.supply_manager.service.DashboardAggregateService;
+import com.example.supply_manager.service.DashboardStreamService;
+import com.example.supply_manager.service.ReadThroughCache;
+import com.example.supply_manager.service.ReferenceDataCache;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/dashboard")
 public class DashboardController {
 
-    private final SupplierRepository supplierRepository;
-    private final ProductRepository productRepository;
-    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final DashboardAggregateService aggregateService;
+    private final DashboardStreamService streamService;
+    private final ReferenceDataCache referenceCache;
 
-    public DashboardController(SupplierRepository supplierRepository,
-                               ProductRepository productRepository,
-                               PurchaseOrderRepository purchaseOrderRepository) {
-        this.supplierRepository = supplierRepository;
-        this.productRepository = productRepository;
-        this.purchaseOrderRepository = purchaseOrderRepository;
+    public DashboardController(DashboardAggregateService aggregateService,
+                               DashboardStreamService streamService,
+                               ReferenceDataCache referenceCache) {
+        this.aggregateService = aggregateService;
+        this.streamService = streamService;
+        this.referenceCache = referenceCache;
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
     public ResponseEntity<Map<String, Object>> getDashboardMetrics() {
-        Map<String, Object> metrics = new HashMap<>();
-
-        // Contar fornecedores
-        long fornecedoresCount = supplierRepository.count();
-        metrics.put("fornecedores", fornecedoresCount);
-
-        // Contar produtos
-        long produtosCount = productRepository.count();
-        metrics.put("produtos", produtosCount);
-
-        // Compras pendentes (DRAFT ou ISSUED)
-        long comprasPendentesCount =
-                purchaseOrderRepository.countByStatus(PurchaseOrder.Status.DRAFT) +
-                purchaseOrderRepository.countByStatus(PurchaseOrder.Status.ISSUED);
-        metrics.put("comprasPendentes", comprasPendentesCount);
-
-        // 🔹 Estoque total: quantidade de produtos ativos
-        int estoqueTotal = (int) productRepository.findAll().stream()
-                .filter(Product::isActive)
-                .count();
-        metrics.put("estoqueTotal", estoqueTotal);
+        // Lê apenas os agregados mantidos incrementalmente (poucas linhas, independente do volume)
+        return ResponseEntity.ok(aggregateService.metrics());
+    }
 
-        // 🔹 Valor em entregas futuras = SOMENTE DRAFT + ISSUED
-        double valorEntregasFuturas = 0.0;
-        for (PurchaseOrder.Status status : new PurchaseOrder.Status[]{
-                PurchaseOrder.Status.DRAFT,
-                PurchaseOrder.Status.ISSUED
-        }) {
-            valorEntregasFuturas += purchaseOrderRepository.findByStatus(status).stream()
-                    .mapToDouble(po -> po.getTotalAmount() != null ? po.getTotalAmount() : 0.0)
-                    .sum();
-        }
-        metrics.put("valorEntregasFuturas", valorEntregasFuturas);
+    // Stream SSE: evento "snapshot" na conexão e depois "delta" só com as métricas alteradas
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    public SseEmitter stream() {
+        return streamService.subscribe();
+    }
 
-        // 🔹 Valor total em estoque = pedidos NÃO pendentes
-        double valorEstoque = purchaseOrderRepository.findAll().stream()
-                .filter(po ->
-                        po.getStatus() != PurchaseOrder.Status.DRAFT &&
-                        po.getStatus() != PurchaseOrder.Status.ISSUED
-                )
-                .mapToDouble(po -> po.getTotalAmount() != null ? po.getTotalAmount() : 0.0)
-                .sum();
-        metrics.put("valorEstoque", valorEstoque);
+    // Acertos, faltas e remoções do cache de produtos e fornecedores
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ReadThroughCache.Stats>> cacheStats() {
+        return ResponseEntity.ok(referenceCache.stats());
+    }
 
-        return ResponseEntity.ok(metrics);
+    // Recalcula os agregados do zero e devolve as métricas que estavam divergentes
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Map<String, Object>>> rebuild() {
+        return ResponseEntity.ok(aggregateService.rebuild());
     }
 }
@@ -0,0 +1,64 @@
+package com.example.supply_manager.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+
+/**
+ * Strong validators for conditional GETs. The ETag is a hash of the entity kind, id and version
+ * columns ({@code updated_at}), taken from the cached value or read with a projection, so a
+ * matching {@code If-None-Match} answers 304 without loading or serializing the entity.
+ */
+final class EntityTags {
+
+    // O cliente pode guardar, mas revalida a cada uso (o padrão do Spring Security seria no-store)
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private EntityTags() {
+    }
+
+    /**
+     * Sets ETag and Last-Modified on the response and returns true when the request's validators
+     * still match, in which case the status is already 304 and the handler should return null.
+     * When the version is read apart from the body, read it first: under a concurrent write the
+     * client then gets an old ETag with a newer body (one extra 200 later), never the reverse.
+     */
+    static boolean notModified(WebRequest request, LocalDateTime lastModified, Object... parts) {
+        return request.checkNotModified(of(parts), lastModified != null
+                ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1);
+    }
+
+    static String of(Object... parts) {
+        MessageDigest digest = sha256();
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    static LocalDateTime latest(LocalDateTime... times) {
+        LocalDateTime latest = null;
+        for (LocalDateTime time : times) {
+            if (time != null && (latest == null || time.isAfter(latest))) {
+                latest = time;
+            }
+        }
+        return latest;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
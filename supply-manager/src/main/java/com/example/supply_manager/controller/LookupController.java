@@ -0,0 +1,26 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.service.TypeaheadService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/lookup")
+@CrossOrigin(origins = "http://localhost:5173")
+public class LookupController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final TypeaheadService typeahead;
+
+    public LookupController(TypeaheadService typeahead) {
+        this.typeahead = typeahead;
+    }
+
+    // Sugestões por prefixo (id e rótulo apenas); o cliente busca o registro completo ao selecionar
+    @GetMapping("/typeahead")
+    public TypeaheadService.Suggestions typeahead(@RequestParam(defaultValue = "") String q,
+                                                  @RequestParam(defaultValue = "ALL") TypeaheadService.Scope type,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        return typeahead.suggest(q, type, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
@@ -1,15 +1,21 @@
 package com.example.supply_manager.controller;
 
+import com.example.supply_manager.dto.ImportReport;
 import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.service.ProductImportService;
 import com.example.supply_manager.service.ProductService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -18,20 +24,56 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService importService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService importService) {
         this.productService = productService;
+        this.importService = importService;
     }
 
+    // Modo cursor quando "after" é informado (vazio = primeira página); senão page/size como antes
+    // ETag da coleção: contador mantido de produtos e max(updated_at) (sem varrer a tabela) mais os parâmetros da página;
+    // fields= seleciona só as colunas pedidas (nomes do ProductDTO)
     @GetMapping
-    public ResponseEntity<Page<ProductDTO>> getAllProducts(
-            @PageableDefault(size = 10) Pageable pageable) {
-        return ResponseEntity.ok(productService.getProducts(pageable));
+    public ResponseEntity<?> getAllProducts(
+            @PageableDefault(size = 10) Pageable pageable,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        List<String> selected;
+        try {
+            selected = ProductService.LIST_FIELDS.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        ProductService.CatalogVersion version = productService.getCatalogVersion();
+        if (EntityTags.notModified(request, version.updatedAt(), "products", version.count(),
+                version.updatedAt(), pageable, after, includeTotal, selected)) {
+            return null;
+        }
+        if (after != null) {
+            try {
+                return ResponseEntity.ok().cacheControl(EntityTags.REVALIDATE).body(selected == null
+                        ? productService.getProductsAfter(after, pageable.getPageSize(), includeTotal)
+                        : productService.getProductsAfter(after, pageable.getPageSize(), includeTotal, selected));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok().cacheControl(EntityTags.REVALIDATE).body(selected == null
+                ? productService.getProducts(pageable)
+                : productService.getProducts(pageable, selected));
     }
 
+    // Validador a partir do DTO em cache: 304 sem consulta nem serialização
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id, WebRequest request) {
+        ProductDTO product = productService.getProductById(id);
+        if (EntityTags.notModified(request, product.getUpdatedAt(), "product", id, product.getUpdatedAt())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(EntityTags.REVALIDATE).body(product);
     }
 
     @PostMapping
@@ -41,6 +83,18 @@ public class ProductController {
         return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
     }
 
+    // POST catálogo em lote (NDJSON ou CSV): insere ou atualiza por SKU, em transações por chunk
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv", "text/plain"})
+    public ResponseEntity<ImportReport> importProducts(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestParam(required = false) Integer chunkSize) throws IOException {
+        ProductImportService.Format format = contentType != null && contentType.startsWith("text/csv")
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        return ResponseEntity.ok(importService.importProducts(body, format, chunkSize));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProductDTO> updateProduct(
             @PathVariable Long id,
@@ -55,8 +109,10 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDTO>> searchProducts(
-            @RequestParam String query) {
-        return ResponseEntity.ok(productService.searchProducts(query));
+    public ResponseEntity<Page<ProductDTO>> searchProducts(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean activeOnly,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.searchProducts(query, activeOnly, pageable));
     }
 }
@@ -2,16 +2,39 @@ package com.example.supply_manager.controller;
 
 import com.example.supply_manager.model.*;
 import com.example.supply_manager.repository.*;
+import com.example.supply_manager.dto.CursorPage;
+import com.example.supply_manager.dto.ImportReport;
+import com.example.supply_manager.service.DashboardAggregateService;
+import com.example.supply_manager.service.PurchaseExportService;
+import com.example.supply_manager.service.PurchaseImportService;
+import com.example.supply_manager.service.PurchaseOrderCodeGenerator;
+import com.example.supply_manager.service.PutawayService;
+import com.example.supply_manager.service.ReferenceDataCache;
+import com.example.supply_manager.service.SparseFieldQuery;
+import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/purchases")
@@ -22,16 +45,37 @@ public class PurchaseController {
     private final PurchaseOrderItemRepository itemRepo;
     private final SupplierRepository supplierRepo;
     private final ProductRepository productRepo;
+    private final DashboardAggregateService dashboardAggregates;
+    private final PurchaseImportService importService;
+    private final PurchaseExportService exportService;
+    private final PurchaseOrderCodeGenerator codeGenerator;
+    private final PutawayService putawayService;
+    private final ReferenceDataCache referenceCache;
+    private final SparseFieldQuery sparseFields;
 
     public PurchaseController(
             PurchaseOrderRepository orderRepo,
             PurchaseOrderItemRepository itemRepo,
             SupplierRepository supplierRepo,
-            ProductRepository productRepo) {
+            ProductRepository productRepo,
+            DashboardAggregateService dashboardAggregates,
+            PurchaseImportService importService,
+            PurchaseExportService exportService,
+            PurchaseOrderCodeGenerator codeGenerator,
+            PutawayService putawayService,
+            ReferenceDataCache referenceCache,
+            SparseFieldQuery sparseFields) {
         this.orderRepo = orderRepo;
         this.itemRepo = itemRepo;
         this.supplierRepo = supplierRepo;
         this.productRepo = productRepo;
+        this.dashboardAggregates = dashboardAggregates;
+        this.importService = importService;
+        this.exportService = exportService;
+        this.codeGenerator = codeGenerator;
+        this.putawayService = putawayService;
+        this.referenceCache = referenceCache;
+        this.sparseFields = sparseFields;
     }
 
     // DTO para receber dados do frontend
@@ -58,6 +102,7 @@ public class PurchaseController {
     // DTO para retornar dados ao frontend
     public static class PurchaseResponse {
         public Long id;
+        public String code;
         public Object supplier;
         public String purchaseDate;
         public String expectedDeliveryDate;
@@ -71,38 +116,56 @@ public class PurchaseController {
 
         public PurchaseResponse(PurchaseOrder order) {
             this.id = order.getId();
+            this.code = order.getCode();
             this.supplier = order.getSupplier();
             this.purchaseDate = order.getOrderDate() != null ? order.getOrderDate().toString() : null;
             this.expectedDeliveryDate = order.getExpectedDate() != null ? order.getExpectedDate().toString() : null;
             this.deliveryDate = order.getDeliveryDate() != null ? order.getDeliveryDate().toString() : null;
             
-            // Mapear status do backend para o frontend
-            if (order.getStatus() != null) {
-                switch (order.getStatus()) {
-                    case ISSUED -> this.status = "PENDING";
-                    case RECEIVED -> this.status = "DELIVERED";
-                    case CANCELED -> this.status = "CANCELED";
-                    case DRAFT -> this.status = "PENDING";
-                    case PARTIALLY_RECEIVED -> this.status = "PENDING";
-                    default -> this.status = "PENDING";
-                }
-            } else {
-                this.status = "PENDING";
-            }
+            this.status = frontendStatus(order.getStatus());
             
             this.total = order.getTotalAmount();
+            this.updatedAt = order.getUpdatedAt() != null ? order.getUpdatedAt().toString() : null;
             this.items = order.getItems() != null ? 
                 order.getItems().stream().map(PurchaseItemResponse::new).collect(Collectors.toList()) : 
                 new ArrayList<>();
         }
     }
 
+    // Mapear status do backend para o frontend
+    static String frontendStatus(PurchaseOrder.Status status) {
+        if (status == null) {
+            return "PENDING";
+        }
+        return switch (status) {
+            case RECEIVED -> "DELIVERED";
+            case CANCELED -> "CANCELED";
+            case ISSUED, DRAFT, PARTIALLY_RECEIVED -> "PENDING";
+        };
+    }
+
+    // fields= da listagem: nomes do PurchaseResponse; fornecedor por LEFT JOIN, itens só como contagem
+    private static final SparseFieldQuery.Fields<PurchaseOrder> LIST_FIELDS = new SparseFieldQuery.Fields<>(PurchaseOrder.class)
+            .field("id", "id")
+            .field("code", "code")
+            .joined("supplier.id", "supplier", "id")
+            .joined("supplier.name", "supplier", "name")
+            .joined("supplier.cnpj", "supplier", "cnpj")
+            .field("purchaseDate", "orderDate", Object::toString)
+            .field("expectedDeliveryDate", "expectedDate", Object::toString)
+            .field("deliveryDate", "deliveryDate", Object::toString)
+            .field("status", "status", status -> frontendStatus((PurchaseOrder.Status) status))
+            .field("total", "totalAmount")
+            .size("itemCount", "items")
+            .field("updatedAt", "updatedAt", Object::toString);
+
     public static class PurchaseItemResponse {
         public Long id;
         public Object product;
         public Integer quantity;
         public Double unitPrice;
         public Double total;
+        public Long suggestedLocationId;
 
         public PurchaseItemResponse(PurchaseOrderItem item) {
             this.id = item.getId();
@@ -111,62 +174,114 @@ public class PurchaseController {
             this.unitPrice = item.getUnitPrice();
             this.total = item.getQuantity() != null && item.getUnitPrice() != null ? 
                 item.getQuantity() * item.getUnitPrice() : 0.0;
+            this.suggestedLocationId = item.getSuggestedLocation() != null ? item.getSuggestedLocation().getId() : null;
         }
     }
 
-    // GET all com paginação
+    // GET all com paginação (page/size) ou por cursor quando "after" é informado (vazio = primeira página);
+    // fields= devolve só as colunas pedidas (ex.: id,code,supplier.name,status,total,itemCount)
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAll(
+    public ResponseEntity<?> list(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(required = false) String fields) {
+        List<String> selected;
+        CursorPage.Cursor cursor;
+        try {
+            selected = LIST_FIELDS.parse(fields);
+            cursor = after != null ? CursorPage.Cursor.decode(after) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (after == null) {
+            return selected == null ? getAll(page, size) : getAll(page, size, selected);
+        }
+        if (selected != null) {
+            return ResponseEntity.ok(listAfter(cursor, size, includeTotal, selected));
+        }
+
+        Pageable limit = PageRequest.of(0, size);
+        List<PurchaseOrder> orders = cursor == null
+                ? orderRepo.findFirstPage(limit)
+                : orderRepo.findPageAfter(cursor.id(), limit);
+        String next = orders.size() == size
+                ? new CursorPage.Cursor(null, orders.get(orders.size() - 1).getId()).encode()
+                : null;
+        Long total = includeTotal ? dashboardAggregates.totalOrders() : null;
+        return ResponseEntity.ok(new CursorPage<>(
+                orders.stream().map(PurchaseResponse::new).collect(Collectors.toList()), next, size, total));
+    }
+
+    private ResponseEntity<Map<String, Object>> getAll(int page, int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
             Page<PurchaseOrder> orderPage = orderRepo.findAll(pageable);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("content", orderPage.getContent().stream()
-                .map(PurchaseResponse::new)
-                .collect(Collectors.toList()));
-            response.put("totalElements", orderPage.getTotalElements());
-            response.put("totalPages", orderPage.getTotalPages());
-            response.put("size", orderPage.getSize());
-            response.put("number", orderPage.getNumber());
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(toPageResponse(orderPage));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     // GET by id
+    // Com If-None-Match/If-Modified-Since o validador vem de um SELECT agregado e o 304 não carrega
+    // o pedido; sem eles o mesmo validador é calculado do grafo já carregado (nenhuma consulta a mais)
     @GetMapping("/{id}")
-    public ResponseEntity<PurchaseResponse> getById(@PathVariable Long id) {
-        PurchaseOrder order = orderRepo.findById(id)
+    public ResponseEntity<PurchaseResponse> getById(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            Optional<PurchaseOrderRepository.VersionRow> version = orderRepo.findVersionById(id);
+            if (version.isPresent() && notModified(request, id, version.get().getUpdatedAt(),
+                    version.get().getSupplierUpdatedAt(), version.get().getItems(),
+                    version.get().getProductsUpdatedAt(), version.get().getPreferredSuppliersUpdatedAt())) {
+                return null;
+            }
+        }
+        PurchaseOrder order = orderRepo.findDetailedById(id)
                 .orElseThrow(() -> new RuntimeException("Compra não encontrada"));
-        return ResponseEntity.ok(new PurchaseResponse(order));
+        LocalDateTime productsUpdatedAt = null;
+        LocalDateTime preferredSuppliersUpdatedAt = null;
+        for (PurchaseOrderItem item : order.getItems()) {
+            Product product = item.getProduct();
+            if (product != null) {
+                productsUpdatedAt = EntityTags.latest(productsUpdatedAt, product.getUpdatedAt());
+                if (product.getPreferredSupplier() != null) {
+                    preferredSuppliersUpdatedAt = EntityTags.latest(preferredSuppliersUpdatedAt,
+                            product.getPreferredSupplier().getUpdatedAt());
+                }
+            }
+        }
+        notModified(request, id, order.getUpdatedAt(),
+                order.getSupplier() != null ? order.getSupplier().getUpdatedAt() : null,
+                order.getItems().size(), productsUpdatedAt, preferredSuppliersUpdatedAt);
+        return ResponseEntity.ok().cacheControl(EntityTags.REVALIDATE).body(new PurchaseResponse(order));
+    }
+
+    private static boolean notModified(WebRequest request, Long id, LocalDateTime updatedAt,
+                                       LocalDateTime supplierUpdatedAt, long items,
+                                       LocalDateTime productsUpdatedAt, LocalDateTime preferredSuppliersUpdatedAt) {
+        return EntityTags.notModified(request,
+                EntityTags.latest(updatedAt, supplierUpdatedAt, productsUpdatedAt, preferredSuppliersUpdatedAt),
+                "purchase", id, updatedAt, supplierUpdatedAt, items, productsUpdatedAt, preferredSuppliersUpdatedAt);
     }
 
     // POST create
     @PostMapping
+    @Transactional
     public ResponseEntity<PurchaseResponse> create(@RequestBody PurchaseRequest request) {
         PurchaseOrder order = new PurchaseOrder();
         
         // Mapear fornecedor
-        Long supplierId = null;
-        if (request.supplier instanceof Number) {
-            supplierId = ((Number) request.supplier).longValue();
-        } else if (request.supplier instanceof Map) {
-            Object idObj = ((Map<?, ?>) request.supplier).get("id");
-            if (idObj instanceof Number) {
-                supplierId = ((Number) idObj).longValue();
-            }
-        }
-        
+        Long supplierId = extractId(request.supplier);
         if (supplierId != null) {
-            Supplier supplier = supplierRepo.findById(supplierId)
+            Supplier supplier = referenceCache.supplier(supplierId)
                     .orElseThrow(() -> new RuntimeException("Fornecedor não encontrado"));
             order.setSupplier(supplier);
         }
+
+        // Resolve todos os produtos de uma vez (uma única consulta IN)
+        Map<Long, Product> products = resolveProducts(request.items);
         
         // Mapear datas
         if (request.purchaseDate != null) {
@@ -206,20 +321,9 @@ public class PurchaseController {
                 PurchaseOrderItem item = new PurchaseOrderItem();
                 
                 // Mapear produto
-                Long productId = null;
-                if (itemReq.product instanceof Number) {
-                    productId = ((Number) itemReq.product).longValue();
-                } else if (itemReq.product instanceof Map) {
-                    Object idObj = ((Map<?, ?>) itemReq.product).get("id");
-                    if (idObj instanceof Number) {
-                        productId = ((Number) idObj).longValue();
-                    }
-                }
-                
+                Long productId = extractId(itemReq.product);
                 if (productId != null) {
-                    Product product = productRepo.findById(productId)
-                            .orElseThrow(() -> new RuntimeException("Produto não encontrado"));
-                    item.setProduct(product);
+                    item.setProduct(products.get(productId));
                 }
                 
                 item.setQuantity(itemReq.quantity != null ? itemReq.quantity.doubleValue() : 0.0);
@@ -235,35 +339,94 @@ public class PurchaseController {
         
         order.setItems(items);
         order.setTotalAmount(total);
+        order.recountOutstandingLines();
+        codeGenerator.assignIfMissing(order);
+        putawayService.assignLocations(items);
         
         PurchaseOrder saved = orderRepo.save(order);
+        dashboardAggregates.orderCreated(saved.getStatus(), saved.getTotalAmount());
         return ResponseEntity.status(HttpStatus.CREATED).body(new PurchaseResponse(saved));
     }
 
+    // POST import em lote: NDJSON (um pedido por linha) ou CSV (um item por linha), lido em streaming
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv", "text/plain"})
+    public ResponseEntity<ImportReport> importOrders(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestParam(required = false) Integer chunkSize) throws IOException {
+        PurchaseImportService.Format format = contentType != null && contentType.startsWith("text/csv")
+                ? PurchaseImportService.Format.CSV
+                : PurchaseImportService.Format.NDJSON;
+        return ResponseEntity.ok(importService.importOrders(body, format, chunkSize));
+    }
+
+    // GET export em streaming (mesmos formatos do import); gzip opcional
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long supplierId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        PurchaseExportService.Filter filter;
+        PurchaseExportService.Format exportFormat;
+        try {
+            filter = PurchaseExportService.Filter.of(status, supplierId, from, to);
+            exportFormat = PurchaseExportService.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            exportService.export(filter, exportFormat, target);
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == PurchaseExportService.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"purchases."
+                        + (exportFormat == PurchaseExportService.Format.CSV ? "csv" : "ndjson") + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     // PUT update
     @PutMapping("/{id}")
-    public ResponseEntity<PurchaseResponse> update(
+    @Transactional
+    public ResponseEntity<?> update(
             @PathVariable Long id,
             @RequestBody PurchaseRequest request) {
-        PurchaseOrder order = orderRepo.findById(id)
+        PurchaseOrder order = orderRepo.findDetailedById(id)
                 .orElseThrow(() -> new RuntimeException("Compra não encontrada"));
-        
-        // Mapear fornecedor
-        Long supplierId = null;
-        if (request.supplier instanceof Number) {
-            supplierId = ((Number) request.supplier).longValue();
-        } else if (request.supplier instanceof Map) {
-            Object idObj = ((Map<?, ?>) request.supplier).get("id");
-            if (idObj instanceof Number) {
-                supplierId = ((Number) idObj).longValue();
-            }
+        // Linha já recebida tem movimentos no razão apontando para ela: não pode sair do pedido
+        Set<Long> kept = new HashSet<>();
+        if (request.items != null) {
+            request.items.forEach(itemReq -> kept.add(itemReq.id));
         }
+        if (order.getItems().stream().anyMatch(item -> item.hasReceipts() && !kept.contains(item.getId()))) {
+            return receivedConflict("Item já recebido não pode ser removido do pedido");
+        }
+        PurchaseOrder.Status oldStatus = order.getStatus();
+        Double oldTotal = order.getTotalAmount();
         
+        // Mapear fornecedor
+        Long supplierId = extractId(request.supplier);
         if (supplierId != null) {
-            Supplier supplier = supplierRepo.findById(supplierId)
+            Supplier supplier = referenceCache.supplier(supplierId)
                     .orElseThrow(() -> new RuntimeException("Fornecedor não encontrado"));
             order.setSupplier(supplier);
         }
+
+        // Resolve todos os produtos de uma vez (uma única consulta IN)
+        Map<Long, Product> products = resolveProducts(request.items);
         
         // Mapear datas
         if (request.purchaseDate != null) {
@@ -288,65 +451,143 @@ public class PurchaseController {
             }
         }
         
-        // Limpar itens antigos usando método helper
-        order.clearItems();
-        
-        // Adicionar novos itens
+        // Aplica só a diferença: itens com id conhecido são atualizados no lugar
+        // (UPDATE apenas se algo mudou), sem id viram INSERT e os ausentes são removidos
+        Map<Long, PurchaseOrderItem> remaining = new HashMap<>();
+        for (PurchaseOrderItem existing : order.getItems()) {
+            remaining.put(existing.getId(), existing);
+        }
+
         double total = 0.0;
         
         if (request.items != null) {
             for (PurchaseItemRequest itemReq : request.items) {
-                PurchaseOrderItem item = new PurchaseOrderItem();
-                
-                Long productId = null;
-                if (itemReq.product instanceof Number) {
-                    productId = ((Number) itemReq.product).longValue();
-                } else if (itemReq.product instanceof Map) {
-                    Object idObj = ((Map<?, ?>) itemReq.product).get("id");
-                    if (idObj instanceof Number) {
-                        productId = ((Number) idObj).longValue();
-                    }
+                PurchaseOrderItem item = itemReq.id != null ? remaining.remove(itemReq.id) : null;
+                boolean isNew = item == null;
+                if (isNew) {
+                    item = new PurchaseOrderItem();
                 }
-                
-                if (productId != null) {
-                    Product product = productRepo.findById(productId)
-                            .orElseThrow(() -> new RuntimeException("Produto não encontrado"));
-                    item.setProduct(product);
+
+                applyItemRequest(item, itemReq, products);
+                if (isNew) {
+                    order.addItem(item);
                 }
-                
-                item.setQuantity(itemReq.quantity != null ? itemReq.quantity : 0.0);
-                item.setUnitPrice(itemReq.unitPrice);
-                
-                order.addItem(item);
-                
-                double itemTotal = item.getQuantity() * (item.getUnitPrice() != null ? item.getUnitPrice() : 0.0);
-                total += itemTotal;
+                total += lineTotal(item);
             }
         }
+
+        for (PurchaseOrderItem removed : remaining.values()) {
+            putawayService.release(removed);
+            order.removeItem(removed);
+        }
         
         order.setTotalAmount(total);
+        order.recountOutstandingLines();
+        putawayService.orderChanged(order, oldStatus);
+        order.touch();
         
         PurchaseOrder saved = orderRepo.save(order);
+        dashboardAggregates.orderChanged(oldStatus, oldTotal, saved.getStatus(), saved.getTotalAmount());
         return ResponseEntity.ok(new PurchaseResponse(saved));
     }
 
+    // POST item: adiciona uma linha sem carregar as demais
+    @PostMapping("/{id}/items")
+    @Transactional
+    public ResponseEntity<PurchaseItemResponse> addItem(
+            @PathVariable Long id,
+            @RequestBody PurchaseItemRequest request) {
+        PurchaseOrder order = orderRepo.findById(id)
+                .orElseThrow(() -> new RuntimeException("Compra não encontrada"));
+
+        PurchaseOrderItem item = new PurchaseOrderItem();
+        item.setPurchaseOrder(order);
+        applyItemRequest(item, request, resolveProducts(List.of(request)));
+        putawayService.assignLocations(List.of(item));
+        PurchaseOrderItem saved = itemRepo.save(item);
+
+        adjustTotal(order, lineTotal(saved));
+        adjustOutstanding(order, false, saved.isOutstanding());
+        order.touch();
+        return ResponseEntity.status(HttpStatus.CREATED).body(new PurchaseItemResponse(saved));
+    }
+
+    // PATCH item: altera só os campos informados de uma linha
+    @PatchMapping("/{id}/items/{itemId}")
+    @Transactional
+    public ResponseEntity<PurchaseItemResponse> updateItem(
+            @PathVariable Long id,
+            @PathVariable Long itemId,
+            @RequestBody PurchaseItemRequest request) {
+        PurchaseOrderItem item = findItem(id, itemId);
+        double before = lineTotal(item);
+        boolean wasOutstanding = item.isOutstanding();
+
+        Long productId = extractId(request.product);
+        if (productId != null) {
+            item.setProduct(resolveProducts(List.of(request)).get(productId));
+        }
+        if (request.quantity != null) {
+            item.setQuantity(request.quantity.doubleValue());
+        }
+        if (request.unitPrice != null) {
+            item.setUnitPrice(request.unitPrice);
+        }
+        // Produto ou quantidade novos mudam o volume: a reserva de armazenagem acompanha
+        if ((productId != null || request.quantity != null)
+                && item.getPurchaseOrder().getStatus() != PurchaseOrder.Status.CANCELED) {
+            putawayService.assignLocations(List.of(item));
+        }
+
+        adjustTotal(item.getPurchaseOrder(), lineTotal(item) - before);
+        adjustOutstanding(item.getPurchaseOrder(), wasOutstanding, item.isOutstanding());
+        item.getPurchaseOrder().touch();
+        return ResponseEntity.ok(new PurchaseItemResponse(item));
+    }
+
+    // DELETE item
+    @DeleteMapping("/{id}/items/{itemId}")
+    @Transactional
+    public ResponseEntity<?> deleteItem(@PathVariable Long id, @PathVariable Long itemId) {
+        PurchaseOrderItem item = findItem(id, itemId);
+        if (item.hasReceipts()) {
+            return receivedConflict("Item já recebido não pode ser removido do pedido");
+        }
+        double removed = lineTotal(item);
+        putawayService.release(item);
+        itemRepo.delete(item);
+        adjustTotal(item.getPurchaseOrder(), -removed);
+        adjustOutstanding(item.getPurchaseOrder(), item.isOutstanding(), false);
+        item.getPurchaseOrder().touch();
+        return ResponseEntity.noContent().build();
+    }
+
     // DELETE
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!orderRepo.existsById(id)) {
+    @Transactional
+    public ResponseEntity<?> delete(@PathVariable Long id) {
+        Optional<PurchaseOrder> order = orderRepo.findById(id);
+        if (order.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        orderRepo.deleteById(id);
+        if (order.get().getItems().stream().anyMatch(PurchaseOrderItem::hasReceipts)) {
+            return receivedConflict("Pedido com itens já recebidos não pode ser excluído");
+        }
+        order.get().getItems().forEach(putawayService::release);
+        orderRepo.delete(order.get());
+        dashboardAggregates.orderDeleted(order.get().getStatus(), order.get().getTotalAmount());
         return ResponseEntity.noContent().build();
     }
 
     // PATCH status
     @PatchMapping("/{id}/status")
+    @Transactional
     public ResponseEntity<PurchaseResponse> updateStatus(
             @PathVariable Long id,
             @RequestBody Map<String, String> request) {
         PurchaseOrder order = orderRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Compra não encontrada"));
+        PurchaseOrder.Status oldStatus = order.getStatus();
         
         String status = request.get("status");
         if (status != null) {
@@ -360,34 +601,276 @@ public class PurchaseController {
                 case "CANCELED" -> order.setStatus(PurchaseOrder.Status.CANCELED);
             }
         }
+        putawayService.orderChanged(order, oldStatus);
         
         PurchaseOrder saved = orderRepo.save(order);
+        dashboardAggregates.orderChanged(oldStatus, saved.getTotalAmount(), saved.getStatus(), saved.getTotalAmount());
         return ResponseEntity.ok(new PurchaseResponse(saved));
     }
 
-    // GET search
+    // 409: o razão de estoque referencia as linhas recebidas (histórico não se apaga)
+    private static ResponseEntity<Map<String, String>> receivedConflict(String message) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", message));
+    }
+
+    private PurchaseOrderItem findItem(Long orderId, Long itemId) {
+        PurchaseOrderItem item = itemRepo.findById(itemId)
+                .orElseThrow(() -> new RuntimeException("Item não encontrado"));
+        if (!item.getPurchaseOrder().getId().equals(orderId)) {
+            throw new RuntimeException("Item não pertence à compra " + orderId);
+        }
+        return item;
+    }
+
+    // Atualiza o total do pedido pela diferença da linha, sem recarregar os itens
+    private void adjustTotal(PurchaseOrder order, double delta) {
+        if (delta == 0.0) {
+            return;
+        }
+        Double oldTotal = order.getTotalAmount();
+        order.setTotalAmount((oldTotal != null ? oldTotal : 0.0) + delta);
+        dashboardAggregates.orderChanged(order.getStatus(), oldTotal, order.getStatus(), order.getTotalAmount());
+    }
+
+    // Mantém o contador de linhas pendentes com incremento no banco (ver ReceivingService)
+    private void adjustOutstanding(PurchaseOrder order, boolean wasOutstanding, boolean isOutstanding) {
+        if (wasOutstanding != isOutstanding && order.getOutstandingLines() != null) {
+            orderRepo.adjustOutstandingLines(order.getId(), isOutstanding ? 1 : -1);
+        }
+    }
+
+    private static void applyItemRequest(PurchaseOrderItem item, PurchaseItemRequest itemReq, Map<Long, Product> products) {
+        Long productId = extractId(itemReq.product);
+        if (productId != null) {
+            item.setProduct(products.get(productId));
+        }
+        item.setQuantity(itemReq.quantity != null ? itemReq.quantity.doubleValue() : 0.0);
+        item.setUnitPrice(itemReq.unitPrice);
+    }
+
+    private static double lineTotal(PurchaseOrderItem item) {
+        double quantity = item.getQuantity() != null ? item.getQuantity() : 0.0;
+        return quantity * (item.getUnitPrice() != null ? item.getUnitPrice() : 0.0);
+    }
+
+    // Extrai o id de um campo que pode ser número ou objeto ({ "id": ... })
+    private static Long extractId(Object ref) {
+        if (ref instanceof Number number) {
+            return number.longValue();
+        }
+        if (ref instanceof Map<?, ?> map && map.get("id") instanceof Number number) {
+            return number.longValue();
+        }
+        return null;
+    }
+
+    // Carrega todos os produtos referenciados pelos itens em uma única consulta
+    // e falha uma vez só, com a lista completa de ids inexistentes
+    private Map<Long, Product> resolveProducts(List<PurchaseItemRequest> items) {
+        if (items == null || items.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> ids = items.stream()
+                .map(itemReq -> extractId(itemReq.product))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Product> products = productRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+        List<Long> missing = ids.stream()
+                .filter(productId -> !products.containsKey(productId))
+                .sorted()
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Produtos não encontrados: " + missing);
+        }
+        return products;
+    }
+
+    // GET search (paginado e ranqueado; predicados resolvidos no banco)
     @GetMapping("/search")
-    public ResponseEntity<List<PurchaseResponse>> search(@RequestParam String query) {
-        // Busca simples por ID ou código
-        List<PurchaseOrder> orders = orderRepo.findAll();
-        List<PurchaseResponse> results = orders.stream()
-                .filter(order -> {
-                    if (order.getId() != null && order.getId().toString().contains(query)) {
-                        return true;
-                    }
-                    if (order.getCode() != null && order.getCode().contains(query)) {
-                        return true;
-                    }
-                    if (order.getSupplier() != null && order.getSupplier().getName() != null &&
-                        order.getSupplier().getName().toLowerCase().contains(query.toLowerCase())) {
-                        return true;
-                    }
-                    return false;
-                })
-                .map(PurchaseResponse::new)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(results);
+    public ResponseEntity<Map<String, Object>> search(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        String term = query.trim();
+        if (term.isEmpty()) {
+            return getAll(page, size);
+        }
+
+        Long id = null;
+        if (term.chars().allMatch(Character::isDigit) && term.length() < 19) {
+            id = Long.parseLong(term);
+        }
+        String codePrefix = term.toUpperCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+
+        // Fornecedores são poucos: resolve os ids pelo nome e filtra os pedidos pelo índice de supplier_id
+        List<Long> supplierIds = supplierRepo.findIdsByNameContaining(term, PageRequest.of(0, 1000));
+
+        // Cada predicado busca no máximo até o fim da página pedida; a ordem é id exato, código
+        // (o exato primeiro) e fornecedor, sem repetir pedidos que casam mais de um predicado
+        Pageable limit = PageRequest.of(0, (page + 1) * size);
+        List<List<PurchaseOrder>> ranked = List.of(
+                id != null ? orderRepo.searchById(id) : List.of(),
+                orderRepo.searchByCodePrefix(codePrefix, limit),
+                supplierIds.isEmpty() ? List.of() : orderRepo.searchBySuppliers(supplierIds, limit));
+        Map<Long, PurchaseOrder> merged = new LinkedHashMap<>();
+        boolean truncated = false;
+        for (List<PurchaseOrder> orders : ranked) {
+            orders.forEach(order -> merged.putIfAbsent(order.getId(), order));
+            truncated |= orders.size() == limit.getPageSize();
+        }
+
+        // Total exato sem COUNT quando nenhum predicado atingiu o limite
+        long total = truncated
+                ? orderRepo.countSearch(id != null ? id : -1L, codePrefix, supplierIds.isEmpty() ? List.of(-1L) : supplierIds)
+                : merged.size();
+        List<PurchaseOrder> content = merged.values().stream().skip((long) page * size).limit(size).toList();
+        return ResponseEntity.ok(toPageResponse(new PageImpl<>(content, PageRequest.of(page, size), total)));
+    }
+
+    // GET por fornecedor: paginado, ordenável (sort=purchaseDate,desc) e com count/soma do total
+    // calculados no mesmo SELECT da página
+    @GetMapping("/supplier/{supplierId}")
+    public ResponseEntity<Map<String, Object>> bySupplier(
+            @PathVariable Long supplierId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "purchaseDate,desc") String sort) {
+        Pageable pageable;
+        try {
+            pageable = PageRequest.of(page, size, parseSort(sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(toPageResponse(orderRepo.findPageBySupplier(supplierId, pageable), pageable,
+                () -> orderRepo.sumBySupplier(supplierId)));
+    }
+
+    // GET por período (datas inclusivas, ISO), com status opcional no vocabulário do frontend
+    @GetMapping("/date-range")
+    public ResponseEntity<Map<String, Object>> byDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "purchaseDate,desc") String sort) {
+        Pageable pageable;
+        try {
+            pageable = PageRequest.of(page, size, parseSort(sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<PurchaseOrder.Status> statuses = status == null || status.isBlank()
+                ? List.of()
+                : Arrays.stream(PurchaseOrder.Status.values())
+                        .filter(value -> value.name().equalsIgnoreCase(status) || frontendStatus(value).equalsIgnoreCase(status))
+                        .toList();
+        if (status != null && !status.isBlank() && statuses.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Sem filtro de status, a consulta sem IN (lista vazia não é válida em todos os bancos)
+        if (statuses.isEmpty()) {
+            return ResponseEntity.ok(toPageResponse(orderRepo.findPageByOrderDate(startDate, endDate, pageable),
+                    pageable, () -> orderRepo.sumByOrderDate(startDate, endDate)));
+        }
+        return ResponseEntity.ok(toPageResponse(
+                orderRepo.findPageByOrderDateAndStatus(startDate, endDate, statuses, pageable), pageable,
+                () -> orderRepo.sumByOrderDateAndStatus(startDate, endDate, statuses)));
+    }
+
+    // Campos ordenáveis (nomes do PurchaseResponse); o id desempata para a paginação ser estável
+    private static final Map<String, String> SORTABLE = Map.of(
+            "id", "id",
+            "code", "code",
+            "purchaseDate", "orderDate",
+            "expectedDeliveryDate", "expectedDate",
+            "deliveryDate", "deliveryDate",
+            "status", "status",
+            "total", "totalAmount");
+
+    private static Sort parseSort(String sort) {
+        String[] parts = sort.split(",");
+        String property = SORTABLE.get(parts[0].trim());
+        if (property == null || parts.length > 2) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        Sort.Direction direction = parts.length == 2 ? Sort.Direction.fromString(parts[1].trim()) : Sort.Direction.ASC;
+        Sort order = Sort.by(direction, property);
+        return property.equals("id") ? order : order.and(Sort.by(direction, "id"));
+    }
+
+    private static Map<String, Object> toPageResponse(List<PurchaseOrderRepository.PageRow> rows, Pageable pageable,
+                                                      java.util.function.Supplier<PurchaseOrderRepository.Totals> totals) {
+        long count;
+        Double amount;
+        if (!rows.isEmpty()) {
+            count = rows.get(0).getCount();
+            amount = rows.get(0).getAmount();
+        } else if (pageable.getOffset() > 0) {
+            PurchaseOrderRepository.Totals sums = totals.get();
+            count = sums.getCount();
+            amount = sums.getAmount();
+        } else {
+            count = 0;
+            amount = null;
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", rows.stream()
+            .map(row -> new PurchaseResponse(row.getPurchaseOrder()))
+            .collect(Collectors.toList()));
+        response.put("totalElements", count);
+        response.put("totalAmount", amount != null ? amount : 0.0);
+        response.put("totalPages", (int) Math.ceil((double) count / pageable.getPageSize()));
+        response.put("size", pageable.getPageSize());
+        response.put("number", pageable.getPageNumber());
+        return response;
+    }
+
+    // Sparse fieldset: só as colunas pedidas, sem entidades (ver SparseFieldQuery)
+    private ResponseEntity<Map<String, Object>> getAll(int page, int size, List<String> fields) {
+        Page<Map<String, Object>> rows = sparseFields.page(LIST_FIELDS, fields, null, PageRequest.of(page, size));
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", rows.getContent());
+        response.put("totalElements", rows.getTotalElements());
+        response.put("totalPages", rows.getTotalPages());
+        response.put("size", rows.getSize());
+        response.put("number", rows.getNumber());
+        return ResponseEntity.ok(response);
+    }
+
+    // Mesmo keyset por id decrescente; o id entra na consulta para montar o cursor
+    private CursorPage<Map<String, Object>> listAfter(CursorPage.Cursor cursor, int size, boolean includeTotal,
+                                                      List<String> fields) {
+        SparseFieldQuery.Where<PurchaseOrder> where = cursor == null ? null
+                : (root, cb) -> cb.lessThan(root.get("id"), cursor.id());
+        List<Map<String, Object>> rows = sparseFields.list(LIST_FIELDS, SparseFieldQuery.Fields.with(fields, "id"),
+                where, Sort.by(Sort.Direction.DESC, "id"), 0, size);
+        String next = rows.size() == size
+                ? new CursorPage.Cursor(null, (Long) rows.get(rows.size() - 1).get("id")).encode()
+                : null;
+        SparseFieldQuery.Fields.retain(rows, fields);
+        Long total = includeTotal ? dashboardAggregates.totalOrders() : null;
+        return new CursorPage<>(rows, next, size, total);
+    }
+
+    private static Map<String, Object> toPageResponse(Page<PurchaseOrder> orderPage) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", orderPage.getContent().stream()
+            .map(PurchaseResponse::new)
+            .collect(Collectors.toList()));
+        response.put("totalElements", orderPage.getTotalElements());
+        response.put("totalPages", orderPage.getTotalPages());
+        response.put("size", orderPage.getSize());
+        response.put("number", orderPage.getNumber());
+        return response;
     }
 }
 
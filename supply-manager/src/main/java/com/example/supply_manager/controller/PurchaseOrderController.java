@@ -4,10 +4,21 @@ import com.example.supply_manager.model.PurchaseOrder;
 import com.example.supply_manager.model.PurchaseOrderItem;
 import com.example.supply_manager.repository.PurchaseOrderItemRepository;
 import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.service.DashboardAggregateService;
+import com.example.supply_manager.service.PurchaseOrderCodeGenerator;
+import com.example.supply_manager.service.PutawayService;
+import com.example.supply_manager.service.ReceivingService;
+import com.example.supply_manager.service.ScanIngestionService;
+import jakarta.transaction.Transactional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/purchase-orders")
@@ -16,10 +27,23 @@ public class PurchaseOrderController {
 
     private final PurchaseOrderRepository orderRepo;
     private final PurchaseOrderItemRepository itemRepo;
-
-    public PurchaseOrderController(PurchaseOrderRepository orderRepo, PurchaseOrderItemRepository itemRepo) {
+    private final DashboardAggregateService dashboardAggregates;
+    private final ReceivingService receivingService;
+    private final ScanIngestionService scanIngestionService;
+    private final PurchaseOrderCodeGenerator codeGenerator;
+    private final PutawayService putawayService;
+
+    public PurchaseOrderController(PurchaseOrderRepository orderRepo, PurchaseOrderItemRepository itemRepo,
+                                   DashboardAggregateService dashboardAggregates, ReceivingService receivingService,
+                                   ScanIngestionService scanIngestionService, PurchaseOrderCodeGenerator codeGenerator,
+                                   PutawayService putawayService) {
         this.orderRepo = orderRepo;
         this.itemRepo = itemRepo;
+        this.dashboardAggregates = dashboardAggregates;
+        this.receivingService = receivingService;
+        this.scanIngestionService = scanIngestionService;
+        this.codeGenerator = codeGenerator;
+        this.putawayService = putawayService;
     }
 
     // Lista todos os pedidos
@@ -35,8 +59,16 @@ public class PurchaseOrderController {
                 .orElseThrow(() -> new RuntimeException("Pedido de compra não encontrado"));
     }
 
+    // Busca pelo código (PO-2025-0001), usado no recebimento
+    @GetMapping("/code/{code}")
+    public PurchaseOrder getByCode(@PathVariable String code) {
+        return orderRepo.findFirstByCodeOrderByIdDesc(code.toUpperCase())
+                .orElseThrow(() -> new RuntimeException("Pedido de compra não encontrado"));
+    }
+
     // Cria um novo pedido de compra
     @PostMapping
+    @Transactional
     public PurchaseOrder create(@RequestBody PurchaseOrder order) {
         order.setStatus(PurchaseOrder.Status.ISSUED);
         order.setFullyReceived(false);
@@ -53,52 +85,83 @@ public class PurchaseOrderController {
         }
 
         order.setTotalAmount(total);
-        return orderRepo.save(order);
+        order.recountOutstandingLines();
+        codeGenerator.assignIfMissing(order);
+        putawayService.assignLocations(order.getItems());
+        PurchaseOrder saved = orderRepo.save(order);
+        dashboardAggregates.orderCreated(saved.getStatus(), saved.getTotalAmount());
+        return saved;
     }
 
     // Atualiza um pedido de compra
     @PutMapping("/{id}")
-    public PurchaseOrder update(@PathVariable Long id, @RequestBody PurchaseOrder order) {
-        order.setId(id);
-        return orderRepo.save(order);
+    @Transactional
+    // Só o cabeçalho vem no corpo (itens são @JsonIgnore): os campos informados são copiados para o
+    // pedido gerenciado, que mantém as linhas, o total, o contador de pendentes e as reservas
+    public PurchaseOrder update(@PathVariable Long id, @RequestBody PurchaseOrder changes) {
+        PurchaseOrder order = orderRepo.findById(id)
+                .orElseThrow(() -> new RuntimeException("Pedido de compra não encontrado"));
+        PurchaseOrder.Status oldStatus = order.getStatus();
+        Double oldTotal = order.getTotalAmount();
+
+        if (changes.getCode() != null) {
+            order.setCode(changes.getCode());
+        }
+        if (changes.getSupplier() != null) {
+            order.setSupplier(changes.getSupplier());
+        }
+        if (changes.getOrderDate() != null) {
+            order.setOrderDate(changes.getOrderDate());
+        }
+        if (changes.getExpectedDate() != null) {
+            order.setExpectedDate(changes.getExpectedDate());
+        }
+        if (changes.getDeliveryDate() != null) {
+            order.setDeliveryDate(changes.getDeliveryDate());
+        }
+        if (changes.getStatus() != null) {
+            order.setStatus(changes.getStatus());
+        }
+        codeGenerator.assignIfMissing(order);
+        putawayService.orderChanged(order, oldStatus);
+        dashboardAggregates.orderChanged(oldStatus, oldTotal, order.getStatus(), order.getTotalAmount());
+        return order;
     }
 
     // Deleta um pedido
     @DeleteMapping("/{id}")
-    public void delete(@PathVariable Long id) {
-        orderRepo.deleteById(id);
+    @Transactional
+    public ResponseEntity<?> delete(@PathVariable Long id) {
+        Optional<PurchaseOrder> existing = orderRepo.findById(id);
+        if (existing.isPresent()) {
+            PurchaseOrder order = existing.get();
+            // O razão de estoque referencia as linhas recebidas: o pedido não pode mais ser apagado
+            if (order.getItems().stream().anyMatch(PurchaseOrderItem::hasReceipts)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("message", "Pedido com itens já recebidos não pode ser excluído"));
+            }
+            order.getItems().forEach(putawayService::release);
+            orderRepo.delete(order);
+            dashboardAggregates.orderDeleted(order.getStatus(), order.getTotalAmount());
+        }
+        return ResponseEntity.ok().build();
     }
 
-    // Marca recebimento parcial de item
+    // Marca recebimento parcial de item (incremento atômico, sem recarregar os itens do pedido)
     @PostMapping("/{orderId}/items/{itemId}/receive")
     public PurchaseOrder receiveItem(
             @PathVariable Long orderId,
             @PathVariable Long itemId,
             @RequestBody ReceiveRequest req
     ) {
-        PurchaseOrderItem item = itemRepo.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item não encontrado"));
-
-        double received = item.getReceivedQuantity() == null ? 0 : item.getReceivedQuantity();
-        item.setReceivedQuantity(received + req.quantity());
-        itemRepo.save(item);
-
-        PurchaseOrder order = orderRepo.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Pedido não encontrado"));
-
-        boolean allReceived = order.getItems().stream()
-                .allMatch(i -> i.getReceivedQuantity() != null &&
-                               i.getReceivedQuantity() >= i.getQuantity());
-
-        if (allReceived) {
-            order.setStatus(PurchaseOrder.Status.RECEIVED);
-            order.setDeliveryDate(LocalDate.now());
-            order.setFullyReceived(true);
-        } else {
-            order.setStatus(PurchaseOrder.Status.PARTIALLY_RECEIVED);
-        }
+        return receivingService.receive(orderId, itemId, req.quantity() != null ? req.quantity() : 0.0);
+    }
 
-        return orderRepo.save(order);
+    // Leituras de código de barras: agrupadas por linha em janelas curtas e confirmadas uma a uma
+    @PostMapping("/scans")
+    public CompletableFuture<List<ScanIngestionService.ScanAck>> ingestScans(
+            @RequestBody List<ScanIngestionService.Scan> scans) {
+        return scanIngestionService.submitAll(scans);
     }
 
     public record ReceiveRequest(Double quantity) {}
@@ -0,0 +1,32 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.service.ReplenishmentPlanner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/replenishment")
+@CrossOrigin(origins = "http://localhost:5173")
+public class ReplenishmentController {
+
+    private final ReplenishmentPlanner planner;
+
+    public ReplenishmentController(ReplenishmentPlanner planner) {
+        this.planner = planner;
+    }
+
+    // POST execução sob demanda (a agendada roda diariamente): um rascunho por fornecedor; só ADMIN
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> run() {
+        try {
+            return ResponseEntity.ok(planner.run());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+}
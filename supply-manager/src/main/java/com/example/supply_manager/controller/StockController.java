@@ -0,0 +1,137 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.model.ProductValuation;
+import com.example.supply_manager.model.StockBalance;
+import com.example.supply_manager.model.StockMovement;
+import com.example.supply_manager.repository.StockBalanceRepository;
+import com.example.supply_manager.repository.StockMovementRepository;
+import com.example.supply_manager.service.InventoryValuationService;
+import com.example.supply_manager.service.StockLedgerService;
+import com.example.supply_manager.service.StockSnapshotService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stock")
+@CrossOrigin(origins = "http://localhost:5173")
+public class StockController {
+
+    private final StockBalanceRepository balanceRepository;
+    private final StockMovementRepository movementRepository;
+    private final StockLedgerService stockLedger;
+    private final StockSnapshotService snapshotService;
+    private final InventoryValuationService valuation;
+
+    public StockController(StockBalanceRepository balanceRepository,
+                           StockMovementRepository movementRepository,
+                           StockLedgerService stockLedger,
+                           StockSnapshotService snapshotService,
+                           InventoryValuationService valuation) {
+        this.balanceRepository = balanceRepository;
+        this.movementRepository = movementRepository;
+        this.stockLedger = stockLedger;
+        this.snapshotService = snapshotService;
+        this.valuation = valuation;
+    }
+
+    // GET saldos por (produto, local), paginado; nunca soma o razão
+    @GetMapping
+    public Page<StockBalanceRepository.BalanceView> list(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return balanceRepository.findBalances(productId, PageRequest.of(page, size));
+    }
+
+    // GET saldo de um produto: uma linha por local e o total
+    @GetMapping("/products/{productId}")
+    public Map<String, Object> byProduct(@PathVariable Long productId) {
+        List<StockBalance> balances = stockLedger.balancesOf(productId);
+        double total = balances.stream().mapToDouble(StockBalance::getQuantity).sum();
+        return Map.of("productId", productId, "onHand", total, "locations", balances);
+    }
+
+    // GET saldo de um produto em um local (leitura pela chave primária)
+    @GetMapping("/products/{productId}/locations/{locationId}")
+    public Map<String, Object> byProductAndLocation(@PathVariable Long productId, @PathVariable Long locationId) {
+        return Map.of("productId", productId, "locationId", locationId,
+                "onHand", stockLedger.onHand(productId, locationId));
+    }
+
+    // GET razão de movimentações, mais recentes primeiro
+    @GetMapping("/movements")
+    public Page<StockMovementRepository.MovementView> movements(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return movementRepository.findMovements(productId, PageRequest.of(page, size));
+    }
+
+    // GET saldo em uma data passada: snapshot anterior mais próximo + movimentos posteriores a ele
+    @GetMapping("/as-of")
+    public List<StockSnapshotService.Balance> asOf(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) Long productId) {
+        return snapshotService.asOf(at, productId);
+    }
+
+    // POST snapshot sob demanda (o agendado roda diariamente); só ADMIN
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> snapshot() {
+        var snapshot = snapshotService.takeSnapshot();
+        return Map.of("id", snapshot.getId(), "cutoff", snapshot.getCutoff(), "lines", snapshot.getLineCount());
+    }
+
+    // GET valor total do estoque ao custo médio (agregado mantido em faixas, leitura de poucas linhas)
+    @GetMapping("/valuation")
+    public Map<String, Object> valuation() {
+        return Map.of("totalValue", valuation.totalValue());
+    }
+
+    // GET avaliação de um produto: saldo, valor e custo médio
+    @GetMapping("/valuation/products/{productId}")
+    public ResponseEntity<ProductValuation> productValuation(@PathVariable Long productId) {
+        return valuation.valuationOf(productId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // POST reavaliação completa a partir do razão; sem apply=true apenas compara e reporta divergências; só ADMIN
+    @PostMapping("/valuation/revalue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public InventoryValuationService.RevaluationReport revalue(@RequestParam(defaultValue = "false") boolean apply) {
+        return valuation.revalue(apply);
+    }
+
+    // POST saída de estoque (baixa condicionada ao saldo disponível)
+    @PostMapping("/issues")
+    public ResponseEntity<?> issue(@RequestBody IssueRequest request) {
+        if (request.productId() == null || request.quantity() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            StockMovement movement = stockLedger.issue(request.productId(), request.locationId(),
+                    request.quantity(), request.reference());
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                    "id", movement.getId(),
+                    "productId", request.productId(),
+                    "onHand", stockLedger.onHand(request.productId(), request.locationId())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    public record IssueRequest(Long productId, Long locationId, Double quantity, String reference) {}
+}
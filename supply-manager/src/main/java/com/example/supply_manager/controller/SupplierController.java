@@ -1,45 +1,121 @@
 package com.example.supply_manager.controller;
 
 import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.PurchaseOrderItemRepository;
 import com.example.supply_manager.repository.SupplierRepository;
+import com.example.supply_manager.service.DashboardAggregateService;
+import com.example.supply_manager.service.ReferenceDataCache;
+import com.example.supply_manager.service.SparseFieldQuery;
+import com.example.supply_manager.service.TypeaheadService;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/suppliers")
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000", "http://localhost:8081", "http://127.0.0.1:5173", "http://127.0.0.1:3000"})
 public class SupplierController {
     private final SupplierRepository repository;
+    private final PurchaseOrderItemRepository itemRepository;
+    private final DashboardAggregateService dashboardAggregates;
+    private final ReferenceDataCache referenceCache;
+    private final TypeaheadService typeahead;
+    private final SparseFieldQuery sparseFields;
 
-    public SupplierController(SupplierRepository repository){
+    private static final SparseFieldQuery.Fields<Supplier> LIST_FIELDS = new SparseFieldQuery.Fields<>(Supplier.class)
+            .field("id", "id")
+            .field("name", "name")
+            .field("cnpj", "cnpj")
+            .field("email", "email")
+            .field("address", "address")
+            .field("notes", "notes")
+            .field("updatedAt", "updatedAt");
+
+    public SupplierController(SupplierRepository repository, PurchaseOrderItemRepository itemRepository,
+                              DashboardAggregateService dashboardAggregates,
+                              ReferenceDataCache referenceCache, TypeaheadService typeahead,
+                              SparseFieldQuery sparseFields){
         this.repository = repository;
+        this.itemRepository = itemRepository;
+        this.dashboardAggregates = dashboardAggregates;
+        this.referenceCache = referenceCache;
+        this.typeahead = typeahead;
+        this.sparseFields = sparseFields;
     }
 
+    // fields= seleciona só as colunas pedidas (nomes do JSON de Supplier)
     @GetMapping
-    public List<Supplier> getAll(){
-        return repository.findAll();
+    public ResponseEntity<?> getAll(@RequestParam(required = false) String fields){
+        List<String> selected;
+        try {
+            selected = LIST_FIELDS.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (selected == null) {
+            return ResponseEntity.ok(repository.findAll());
+        }
+        return ResponseEntity.ok(sparseFields.list(LIST_FIELDS, selected, null, Sort.by("id"), 0, 0));
     }
 
+    // Validador a partir da cópia em cache: 304 sem consulta nem serialização
     @GetMapping("/{id}")
-    public Supplier getById(@PathVariable Long id){
-        return repository.findById(id)
+    public ResponseEntity<Supplier> getById(@PathVariable Long id, WebRequest request){
+        Supplier supplier = referenceCache.supplier(id)
         .orElseThrow(() -> new RuntimeException("Fornecedor não encontrado"));
+        if (EntityTags.notModified(request, supplier.getUpdatedAt(), "supplier", id, supplier.getUpdatedAt())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(EntityTags.REVALIDATE).body(supplier);
     }
 
     @PostMapping
+    @Transactional
     public Supplier create(@RequestBody Supplier supplier){
-        return repository.save(supplier);
+        boolean isNew = supplier.getId() == null || !repository.existsById(supplier.getId());
+        Supplier saved = repository.save(supplier);
+        referenceCache.evictSupplier(saved.getId());
+        typeahead.supplierAfterCommit(saved);
+        if (isNew) {
+            dashboardAggregates.supplierCreated();
+        }
+        return saved;
     }
 
     @PutMapping("/{id}")
+    @Transactional
     public Supplier update(@PathVariable Long id, @RequestBody Supplier supplier) {
-        return repository.save(supplier);
+        boolean isNew = supplier.getId() == null || !repository.existsById(supplier.getId());
+        Supplier saved = repository.save(supplier);
+        referenceCache.evictSupplier(saved.getId());
+        typeahead.supplierAfterCommit(saved);
+        if (isNew) {
+            dashboardAggregates.supplierCreated();
+        }
+        return saved;
     }
 
     @DeleteMapping("/{id}")
-    public void delete(@PathVariable Long id) {
-        repository.deleteById(id);
+    @Transactional
+    public ResponseEntity<?> delete(@PathVariable Long id) {
+        // Os pedidos do fornecedor seriam removidos em cascata, mas o razão referencia os já recebidos
+        if (itemRepository.existsReceivedBySupplier(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "Fornecedor com pedidos já recebidos não pode ser excluído"));
+        }
+        if (repository.existsById(id)) {
+            dashboardAggregates.supplierDeleted(id);
+            repository.deleteById(id);
+            referenceCache.evictSupplier(id);
+            typeahead.supplierRemovedAfterCommit(id);
+        }
+        return ResponseEntity.ok().build();
     }
     
     @GetMapping("/search")
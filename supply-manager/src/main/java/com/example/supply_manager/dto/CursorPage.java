@@ -0,0 +1,34 @@
+package com.example.supply_manager.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (cursor) page: "next" is an opaque token to pass back as "after" and is null on the last page
+ */
+public record CursorPage<T>(List<T> content, String next, int size, Long totalElements) {
+
+    // Posição do último item entregue: chave de ordenação + id (desempate)
+    public record Cursor(String key, long id) {
+
+        public String encode() {
+            String raw = (key != null ? key : "") + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Token vazio = primeira página
+        public static Cursor decode(String token) {
+            if (token == null || token.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.supply_manager.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary returned by the bulk import endpoints
+ */
+@Data
+public class ImportReport {
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private long recordsWritten;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    public record RowError(long line, String message) {}
+
+    public void reject(long line, String message, int maxErrors) {
+        reject(line, message, 1, maxErrors);
+    }
+
+    // Um único erro que invalida várias linhas (ex.: todas as linhas de um pedido no CSV)
+    public void reject(long line, String message, long rows, int maxErrors) {
+        rowsRejected += rows;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public void finish(long startNanos) {
+        elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        rowsPerSecond = elapsedMs > 0 ? rowsRead * 1000.0 / elapsedMs : rowsRead;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 
 @Data
@@ -41,5 +42,14 @@ public class ProductDTO {
     
     private Long preferredSupplierId;
     
+    @PositiveOrZero(message = "Reorder point must be a positive number")
+    private Double reorderPoint;
+    
+    @PositiveOrZero(message = "Reorder quantity must be a positive number")
+    private Double reorderQuantity;
+    
     private boolean active = true;
+
+    // Só saída: validador dos GETs condicionais, ignorado na escrita
+    private LocalDateTime updatedAt;
 }
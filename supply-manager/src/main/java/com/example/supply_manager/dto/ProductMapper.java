@@ -27,12 +27,15 @@ public class ProductMapper {
         dto.setVolume(product.getVolume());
         dto.setUnit(product.getUnit());
         dto.setDefaultPrice(product.getDefaultPrice());
+        dto.setReorderPoint(product.getReorderPoint());
+        dto.setReorderQuantity(product.getReorderQuantity());
         
         if (product.getPreferredSupplier() != null) {
             dto.setPreferredSupplierId(product.getPreferredSupplier().getId());
         }
         
         dto.setActive(product.isActive());
+        dto.setUpdatedAt(product.getUpdatedAt());
         return dto;
     }
     
@@ -58,6 +61,8 @@ public class ProductMapper {
         product.setVolume(dto.getVolume());
         product.setUnit(dto.getUnit());
         product.setDefaultPrice(dto.getDefaultPrice());
+        product.setReorderPoint(dto.getReorderPoint());
+        product.setReorderQuantity(dto.getReorderQuantity());
         product.setActive(dto.isActive());
         // Note: preferredSupplier should be set in the service layer
     }
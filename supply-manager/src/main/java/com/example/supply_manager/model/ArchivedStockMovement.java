@@ -0,0 +1,42 @@
+package com.example.supply_manager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movement moved out of stock_movements by compaction. Only scalar columns are kept: archived
+ * rows are read in bulk by point-in-time queries, never navigated.
+ */
+@Data
+@Entity
+@Table(name = "stock_movements_archive", indexes = {
+        @Index(name = "idx_stock_movements_archive_date", columnList = "movement_date")
+})
+public class ArchivedStockMovement {
+    @Id
+    private Long id; // mesmo id do movimento original
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "location_id")
+    private Long locationId;
+
+    @Enumerated(EnumType.STRING)
+    private StockMovement.MovementType type;
+
+    private Double quantity;
+
+    @Column(name = "movement_date")
+    private LocalDateTime movementDate;
+
+    private String reference;
+
+    @Column(name = "unit_cost")
+    private Double unitCost;
+
+    @Column(name = "purchase_order_item_id")
+    private Long purchaseOrderItemId;
+}
@@ -0,0 +1,23 @@
+package com.example.supply_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@Table(name = "dashboard_aggregates")
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardAggregate {
+    @Id
+    @Column(name = "metric_key", length = 64)
+    private String key; // ex: "orders:ISSUED", "products:active"
+
+    @Column(name = "item_count", nullable = false)
+    private long count;
+
+    @Column(name = "amount_sum", nullable = false)
+    private double amount;
+}
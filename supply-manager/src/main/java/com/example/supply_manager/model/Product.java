@@ -12,7 +12,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_name_id", columnList = "name, id"),
+        @Index(name = "idx_products_updated_at", columnList = "updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -58,6 +61,16 @@ public class Product {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "preferred_supplier_id")
     private Supplier preferredSupplier;
+
+    // ponto de pedido: abaixo dele (estoque + pedidos em aberto) o planejador gera um rascunho
+    @Column(name = "reorder_point")
+    @PositiveOrZero(message = "Reorder point must be a positive number")
+    private Double reorderPoint;
+
+    // lote de compra mínimo sugerido no rascunho
+    @Column(name = "reorder_quantity")
+    @PositiveOrZero(message = "Reorder quantity must be a positive number")
+    private Double reorderQuantity;
     
     @Column(name = "is_active", nullable = false)
     private boolean active = true;
@@ -0,0 +1,44 @@
+package com.example.supply_manager.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moving weighted-average valuation of one product across all locations: quantity on hand and
+ * the total cost of that quantity, adjusted by the stock ledger on every receipt and issue so
+ * the average cost is always value / quantity without replaying the movements.
+ */
+@Data
+@Entity
+@Table(name = "product_valuations")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductValuation {
+
+    // O valor total do estoque é mantido em faixas (product_id % VALUE_STRIPES) no dashboard:
+    // movimentações de produtos diferentes raramente disputam a mesma linha agregada
+    public static final int VALUE_STRIPES = 16;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private double quantity;
+
+    @Column(name = "total_value", nullable = false)
+    private double totalValue;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @JsonProperty("averageCost")
+    public double averageCost() {
+        return quantity > 0 ? totalValue / quantity : 0.0;
+    }
+}
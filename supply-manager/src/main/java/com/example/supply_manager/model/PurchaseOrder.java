@@ -3,22 +3,34 @@ package com.example.supply_manager.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
 @Entity
-@Table(name = "purchase_orders")
+@DynamicUpdate // UPDATE só das colunas alteradas: não sobrescreve contadores mantidos no banco
+@Table(name = "purchase_orders", indexes = {
+        @Index(name = "idx_purchase_orders_code", columnList = "code"),
+        // Listagens por fornecedor e por período (o prefixo supplier_id também serve as buscas por fornecedor)
+        @Index(name = "idx_purchase_orders_supplier_date", columnList = "supplier_id, orderDate"),
+        @Index(name = "idx_purchase_orders_date_status", columnList = "orderDate, status")
+})
 public class PurchaseOrder {
+    // SEQUENCE (em blocos de 50) para permitir batch de INSERTs, como em PurchaseOrderItem.
+    // Bases existentes (ids vindos de IDENTITY): ajustar com setval('purchase_orders_seq', max(id))
+    // antes do deploy; o ddl-auto cria a sequência começando em 1 e os primeiros ids colidiriam.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_orders_seq")
+    @SequenceGenerator(name = "purchase_orders_seq", sequenceName = "purchase_orders_seq", allocationSize = 50)
     private Long id;
 
     // número do pedido (pode ser PO-2025-0001)
     private String code;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Supplier supplier;
 
     private LocalDate orderDate;          // data da compra
@@ -41,6 +53,25 @@ public class PurchaseOrder {
     // marcador de que chegou tudo
     private Boolean fullyReceived;
 
+    // itens ainda não recebidos por completo (mantido no recebimento, sem recarregar os itens)
+    @Column(name = "outstanding_lines")
+    private Integer outstandingLines;
+
+    // Validador dos GETs condicionais; UPDATEs em JPQL do recebimento também o avançam
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Mudanças só nos itens não sujam o pedido: marca explicitamente para o ETag mudar
+    public void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
     // Helper methods for bidirectional relationship
     public void addItem(PurchaseOrderItem item) {
         items.add(item);
@@ -52,6 +83,11 @@ public class PurchaseOrder {
         item.setPurchaseOrder(null);
     }
 
+    // Recalcula as linhas pendentes a partir dos itens carregados
+    public void recountOutstandingLines() {
+        outstandingLines = (int) items.stream().filter(PurchaseOrderItem::isOutstanding).count();
+    }
+
     public void clearItems() {
         if (items != null) {
             items.clear();
@@ -3,13 +3,20 @@ package com.example.supply_manager.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Data
 @Entity
-@Table(name = "purchase_order_items")
+@DynamicUpdate // recebimentos incrementam received_quantity direto no banco
+@Table(name = "purchase_order_items", indexes = {
+        @Index(name = "idx_purchase_order_items_product", columnList = "product_id")
+})
 public class PurchaseOrderItem {
+    // SEQUENCE (em blocos de 50) em vez de IDENTITY para permitir batch de INSERTs no Hibernate.
+    // Bases existentes: ajustar com setval('purchase_order_items_seq', max(id)) antes do deploy.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "purchase_order_items_seq")
+    @SequenceGenerator(name = "purchase_order_items_seq", sequenceName = "purchase_order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,5 +45,22 @@ public class PurchaseOrderItem {
     @JoinColumn(name = "suggested_location_id")
     private WarehouseLocation suggestedLocation;
 
+    // volume reservado no local sugerido (devolvido exatamente, mesmo que produto ou quantidade mudem)
+    @JsonIgnore
+    private Double reservedVolume;
+
+    // linha ainda aguardando recebimento
+    @JsonIgnore
+    public boolean isOutstanding() {
+        double ordered = quantity != null ? quantity : 0.0;
+        double received = receivedQuantity != null ? receivedQuantity : 0.0;
+        return ordered > 0 && received < ordered;
+    }
+
+    // já tem entrada lançada no razão (stock_movements referencia a linha): não pode mais ser removida
+    public boolean hasReceipts() {
+        return receivedQuantity != null && receivedQuantity > 0;
+    }
+
     // getters e setters
 }
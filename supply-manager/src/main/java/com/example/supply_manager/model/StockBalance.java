@@ -0,0 +1,47 @@
+package com.example.supply_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * On-hand quantity per (product, location), kept up to date by the stock ledger on every
+ * movement so current stock is a primary-key read instead of a sum over stock_movements.
+ */
+@Data
+@Entity
+@Table(name = "stock_balances")
+@IdClass(StockBalance.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBalance {
+
+    // Movimentos sem endereço de armazenagem (ex.: recebimento sem local sugerido)
+    public static final long NO_LOCATION = 0L;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "location_id")
+    private Long locationId;
+
+    @Column(nullable = false)
+    private double quantity;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private Long locationId;
+    }
+}
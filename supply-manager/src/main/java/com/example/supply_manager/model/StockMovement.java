@@ -6,10 +6,18 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "stock_movements")
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_product", columnList = "product_id, id"),
+        @Index(name = "idx_stock_movements_date", columnList = "movement_date"),
+        @Index(name = "idx_stock_movements_product_date", columnList = "product_id, movement_date"),
+        // FK da linha de pedido: a exclusão de itens verifica o razão por este índice, sem varrê-lo
+        @Index(name = "idx_stock_movements_item", columnList = "purchase_order_item_id")
+})
 public class StockMovement {
+    // Razão só recebe INSERTs: SEQUENCE em blocos permite gravá-los em batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -28,12 +36,27 @@ public class StockMovement {
 
     private String reference; // "PO-2025-0001"
 
+    // custo unitário: preço da linha na entrada, custo médio vigente na saída (nulo = entrada ao custo médio)
+    @Column(name = "unit_cost")
+    private Double unitCost;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id")
     private WarehouseLocation location;
 
+    // linha de pedido que originou a entrada (recebimento)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "purchase_order_item_id")
+    private PurchaseOrderItem purchaseOrderItem;
+
+    // false enquanto o saldo ainda não recebeu este movimento (cache de saldos com gravação adiada)
+    @Column(name = "balance_applied")
+    private Boolean balanceApplied;
+
     @PrePersist
     protected void onCreate() {
-        this.movementDate = LocalDateTime.now();
+        if (this.movementDate == null) {
+            this.movementDate = LocalDateTime.now();
+        }
     }
 }
@@ -0,0 +1,28 @@
+package com.example.supply_manager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "stock_snapshots", indexes = {
+        @Index(name = "idx_stock_snapshots_cutoff", columnList = "cutoff")
+})
+public class StockSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshots_seq")
+    @SequenceGenerator(name = "stock_snapshots_seq", sequenceName = "stock_snapshots_seq", allocationSize = 1)
+    private Long id;
+
+    // saldos incluem todos os movimentos com movement_date <= cutoff
+    @Column(nullable = false)
+    private LocalDateTime cutoff;
+
+    @Column(name = "line_count", nullable = false)
+    private long lineCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.example.supply_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Entity
+@Table(name = "stock_snapshot_lines")
+@IdClass(StockSnapshotLine.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshotLine {
+    @Id
+    @Column(name = "snapshot_id")
+    private Long snapshotId;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "location_id")
+    private Long locationId; // 0 = sem local, como em stock_balances
+
+    @Column(nullable = false)
+    private double quantity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long snapshotId;
+        private Long productId;
+        private Long locationId;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.supply_manager.repository;
+
+import com.example.supply_manager.model.ArchivedStockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ArchivedStockMovementRepository extends JpaRepository<ArchivedStockMovement, Long> {
+
+    // Copia um lote do razão para o arquivo no próprio banco (INSERT ... SELECT)
+    @Modifying
+    @Query("INSERT INTO ArchivedStockMovement (id, productId, locationId, type, quantity, movementDate, reference, unitCost, purchaseOrderItemId) " +
+           "SELECT m.id, m.product.id, m.location.id, m.type, m.quantity, m.movementDate, m.reference, m.unitCost, " +
+           "m.purchaseOrderItem.id " +
+           "FROM StockMovement m WHERE m.id IN :ids")
+    int copyFromLedger(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT m.productId AS productId, m.locationId AS locationId, " +
+           "SUM(CASE WHEN m.type = com.example.supply_manager.model.StockMovement.MovementType.IN " +
+           "THEN m.quantity ELSE -m.quantity END) AS delta " +
+           "FROM ArchivedStockMovement m " +
+           "WHERE (CAST(:from AS LocalDateTime) IS NULL OR m.movementDate > :from) AND m.movementDate <= :to " +
+           "AND (:productId IS NULL OR m.productId = :productId) " +
+           "GROUP BY m.productId, m.locationId")
+    List<StockMovementRepository.PendingDelta> sumBetween(@Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to,
+                                                          @Param("productId") Long productId);
+
+    // Reavaliação: movimentos arquivados de uma faixa de produtos (o custo vem da linha do pedido se faltar)
+    @Query("SELECT m.id AS id, m.productId AS productId, m.type AS type, m.quantity AS quantity, " +
+           "COALESCE(m.unitCost, i.unitPrice) AS unitCost " +
+           "FROM ArchivedStockMovement m LEFT JOIN PurchaseOrderItem i ON i.id = m.purchaseOrderItemId " +
+           "WHERE m.productId BETWEEN :fromId AND :toId")
+    List<StockMovementRepository.CostedMovement> findCostedBetween(@Param("fromId") long fromId,
+                                                                   @Param("toId") long toId);
+}
@@ -0,0 +1,30 @@
+package com.example.supply_manager.repository;
+
+import com.example.supply_manager.model.DashboardAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface DashboardAggregateRepository extends JpaRepository<DashboardAggregate, String> {
+
+    // Incremento atômico no banco, sem read-modify-write em Java
+    @Modifying
+    @Query("UPDATE DashboardAggregate a SET a.count = a.count + :count, a.amount = a.amount + :amount WHERE a.key = :key")
+    int increment(@Param("key") String key, @Param("count") long count, @Param("amount") double amount);
+
+    // Mesmo padrão de stock_balances: cria a linha zerada sem abortar se outra transação já criou
+    @Modifying
+    @Query(value = "INSERT INTO dashboard_aggregates (metric_key, item_count, amount_sum) " +
+                   "VALUES (:key, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key);
+
+    // Reconstrução: bloqueia todas as linhas (em ordem de chave) antes de varrer as tabelas de origem
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM DashboardAggregate a ORDER BY a.key")
+    List<DashboardAggregate> findAllForUpdate();
+}
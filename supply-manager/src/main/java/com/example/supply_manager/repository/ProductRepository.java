@@ -1,13 +1,22 @@
 package com.example.supply_manager.repository;
 
 import com.example.supply_manager.model.Product;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
@@ -20,6 +29,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Find all products by supplier
     List<Product> findByPreferredSupplierId(Long supplierId);
     
+    // Count active products without loading them
+    long countByActiveTrue();
+    
     // Find all active products with pagination
     Page<Product> findByActiveTrue(Pageable pageable);
     
@@ -32,4 +44,79 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     // Find product by SKU (case-insensitive)
     Product findBySkuIgnoreCase(String sku);
+    
+    // Keyset pagination ordered by (name, id), served by idx_products_name_id
+    @Query("SELECT p FROM Product p ORDER BY p.name, p.id")
+    List<Product> findFirstPage(Pageable pageable);
+    
+    @Query("SELECT p FROM Product p WHERE p.name > :name OR (p.name = :name AND p.id > :id) ORDER BY p.name, p.id")
+    List<Product> findPageAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+    
+    // Only the ids, sorted (validation cache for bulk imports)
+    @Query("SELECT p.id FROM Product p ORDER BY p.id")
+    List<Long> findAllIds();
+
+    // Volume unitário para o putaway, sem carregar as entidades
+    @Query("SELECT p.id AS id, p.volume AS volume FROM Product p WHERE p.id IN :ids")
+    List<ProductVolume> findVolumes(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT MIN(p.id) AS minId, MAX(p.id) AS maxId FROM Product p")
+    IdRange findIdRange();
+
+    // Planejador de reposição: faixa de ids e candidatos por partição do catálogo
+    @Query("SELECT MIN(p.id) AS minId, MAX(p.id) AS maxId FROM Product p " +
+           "WHERE p.active = true AND p.reorderPoint IS NOT NULL")
+    IdRange findReorderIdRange();
+
+    @Query("SELECT p.id AS id, p.preferredSupplier.id AS supplierId, p.reorderPoint AS reorderPoint, " +
+           "p.reorderQuantity AS reorderQuantity, p.defaultPrice AS defaultPrice FROM Product p " +
+           "WHERE p.active = true AND p.reorderPoint IS NOT NULL AND p.id BETWEEN :fromId AND :toId")
+    List<ReorderCandidate> findReorderCandidates(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Carga do índice de busca: só as colunas indexadas, em cursor somente leitura
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p.id AS id, p.sku AS sku, p.name AS name, p.active AS active FROM Product p")
+    Stream<SearchRow> streamSearchRows();
+
+    // Importação por SKU: todos os SKUs existentes (ordenados em memória) e o estado atual por chunk
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p.id AS id, p.sku AS sku FROM Product p")
+    Stream<SkuRow> streamSkus();
+
+    @Query("SELECT p.id AS id, p.sku AS sku, p.name AS name, p.active AS active FROM Product p WHERE p.id IN :ids")
+    List<SearchRow> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // GET condicional da listagem: qualquer INSERT/UPDATE avança o max(updated_at); lido pelo índice de updated_at
+    @Query("SELECT MAX(p.updatedAt) FROM Product p")
+    LocalDateTime findLastUpdatedAt();
+
+    interface SkuRow {
+        Long getId();
+        String getSku();
+    }
+
+    interface SearchRow {
+        Long getId();
+        String getSku();
+        String getName();
+        Boolean getActive();
+    }
+
+    interface IdRange {
+        Long getMinId();
+        Long getMaxId();
+    }
+
+    interface ReorderCandidate {
+        Long getId();
+        Long getSupplierId();
+        Double getReorderPoint();
+        Double getReorderQuantity();
+        BigDecimal getDefaultPrice();
+    }
+
+    interface ProductVolume {
+        Long getId();
+        Double getVolume();
+    }
 }
@@ -0,0 +1,66 @@
+package com.example.supply_manager.repository;
+
+import com.example.supply_manager.model.ProductValuation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductValuationRepository extends JpaRepository<ProductValuation, Long> {
+
+    // Entrada com custo conhecido: quantidade e valor somados no mesmo UPDATE
+    @Modifying
+    @Query("UPDATE ProductValuation v SET v.quantity = v.quantity + :quantity, " +
+           "v.totalValue = v.totalValue + :value, v.updatedAt = :now WHERE v.productId = :productId")
+    int apply(@Param("productId") Long productId, @Param("quantity") double quantity,
+              @Param("value") double value, @Param("now") LocalDateTime now);
+
+    // Mesmo padrão de stock_balances: cria a linha zerada sem abortar se outra transação já criou
+    @Modifying
+    @Query(value = "INSERT INTO product_valuations (product_id, quantity, total_value, updated_at) " +
+                   "VALUES (:productId, 0, 0, :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("productId") Long productId, @Param("now") LocalDateTime now);
+
+    // Saídas leem o custo médio com a linha bloqueada: duas baixas simultâneas não usam o mesmo médio.
+    // Projeção (e não entidade): o valor lido nunca vem do contexto de persistência, já alterado por apply
+    @Query(value = "SELECT quantity AS quantity, total_value AS totalValue FROM product_valuations " +
+                   "WHERE product_id = :productId FOR UPDATE", nativeQuery = true)
+    Optional<ValuationState> findStateForUpdate(@Param("productId") Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM ProductValuation v WHERE v.productId = :productId")
+    Optional<ProductValuation> findForUpdate(@Param("productId") Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM ProductValuation v WHERE v.productId BETWEEN :fromId AND :toId")
+    List<ProductValuation> findForUpdateBetween(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT v FROM ProductValuation v WHERE v.productId BETWEEN :fromId AND :toId")
+    List<ProductValuation> findBetween(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Reconstrução dos agregados do dashboard: valor por faixa, na mesma divisão usada pelos incrementos
+    @Query("SELECT MOD(v.productId, " + ProductValuation.VALUE_STRIPES + ") AS stripe, " +
+           "COALESCE(SUM(v.totalValue), 0) AS value FROM ProductValuation v " +
+           "GROUP BY MOD(v.productId, " + ProductValuation.VALUE_STRIPES + ")")
+    List<StripeValue> sumValueByStripe();
+
+    interface StripeValue {
+        Number getStripe();
+        double getValue();
+    }
+
+    interface ValuationState {
+        double getQuantity();
+        double getTotalValue();
+
+        default double averageCost() {
+            return getQuantity() > 0 ? getTotalValue() / getQuantity() : 0.0;
+        }
+    }
+}
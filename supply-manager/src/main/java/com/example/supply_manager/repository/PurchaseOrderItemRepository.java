@@ -1,7 +1,53 @@
 package com.example.supply_manager.repository;
 
+import com.example.supply_manager.model.PurchaseOrder;
 import com.example.supply_manager.model.PurchaseOrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface PurchaseOrderItemRepository extends JpaRepository<PurchaseOrderItem, Long> {
+
+    // Incremento atômico: sem ler-somar-gravar em Java, nenhum recebimento se perde
+    @Modifying
+    @Query("UPDATE PurchaseOrderItem i SET i.receivedQuantity = COALESCE(i.receivedQuantity, 0) + :quantity " +
+           "WHERE i.id = :itemId AND i.purchaseOrder.id = :orderId")
+    int incrementReceived(@Param("orderId") Long orderId, @Param("itemId") Long itemId, @Param("quantity") double quantity);
+
+    // Lido logo após o incremento, enquanto a linha ainda está bloqueada pela própria transação
+    @Query("SELECT i.quantity AS quantity, i.receivedQuantity AS receivedQuantity, i.product.id AS productId, " +
+           "i.unitPrice AS unitPrice, l.id AS locationId, o.code AS orderCode " +
+           "FROM PurchaseOrderItem i JOIN i.purchaseOrder o LEFT JOIN i.suggestedLocation l WHERE i.id = :itemId")
+    Optional<ReceiptState> findReceiptState(@Param("itemId") Long itemId);
+
+    // Recebimentos lançados no razão impedem a exclusão em cascata dos pedidos do fornecedor
+    @Query("SELECT COUNT(i) > 0 FROM PurchaseOrderItem i " +
+           "WHERE i.purchaseOrder.supplier.id = :supplierId AND i.receivedQuantity > 0")
+    boolean existsReceivedBySupplier(@Param("supplierId") Long supplierId);
+
+    // Quantidade ainda a receber por produto em pedidos abertos (planejador de reposição)
+    @Query("SELECT i.product.id AS productId, SUM(i.quantity - COALESCE(i.receivedQuantity, 0)) AS quantity " +
+           "FROM PurchaseOrderItem i WHERE i.purchaseOrder.status IN :statuses " +
+           "AND i.product.id BETWEEN :fromId AND :toId GROUP BY i.product.id")
+    List<OpenQuantity> sumOpenQuantities(@Param("statuses") Collection<PurchaseOrder.Status> statuses,
+                                         @Param("fromId") long fromId, @Param("toId") long toId);
+
+    interface OpenQuantity {
+        Long getProductId();
+        Double getQuantity();
+    }
+
+    interface ReceiptState {
+        Double getQuantity();
+        Double getReceivedQuantity();
+        Long getProductId();
+        Double getUnitPrice();
+        Long getLocationId();
+        String getOrderCode();
+    }
 }
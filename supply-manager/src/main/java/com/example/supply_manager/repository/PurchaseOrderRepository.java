@@ -1,13 +1,218 @@
 package com.example.supply_manager.repository;
 
 import com.example.supply_manager.model.PurchaseOrder;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
+
+    // Listagens carregam o fornecedor no mesmo SELECT; itens e produtos vêm em lote
+    // (hibernate.default_batch_fetch_size), então o número de consultas não cresce com a página
+    @Override
+    @EntityGraph(attributePaths = "supplier")
+    Page<PurchaseOrder> findAll(Pageable pageable);
+
+    // Detalhe: pedido, fornecedor, itens e produtos em uma única consulta
+    @EntityGraph(attributePaths = {"supplier", "items", "items.product"})
+    Optional<PurchaseOrder> findDetailedById(Long id);
     
+    // Códigos importados podem repetir; os gerados são únicos
+    Optional<PurchaseOrder> findFirstByCodeOrderByIdDesc(String code);
+
     long countByStatus(PurchaseOrder.Status status);
     
     List<PurchaseOrder> findByStatus(PurchaseOrder.Status status);
+
+    // Totais por status calculados no banco (usado na reconciliação do dashboard)
+    @Query("SELECT o.status AS status, COUNT(o) AS count, COALESCE(SUM(o.totalAmount), 0) AS amount " +
+           "FROM PurchaseOrder o GROUP BY o.status")
+    List<StatusTotals> sumByStatus();
+
+    @Query("SELECT o.status AS status, COUNT(o) AS count, COALESCE(SUM(o.totalAmount), 0) AS amount " +
+           "FROM PurchaseOrder o WHERE o.supplier.id = :supplierId GROUP BY o.status")
+    List<StatusTotals> sumByStatusForSupplier(@Param("supplierId") Long supplierId);
+
+    // Busca: um SELECT por predicado, cada um com LIMIT e ordenado pelo próprio índice, para o banco
+    // parar na primeira página em vez de ordenar todas as linhas; o ranking é montado no controller
+    @EntityGraph(attributePaths = "supplier")
+    @Query("SELECT o FROM PurchaseOrder o WHERE o.id = :id")
+    List<PurchaseOrder> searchById(@Param("id") Long id);
+
+    // Ordenado pelo código: o código exato (igual ao prefixo) vem antes dos demais
+    @EntityGraph(attributePaths = "supplier")
+    @Query("SELECT o FROM PurchaseOrder o WHERE o.code LIKE :codePrefix ESCAPE '\\' ORDER BY o.code, o.id DESC")
+    List<PurchaseOrder> searchByCodePrefix(@Param("codePrefix") String codePrefix, Pageable limit);
+
+    @EntityGraph(attributePaths = "supplier")
+    @Query("SELECT o FROM PurchaseOrder o WHERE o.supplier.id IN :supplierIds ORDER BY o.id DESC")
+    List<PurchaseOrder> searchBySuppliers(@Param("supplierIds") Collection<Long> supplierIds, Pageable limit);
+
+    // Total da busca, só quando algum predicado enche o LIMIT (sem ORDER BY, sem carregar linhas)
+    @Query("SELECT COUNT(o) FROM PurchaseOrder o " +
+           "WHERE o.id = :id OR o.code LIKE :codePrefix ESCAPE '\\' OR o.supplier.id IN :supplierIds")
+    long countSearch(@Param("id") Long id,
+                     @Param("codePrefix") String codePrefix,
+                     @Param("supplierIds") Collection<Long> supplierIds);
+
+    // Keyset: páginas seguintes por id decrescente, sem OFFSET nem count(*)
+    @EntityGraph(attributePaths = "supplier")
+    @Query("SELECT o FROM PurchaseOrder o ORDER BY o.id DESC")
+    List<PurchaseOrder> findFirstPage(Pageable pageable);
+
+    @EntityGraph(attributePaths = "supplier")
+    @Query("SELECT o FROM PurchaseOrder o WHERE o.id < :afterId ORDER BY o.id DESC")
+    List<PurchaseOrder> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Por fornecedor / por período: a página e os agregados de todo o filtro (count e soma do total)
+    // saem do mesmo SELECT por funções de janela; ordenação vem do Pageable.
+    // Servidas por idx_purchase_orders_supplier_date e idx_purchase_orders_date_status
+    @Query("SELECT o AS purchaseOrder, COUNT(o) OVER () AS count, SUM(o.totalAmount) OVER () AS amount " +
+           "FROM PurchaseOrder o LEFT JOIN FETCH o.supplier WHERE o.supplier.id = :supplierId")
+    List<PageRow> findPageBySupplier(@Param("supplierId") Long supplierId, Pageable pageable);
+
+    // Período sem e com filtro de status: consultas separadas, cada uma com um plano simples (sem OR)
+    @Query("SELECT o AS purchaseOrder, COUNT(o) OVER () AS count, SUM(o.totalAmount) OVER () AS amount " +
+           "FROM PurchaseOrder o LEFT JOIN FETCH o.supplier WHERE o.orderDate BETWEEN :from AND :to")
+    List<PageRow> findPageByOrderDate(@Param("from") LocalDate from,
+                                      @Param("to") LocalDate to,
+                                      Pageable pageable);
+
+    @Query("SELECT o AS purchaseOrder, COUNT(o) OVER () AS count, SUM(o.totalAmount) OVER () AS amount " +
+           "FROM PurchaseOrder o LEFT JOIN FETCH o.supplier " +
+           "WHERE o.orderDate BETWEEN :from AND :to AND o.status IN :statuses")
+    List<PageRow> findPageByOrderDateAndStatus(@Param("from") LocalDate from,
+                                               @Param("to") LocalDate to,
+                                               @Param("statuses") Collection<PurchaseOrder.Status> statuses,
+                                               Pageable pageable);
+
+    // Só quando a página pedida passa do fim (nenhuma linha para carregar os agregados)
+    @Query("SELECT COUNT(o) AS count, SUM(o.totalAmount) AS amount FROM PurchaseOrder o WHERE o.supplier.id = :supplierId")
+    Totals sumBySupplier(@Param("supplierId") Long supplierId);
+
+    @Query("SELECT COUNT(o) AS count, SUM(o.totalAmount) AS amount FROM PurchaseOrder o " +
+           "WHERE o.orderDate BETWEEN :from AND :to")
+    Totals sumByOrderDate(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COUNT(o) AS count, SUM(o.totalAmount) AS amount FROM PurchaseOrder o " +
+           "WHERE o.orderDate BETWEEN :from AND :to AND o.status IN :statuses")
+    Totals sumByOrderDateAndStatus(@Param("from") LocalDate from,
+                                   @Param("to") LocalDate to,
+                                   @Param("statuses") Collection<PurchaseOrder.Status> statuses);
+
+    // Recebimento: contador de linhas pendentes e transições de status em O(1)
+    @Modifying
+    @Query("UPDATE PurchaseOrder o SET o.outstandingLines = " +
+           "(SELECT COUNT(i) FROM PurchaseOrderItem i WHERE i.purchaseOrder = o " +
+           " AND i.quantity > 0 AND COALESCE(i.receivedQuantity, 0) < i.quantity) " +
+           "WHERE o.id = :id AND o.outstandingLines IS NULL")
+    int initOutstandingLines(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE PurchaseOrder o SET o.outstandingLines = o.outstandingLines + :delta WHERE o.id = :id")
+    int adjustOutstandingLines(@Param("id") Long id, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE PurchaseOrder o SET o.status = :to, o.updatedAt = LOCAL DATETIME WHERE o.id = :id AND o.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") PurchaseOrder.Status from, @Param("to") PurchaseOrder.Status to);
+
+    @Modifying
+    @Query("UPDATE PurchaseOrder o SET o.status = com.example.supply_manager.model.PurchaseOrder.Status.RECEIVED, " +
+           "o.fullyReceived = true, o.deliveryDate = :date, o.updatedAt = LOCAL DATETIME " +
+           "WHERE o.id = :id AND o.outstandingLines = 0")
+    int markReceived(@Param("id") Long id, @Param("date") LocalDate date);
+
+    @Query("SELECT o.status AS status, o.totalAmount AS totalAmount, o.outstandingLines AS outstandingLines " +
+           "FROM PurchaseOrder o WHERE o.id = :id")
+    Optional<ReceivingState> findReceivingState(@Param("id") Long id);
+
+    // GET condicional do detalhe: o corpo inclui fornecedor e produtos (com o fornecedor preferido),
+    // então o validador combina o updated_at de todos eles; um único SELECT agregado, sem carregar nada
+    @Query("SELECT o.id AS id, o.updatedAt AS updatedAt, s.updatedAt AS supplierUpdatedAt, COUNT(i) AS items, " +
+           "MAX(p.updatedAt) AS productsUpdatedAt, MAX(ps.updatedAt) AS preferredSuppliersUpdatedAt " +
+           "FROM PurchaseOrder o LEFT JOIN o.supplier s LEFT JOIN o.items i LEFT JOIN i.product p " +
+           "LEFT JOIN p.preferredSupplier ps WHERE o.id = :id GROUP BY o.id, o.updatedAt, s.updatedAt")
+    Optional<VersionRow> findVersionById(@Param("id") Long id);
+
+    // Exportação: cursor somente leitura, linhas escalares (nada entra no contexto de persistência)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT o.id AS orderId, o.code AS code, s.id AS supplierId, o.orderDate AS orderDate, " +
+           "o.expectedDate AS expectedDate, o.deliveryDate AS deliveryDate, o.status AS status, " +
+           "o.totalAmount AS totalAmount, i.id AS itemId, p.id AS productId, p.sku AS sku, " +
+           "i.quantity AS quantity, i.unitPrice AS unitPrice, i.receivedQuantity AS receivedQuantity " +
+           "FROM PurchaseOrder o LEFT JOIN o.supplier s LEFT JOIN o.items i LEFT JOIN i.product p " +
+           "WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:supplierId IS NULL OR s.id = :supplierId) " +
+           "AND (CAST(:from AS LocalDate) IS NULL OR o.orderDate >= :from) " +
+           "AND (CAST(:to AS LocalDate) IS NULL OR o.orderDate <= :to) " +
+           "ORDER BY o.id, i.id")
+    Stream<ExportRow> streamExportRows(@Param("status") PurchaseOrder.Status status,
+                                       @Param("supplierId") Long supplierId,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to);
+
+    interface ExportRow {
+        Long getOrderId();
+        String getCode();
+        Long getSupplierId();
+        LocalDate getOrderDate();
+        LocalDate getExpectedDate();
+        LocalDate getDeliveryDate();
+        PurchaseOrder.Status getStatus();
+        Double getTotalAmount();
+        Long getItemId();
+        Long getProductId();
+        String getSku();
+        Double getQuantity();
+        Double getUnitPrice();
+        Double getReceivedQuantity();
+    }
+
+    interface VersionRow {
+        Long getId();
+        LocalDateTime getUpdatedAt();
+        LocalDateTime getSupplierUpdatedAt();
+        long getItems();
+        LocalDateTime getProductsUpdatedAt();
+        LocalDateTime getPreferredSuppliersUpdatedAt();
+    }
+
+    interface PageRow {
+        PurchaseOrder getPurchaseOrder();
+        long getCount();
+        Double getAmount();
+    }
+
+    interface Totals {
+        long getCount();
+        Double getAmount();
+    }
+
+    interface ReceivingState {
+        PurchaseOrder.Status getStatus();
+        Double getTotalAmount();
+        Integer getOutstandingLines();
+    }
+
+    interface StatusTotals {
+        PurchaseOrder.Status getStatus();
+        long getCount();
+        Double getAmount();
+    }
 }
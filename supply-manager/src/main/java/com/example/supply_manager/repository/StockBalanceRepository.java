@@ -0,0 +1,78 @@
+package com.example.supply_manager.repository;
+
+import com.example.supply_manager.model.StockBalance;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockBalanceRepository extends JpaRepository<StockBalance, StockBalance.Key> {
+
+    // Saldo ajustado no banco junto com cada movimento, sem somar o razão
+    @Modifying
+    @Query("UPDATE StockBalance b SET b.quantity = b.quantity + :delta, b.updatedAt = :now " +
+           "WHERE b.productId = :productId AND b.locationId = :locationId")
+    int increment(@Param("productId") Long productId, @Param("locationId") Long locationId,
+                  @Param("delta") double delta, @Param("now") LocalDateTime now);
+
+    // Saída só acontece se houver saldo: a condição e a baixa são o mesmo UPDATE
+    @Modifying
+    @Query("UPDATE StockBalance b SET b.quantity = b.quantity - :quantity, b.updatedAt = :now " +
+           "WHERE b.productId = :productId AND b.locationId = :locationId AND b.quantity >= :quantity")
+    int decrementIfAvailable(@Param("productId") Long productId, @Param("locationId") Long locationId,
+                             @Param("quantity") double quantity, @Param("now") LocalDateTime now);
+
+    // Primeira movimentação do par: cria o saldo zerado sem abortar se outra transação já criou
+    // (ON CONFLICT DO NOTHING espera a outra inserção terminar e segue na mesma transação)
+    @Modifying
+    @Query(value = "INSERT INTO stock_balances (product_id, location_id, quantity, updated_at) " +
+                   "VALUES (:productId, :locationId, 0, :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("productId") Long productId, @Param("locationId") Long locationId,
+                       @Param("now") LocalDateTime now);
+
+    List<StockBalance> findByProductId(Long productId);
+
+    @Query(value = "SELECT b.productId AS productId, p.sku AS sku, p.name AS productName, " +
+                   "NULLIF(b.locationId, 0) AS locationId, l.code AS locationCode, " +
+                   "b.quantity AS quantity, b.updatedAt AS updatedAt " +
+                   "FROM StockBalance b JOIN Product p ON p.id = b.productId " +
+                   "LEFT JOIN WarehouseLocation l ON l.id = b.locationId " +
+                   "WHERE (:productId IS NULL OR b.productId = :productId) " +
+                   "ORDER BY p.name, b.productId, b.locationId",
+           countQuery = "SELECT COUNT(b) FROM StockBalance b WHERE (:productId IS NULL OR b.productId = :productId)")
+    Page<BalanceView> findBalances(@Param("productId") Long productId, Pageable pageable);
+
+    @Query("SELECT b.productId AS productId, b.locationId AS locationId, b.quantity AS quantity FROM StockBalance b")
+    List<BalanceQuantity> findAllQuantities();
+
+    // Saldo total por produto numa faixa de ids (planejador de reposição)
+    @Query("SELECT b.productId AS productId, SUM(b.quantity) AS quantity FROM StockBalance b " +
+           "WHERE b.productId BETWEEN :fromId AND :toId GROUP BY b.productId")
+    List<ProductQuantity> sumOnHand(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    interface ProductQuantity {
+        Long getProductId();
+        Double getQuantity();
+    }
+
+    interface BalanceQuantity {
+        Long getProductId();
+        Long getLocationId();
+        double getQuantity();
+    }
+
+    interface BalanceView {
+        Long getProductId();
+        String getSku();
+        String getProductName();
+        Long getLocationId();
+        String getLocationCode();
+        double getQuantity();
+        LocalDateTime getUpdatedAt();
+    }
+}
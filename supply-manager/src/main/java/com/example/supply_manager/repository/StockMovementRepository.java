@@ -1,7 +1,88 @@
 package com.example.supply_manager.repository;
 
 import com.example.supply_manager.model.StockMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    @Query(value = "SELECT m.id AS id, m.product.id AS productId, m.location.id AS locationId, m.type AS type, " +
+                   "m.quantity AS quantity, m.movementDate AS movementDate, m.reference AS reference " +
+                   "FROM StockMovement m WHERE (:productId IS NULL OR m.product.id = :productId) ORDER BY m.id DESC",
+           countQuery = "SELECT COUNT(m) FROM StockMovement m WHERE (:productId IS NULL OR m.product.id = :productId)")
+    Page<MovementView> findMovements(@Param("productId") Long productId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE StockMovement m SET m.balanceApplied = true WHERE m.id IN :ids")
+    int markBalanceApplied(@Param("ids") Collection<Long> ids);
+
+    // Movimentos gravados mas ainda fora do saldo (queda entre o commit e a gravação adiada)
+    @Query("SELECT m.product.id AS productId, m.location.id AS locationId, " +
+           "SUM(CASE WHEN m.type = com.example.supply_manager.model.StockMovement.MovementType.IN " +
+           "THEN m.quantity ELSE -m.quantity END) AS delta " +
+           "FROM StockMovement m WHERE m.balanceApplied = false GROUP BY m.product.id, m.location.id")
+    List<PendingDelta> sumUnapplied();
+
+    @Modifying
+    @Query("UPDATE StockMovement m SET m.balanceApplied = true WHERE m.balanceApplied = false")
+    int markAllApplied();
+
+    // Movimentos no intervalo (from, to], somados por (produto, local): reposição após um snapshot
+    @Query("SELECT m.product.id AS productId, m.location.id AS locationId, " +
+           "SUM(CASE WHEN m.type = com.example.supply_manager.model.StockMovement.MovementType.IN " +
+           "THEN m.quantity ELSE -m.quantity END) AS delta " +
+           "FROM StockMovement m " +
+           "WHERE (CAST(:from AS LocalDateTime) IS NULL OR m.movementDate > :from) AND m.movementDate <= :to " +
+           "AND (:productId IS NULL OR m.product.id = :productId) " +
+           "GROUP BY m.product.id, m.location.id")
+    List<PendingDelta> sumBetween(@Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  @Param("productId") Long productId);
+
+    // Compactação: lote de movimentos antigos, já refletidos no saldo
+    @Query("SELECT m.id FROM StockMovement m WHERE m.movementDate < :before " +
+           "AND (m.balanceApplied IS NULL OR m.balanceApplied = true) ORDER BY m.id")
+    List<Long> findArchivableIds(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM StockMovement m WHERE m.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Reavaliação: movimentos de uma faixa de produtos (entradas antigas, sem custo, usam o preço da linha)
+    @Query("SELECT m.id AS id, m.product.id AS productId, m.type AS type, m.quantity AS quantity, " +
+           "COALESCE(m.unitCost, i.unitPrice) AS unitCost " +
+           "FROM StockMovement m LEFT JOIN m.purchaseOrderItem i WHERE m.product.id BETWEEN :fromId AND :toId")
+    List<CostedMovement> findCostedBetween(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    interface CostedMovement {
+        Long getId();
+        Long getProductId();
+        StockMovement.MovementType getType();
+        Double getQuantity();
+        Double getUnitCost();
+    }
+
+    interface PendingDelta {
+        Long getProductId();
+        Long getLocationId();
+        double getDelta();
+    }
+
+    interface MovementView {
+        Long getId();
+        Long getProductId();
+        Long getLocationId();
+        StockMovement.MovementType getType();
+        Double getQuantity();
+        LocalDateTime getMovementDate();
+        String getReference();
+    }
 }
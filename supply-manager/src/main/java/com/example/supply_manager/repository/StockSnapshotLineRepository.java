@@ -0,0 +1,16 @@
+package com.example.supply_manager.repository;
+
+import com.example.supply_manager.model.StockSnapshotLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StockSnapshotLineRepository extends JpaRepository<StockSnapshotLine, StockSnapshotLine.Key> {
+
+    @Query("SELECT l.productId AS productId, l.locationId AS locationId, l.quantity AS quantity " +
+           "FROM StockSnapshotLine l WHERE l.snapshotId = :snapshotId AND (:productId IS NULL OR l.productId = :productId)")
+    List<StockBalanceRepository.BalanceQuantity> findQuantities(@Param("snapshotId") Long snapshotId,
+                                                                @Param("productId") Long productId);
+}
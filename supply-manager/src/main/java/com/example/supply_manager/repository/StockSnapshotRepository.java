@@ -0,0 +1,15 @@
+package com.example.supply_manager.repository;
+
+import com.example.supply_manager.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    // Snapshot mais próximo antes da data consultada
+    Optional<StockSnapshot> findFirstByCutoffLessThanEqualOrderByCutoffDesc(LocalDateTime at);
+
+    Optional<StockSnapshot> findFirstByOrderByCutoffDesc();
+}
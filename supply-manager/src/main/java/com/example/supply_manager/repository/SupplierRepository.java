@@ -1,9 +1,31 @@
 package com.example.supply_manager.repository;
 
 import com.example.supply_manager.model.Supplier;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     List<Supplier> findByNameContainingIgnoreCase(String name);
+
+    // Ids dos fornecedores cujo nome contém o termo (tabela pequena; limitado pelo Pageable)
+    @Query("SELECT s.id FROM Supplier s WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :query, '%'))")
+    List<Long> findIdsByNameContaining(@Param("query") String query, Pageable pageable);
+
+    // Apenas os ids, ordenados (cache de validação das importações em lote)
+    @Query("SELECT s.id FROM Supplier s ORDER BY s.id")
+    List<Long> findAllIds();
+
+    // Carga do typeahead: só as colunas indexadas
+    @Query("SELECT s.id AS id, s.name AS name, s.cnpj AS cnpj FROM Supplier s")
+    List<TypeaheadRow> findTypeaheadRows();
+
+    interface TypeaheadRow {
+        Long getId();
+        String getName();
+        String getCnpj();
+    }
 }
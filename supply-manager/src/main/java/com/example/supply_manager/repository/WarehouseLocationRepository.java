@@ -0,0 +1,35 @@
+package com.example.supply_manager.repository;
+
+import com.example.supply_manager.model.WarehouseLocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface WarehouseLocationRepository extends JpaRepository<WarehouseLocation, Long> {
+
+    // Reserva condicional: a verificação de espaço e a reserva são o mesmo UPDATE
+    @Modifying
+    @Query("UPDATE WarehouseLocation l SET l.usedVolume = l.usedVolume + :volume " +
+           "WHERE l.id = :id AND l.usedVolume + :volume <= l.capacityVolume")
+    int reserveSpace(@Param("id") Long id, @Param("volume") double volume);
+
+    @Modifying
+    @Query("UPDATE WarehouseLocation l SET l.usedVolume = CASE WHEN l.usedVolume > :volume " +
+           "THEN l.usedVolume - :volume ELSE 0 END WHERE l.id = :id")
+    int releaseSpace(@Param("id") Long id, @Param("volume") double volume);
+
+    @Query("SELECT l.id AS id, l.capacityVolume - l.usedVolume AS free FROM WarehouseLocation l")
+    List<FreeVolume> findAllFreeVolumes();
+
+    @Query("SELECT l.id AS id, l.capacityVolume - l.usedVolume AS free FROM WarehouseLocation l WHERE l.id = :id")
+    Optional<FreeVolume> findFreeVolume(@Param("id") Long id);
+
+    interface FreeVolume {
+        Long getId();
+        double getFree();
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.DashboardAggregate;
+import com.example.supply_manager.model.ProductValuation;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.repository.DashboardAggregateRepository;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.ProductValuationRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the dashboard counters up to date as orders, products and suppliers change,
+ * so reading the dashboard never scans the underlying tables.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardAggregateService {
+
+    public static final String PRODUCTS = "products";
+    public static final String ACTIVE_PRODUCTS = "products:active";
+    public static final String SUPPLIERS = "suppliers";
+    private static final String ORDERS_PREFIX = "orders:";
+    private static final String STOCK_VALUE_PREFIX = "stock:value:";
+
+    private final DashboardAggregateRepository aggregateRepository;
+    private final PurchaseOrderRepository purchaseOrderRepository;
+    private final ProductRepository productRepository;
+    private final SupplierRepository supplierRepository;
+    private final ProductValuationRepository valuationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Publicado a cada alteração; ouvintes recebem após o commit
+    public record AggregatesChanged() {}
+
+    public static String orderKey(PurchaseOrder.Status status) {
+        return ORDERS_PREFIX + status.name();
+    }
+
+    public static String stockValueKey(Long productId) {
+        return STOCK_VALUE_PREFIX + Math.floorMod(productId, ProductValuation.VALUE_STRIPES);
+    }
+
+    @Transactional
+    public void orderCreated(PurchaseOrder.Status status, Double total) {
+        applyOrderDelta(status, 1, amount(total));
+    }
+
+    // Variante em lote (importações): um único incremento por status
+    @Transactional
+    public void ordersCreated(PurchaseOrder.Status status, long count, double total) {
+        applyOrderDelta(status, count, total);
+    }
+
+    @Transactional
+    public void orderChanged(PurchaseOrder.Status oldStatus, Double oldTotal,
+                             PurchaseOrder.Status newStatus, Double newTotal) {
+        if (oldStatus == newStatus) {
+            double diff = amount(newTotal) - amount(oldTotal);
+            if (diff != 0.0) {
+                applyOrderDelta(newStatus, 0, diff);
+            }
+            return;
+        }
+        applyOrderDelta(oldStatus, -1, -amount(oldTotal));
+        applyOrderDelta(newStatus, 1, amount(newTotal));
+    }
+
+    @Transactional
+    public void orderDeleted(PurchaseOrder.Status status, Double total) {
+        applyOrderDelta(status, -1, -amount(total));
+    }
+
+    @Transactional
+    public void productCreated(boolean active) {
+        increment(PRODUCTS, 1, 0.0);
+        if (active) {
+            increment(ACTIVE_PRODUCTS, 1, 0.0);
+        }
+    }
+
+    @Transactional
+    public void productChanged(boolean wasActive, boolean isActive) {
+        if (wasActive != isActive) {
+            increment(ACTIVE_PRODUCTS, isActive ? 1 : -1, 0.0);
+        }
+    }
+
+    // Importação em lote: um incremento por chunk em vez de um por produto
+    @Transactional
+    public void productsImported(long created, long createdActive, long activeDelta) {
+        if (created != 0) {
+            increment(PRODUCTS, created, 0.0);
+        }
+        if (createdActive + activeDelta != 0) {
+            increment(ACTIVE_PRODUCTS, createdActive + activeDelta, 0.0);
+        }
+    }
+
+    @Transactional
+    public void supplierCreated() {
+        increment(SUPPLIERS, 1, 0.0);
+    }
+
+    // Deve ser chamado antes do delete: os pedidos do fornecedor são removidos em cascata
+    @Transactional
+    public void supplierDeleted(Long supplierId) {
+        for (PurchaseOrderRepository.StatusTotals totals : purchaseOrderRepository.sumByStatusForSupplier(supplierId)) {
+            applyOrderDelta(totals.getStatus(), -totals.getCount(), -amount(totals.getAmount()));
+        }
+        increment(SUPPLIERS, -1, 0.0);
+    }
+
+    // Variação do valor do estoque ao custo médio (entradas, saídas e reavaliação), na faixa do produto:
+    // uma única linha global seria bloqueada por toda movimentação até o commit
+    @Transactional
+    public void stockValueChanged(Long productId, double delta) {
+        if (delta != 0.0) {
+            increment(stockValueKey(productId), 0, delta);
+        }
+    }
+
+    // Valor total do estoque: soma das VALUE_STRIPES linhas, independente do número de produtos
+    public double stockValue() {
+        double total = 0.0;
+        for (DashboardAggregate stripe : aggregateRepository.findAllById(stockValueKeys())) {
+            total += stripe.getAmount();
+        }
+        return total;
+    }
+
+    // Métricas expostas em /api/dashboard, derivadas apenas dos agregados
+    public Map<String, Object> metrics() {
+        Map<String, DashboardAggregate> aggregates = snapshot();
+        Map<String, Object> metrics = new HashMap<>();
+
+        // Contar fornecedores
+        metrics.put("fornecedores", count(aggregates, SUPPLIERS));
+
+        // Contar produtos
+        metrics.put("produtos", count(aggregates, PRODUCTS));
+
+        // Compras pendentes (DRAFT ou ISSUED)
+        metrics.put("comprasPendentes",
+                count(aggregates, orderKey(PurchaseOrder.Status.DRAFT)) +
+                count(aggregates, orderKey(PurchaseOrder.Status.ISSUED)));
+
+        // 🔹 Estoque total: quantidade de produtos ativos
+        metrics.put("estoqueTotal", (int) count(aggregates, ACTIVE_PRODUCTS));
+
+        // 🔹 Valor em entregas futuras = SOMENTE DRAFT + ISSUED
+        double valorEntregasFuturas = amount(aggregates, orderKey(PurchaseOrder.Status.DRAFT)) +
+                amount(aggregates, orderKey(PurchaseOrder.Status.ISSUED));
+        metrics.put("valorEntregasFuturas", valorEntregasFuturas);
+
+        // 🔹 Valor total em estoque = saldo atual ao custo médio ponderado (faixas mantidas incrementalmente)
+        double valorEstoque = 0.0;
+        for (String key : stockValueKeys()) {
+            valorEstoque += amount(aggregates, key);
+        }
+        metrics.put("valorEstoque", valorEstoque);
+        return metrics;
+    }
+
+    // Contagem mantida de uma métrica (usada como total barato nas listagens por cursor)
+    public long count(String key) {
+        return aggregateRepository.findById(key).map(DashboardAggregate::getCount).orElse(0L);
+    }
+
+    public long totalOrders() {
+        Map<String, DashboardAggregate> aggregates = snapshot();
+        long total = 0;
+        for (PurchaseOrder.Status status : PurchaseOrder.Status.values()) {
+            total += count(aggregates, orderKey(status));
+        }
+        return total;
+    }
+
+    public Map<String, DashboardAggregate> snapshot() {
+        Map<String, DashboardAggregate> result = new HashMap<>();
+        for (DashboardAggregate aggregate : aggregateRepository.findAll()) {
+            result.put(aggregate.getKey(), aggregate);
+        }
+        return result;
+    }
+
+    /**
+     * Recomputes every aggregate from the source tables, overwrites the stored values
+     * and returns the keys whose stored value had drifted (expected vs. stored). The stored
+     * rows are locked before the scans, so an increment from a concurrent write either
+     * commits before the scan (and is counted by it) or waits and lands on the rebuilt value.
+     */
+    @Transactional
+    public Map<String, Map<String, Object>> rebuild() {
+        Map<String, DashboardAggregate> stored = new HashMap<>();
+        for (DashboardAggregate aggregate : aggregateRepository.findAllForUpdate()) {
+            stored.put(aggregate.getKey(), aggregate);
+        }
+
+        Map<String, DashboardAggregate> expected = new LinkedHashMap<>();
+        for (PurchaseOrder.Status status : PurchaseOrder.Status.values()) {
+            expected.put(orderKey(status), new DashboardAggregate(orderKey(status), 0, 0.0));
+        }
+        for (PurchaseOrderRepository.StatusTotals totals : purchaseOrderRepository.sumByStatus()) {
+            if (totals.getStatus() != null) {
+                expected.put(orderKey(totals.getStatus()),
+                        new DashboardAggregate(orderKey(totals.getStatus()), totals.getCount(), amount(totals.getAmount())));
+            }
+        }
+        expected.put(PRODUCTS, new DashboardAggregate(PRODUCTS, productRepository.count(), 0.0));
+        expected.put(ACTIVE_PRODUCTS, new DashboardAggregate(ACTIVE_PRODUCTS, productRepository.countByActiveTrue(), 0.0));
+        expected.put(SUPPLIERS, new DashboardAggregate(SUPPLIERS, supplierRepository.count(), 0.0));
+        for (String key : stockValueKeys()) {
+            expected.put(key, new DashboardAggregate(key, 0, 0.0));
+        }
+        for (ProductValuationRepository.StripeValue stripe : valuationRepository.sumValueByStripe()) {
+            String key = STOCK_VALUE_PREFIX + stripe.getStripe().intValue();
+            expected.put(key, new DashboardAggregate(key, 0, stripe.getValue()));
+        }
+
+        Map<String, Map<String, Object>> drift = new LinkedHashMap<>();
+        for (DashboardAggregate fresh : expected.values()) {
+            DashboardAggregate current = stored.get(fresh.getKey());
+            if (current == null || current.getCount() != fresh.getCount()
+                    || Math.abs(current.getAmount() - fresh.getAmount()) > 0.005) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("expectedCount", fresh.getCount());
+                entry.put("storedCount", current != null ? current.getCount() : null);
+                entry.put("expectedAmount", fresh.getAmount());
+                entry.put("storedAmount", current != null ? current.getAmount() : null);
+                drift.put(fresh.getKey(), entry);
+            }
+        }
+
+        for (DashboardAggregate fresh : expected.values()) {
+            DashboardAggregate current = stored.get(fresh.getKey());
+            if (current == null) {
+                aggregateRepository.save(fresh);
+            } else {
+                // Linha bloqueada e gerenciada: o flush grava o valor recalculado
+                current.setCount(fresh.getCount());
+                current.setAmount(fresh.getAmount());
+            }
+        }
+        if (!drift.isEmpty()) {
+            eventPublisher.publishEvent(new AggregatesChanged());
+        }
+        if (!drift.isEmpty() && !stored.isEmpty()) {
+            log.warn("Dashboard aggregates drifted and were rebuilt: {}", drift);
+        }
+        return drift;
+    }
+
+    @Transactional
+    @Scheduled(cron = "${dashboard.reconcile.cron:0 0 3 * * *}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (aggregateRepository.count() == 0
+                || aggregateRepository.findAllById(stockValueKeys()).size() < ProductValuation.VALUE_STRIPES) {
+            rebuild();
+        }
+    }
+
+    private void applyOrderDelta(PurchaseOrder.Status status, long count, double amount) {
+        if (status != null) {
+            increment(orderKey(status), count, amount);
+        }
+    }
+
+    private void increment(String key, long count, double amount) {
+        if (aggregateRepository.increment(key, count, amount) == 0) {
+            // Linha ainda não existe (base nova): cria zerada e aplica o delta com o mesmo UPDATE atômico;
+            // duas primeiras escritas simultâneas não abortam a transação de negócio por chave duplicada
+            aggregateRepository.insertIfAbsent(key);
+            aggregateRepository.increment(key, count, amount);
+        }
+        eventPublisher.publishEvent(new AggregatesChanged());
+    }
+
+    private static List<String> stockValueKeys() {
+        List<String> keys = new ArrayList<>(ProductValuation.VALUE_STRIPES);
+        for (int stripe = 0; stripe < ProductValuation.VALUE_STRIPES; stripe++) {
+            keys.add(STOCK_VALUE_PREFIX + stripe);
+        }
+        return keys;
+    }
+
+    private static long count(Map<String, DashboardAggregate> aggregates, String key) {
+        DashboardAggregate aggregate = aggregates.get(key);
+        return aggregate != null ? aggregate.getCount() : 0L;
+    }
+
+    private static double amount(Map<String, DashboardAggregate> aggregates, String key) {
+        DashboardAggregate aggregate = aggregates.get(key);
+        return aggregate != null ? aggregate.getAmount() : 0.0;
+    }
+
+    private static double amount(Double value) {
+        return Objects.requireNonNullElse(value, 0.0);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.supply_manager.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes dashboard metric deltas to SSE subscribers. Changes are only flagged as they
+ * commit; a single scheduled flush per window reads the aggregates once and fans the
+ * delta out, so a burst of writes turns into at most one message per window.
+ * Emitters are async servlet responses, so idle subscribers hold no thread.
+ */
+@Slf4j
+@Service
+public class DashboardStreamService {
+
+    private final DashboardAggregateService aggregateService;
+    private final long emitterTimeoutMs;
+
+    private final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile Map<String, Object> lastSent = Map.of();
+
+    public DashboardStreamService(DashboardAggregateService aggregateService,
+                                  @Value("${dashboard.stream.timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.aggregateService = aggregateService;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        // Primeiro evento: estado completo; depois somente deltas
+        Map<String, Object> current = aggregateService.metrics();
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(current));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAggregatesChanged(DashboardAggregateService.AggregatesChanged event) {
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.stream.window-ms:500}")
+    public void flush() {
+        if (!dirty.getAndSet(false) || emitters.isEmpty()) {
+            return;
+        }
+        Map<String, Object> current = aggregateService.metrics();
+        Map<String, Object> delta = new HashMap<>();
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            if (!Objects.equals(lastSent.get(entry.getKey()), entry.getValue())) {
+                delta.put(entry.getKey(), entry.getValue());
+            }
+        }
+        lastSent = current;
+        if (!delta.isEmpty()) {
+            broadcast(SseEmitter.event().name("delta").data(delta));
+        }
+    }
+
+    // Mantém proxies/load balancers com a conexão aberta e descarta clientes que caíram
+    @Scheduled(fixedRateString = "${dashboard.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (!emitters.isEmpty()) {
+            broadcast(SseEmitter.event().comment("ping"));
+        }
+    }
+
+    public int subscriberCount() {
+        return emitters.size();
+    }
+
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                log.debug("Dropping dashboard subscriber: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.ProductValuation;
+import com.example.supply_manager.model.StockMovement;
+import com.example.supply_manager.repository.ArchivedStockMovementRepository;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.ProductValuationRepository;
+import com.example.supply_manager.repository.StockMovementRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Moving weighted-average inventory valuation. Receipts add quantity × unit cost and issues remove
+ * quantity × current average cost from the product's product_valuations row, in the ledger's
+ * transaction, and the same delta goes to the product's stripe of the stock value dashboard
+ * aggregate, so the total is a read of a fixed number of rows and movements of different products
+ * rarely wait on the same aggregate row. A batch revaluation replays the ledger (including
+ * archived movements) per product range and reports, or corrects, any drift.
+ */
+@Slf4j
+@Service
+public class InventoryValuationService {
+
+    private static final double VALUE_TOLERANCE = 0.005;
+    private static final double QUANTITY_TOLERANCE = 1e-6;
+    private static final int MAX_REPORTED = 100;
+
+    private static final Comparator<StockMovementRepository.CostedMovement> REPLAY_ORDER =
+            Comparator.comparing(StockMovementRepository.CostedMovement::getProductId)
+                    .thenComparing(StockMovementRepository.CostedMovement::getId);
+
+    public record Drift(Long productId, double storedQuantity, double expectedQuantity,
+                        double storedValue, double expectedValue) {}
+
+    public record RevaluationReport(long productsChecked, long productsDrifted, double valueDrift,
+                                    boolean applied, List<Drift> drifts, long elapsedMs) {}
+
+    private final ProductValuationRepository valuationRepository;
+    private final StockMovementRepository movementRepository;
+    private final ArchivedStockMovementRepository archiveRepository;
+    private final ProductRepository productRepository;
+    private final DashboardAggregateService dashboardAggregates;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int chunkSize;
+
+    public InventoryValuationService(ProductValuationRepository valuationRepository,
+                                     StockMovementRepository movementRepository,
+                                     ArchivedStockMovementRepository archiveRepository,
+                                     ProductRepository productRepository,
+                                     DashboardAggregateService dashboardAggregates,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${stock.valuation.revalue-chunk:1000}") int chunkSize) {
+        this.valuationRepository = valuationRepository;
+        this.movementRepository = movementRepository;
+        this.archiveRepository = archiveRepository;
+        this.productRepository = productRepository;
+        this.dashboardAggregates = dashboardAggregates;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Adds a receipt. Without a unit cost (inventory adjustment) the quantity enters at the current
+     * average cost, which leaves the average unchanged.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void receive(Long productId, double quantity, Double unitCost) {
+        LocalDateTime now = LocalDateTime.now();
+        if (unitCost == null) {
+            ProductValuationRepository.ValuationState current = lockRow(productId, now);
+            apply(productId, quantity, quantity * current.averageCost(), now);
+            return;
+        }
+        if (valuationRepository.apply(productId, quantity, quantity * unitCost, now) == 0) {
+            valuationRepository.insertIfAbsent(productId, now);
+            valuationRepository.apply(productId, quantity, quantity * unitCost, now);
+        }
+        dashboardAggregates.stockValueChanged(productId, quantity * unitCost);
+    }
+
+    /**
+     * Removes an issue at the current average cost and returns that unit cost. Issuing the whole
+     * quantity (or more) zeroes the value, so rounding never leaves value without stock.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public double issue(Long productId, double quantity) {
+        LocalDateTime now = LocalDateTime.now();
+        ProductValuationRepository.ValuationState current = lockRow(productId, now);
+        double unitCost = current.averageCost();
+        double value = current.getQuantity() > quantity
+                ? current.getTotalValue() * quantity / current.getQuantity()
+                : current.getTotalValue();
+        apply(productId, -quantity, -value, now);
+        return unitCost;
+    }
+
+    public Optional<ProductValuation> valuationOf(Long productId) {
+        return valuationRepository.findById(productId);
+    }
+
+    public double totalValue() {
+        return dashboardAggregates.stockValue();
+    }
+
+    @Scheduled(cron = "${stock.valuation.revalue-cron:0 15 3 * * *}")
+    public void scheduledRevaluation() {
+        RevaluationReport report = revalue(true);
+        if (report.productsDrifted() > 0) {
+            log.warn("Inventory valuation drifted for {} products ({}), corrected: {}",
+                    report.productsDrifted(), report.valueDrift(), report.drifts());
+        }
+    }
+
+    // Base existente: a primeira subida calcula as avaliações a partir do razão
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (valuationRepository.count() == 0 && (movementRepository.count() > 0 || archiveRepository.count() > 0)) {
+            revalue(true);
+        }
+    }
+
+    /**
+     * Replays every product's movements in id order and compares the result with the stored
+     * valuation, one product-id range per transaction. With {@code apply} the range's rows are
+     * locked first (concurrent receipts wait and then add on top of the recomputed value) and
+     * drifted rows are overwritten; otherwise this is a read-only check.
+     */
+    public RevaluationReport revalue(boolean apply) {
+        long start = System.currentTimeMillis();
+        ProductRepository.IdRange range = readOnlyTransaction.execute(tx -> productRepository.findIdRange());
+        long checked = 0;
+        long drifted = 0;
+        double valueDrift = 0.0;
+        List<Drift> drifts = new ArrayList<>();
+        if (range != null && range.getMinId() != null) {
+            for (long from = range.getMinId(); from <= range.getMaxId(); from += chunkSize) {
+                long fromId = from;
+                long toId = Math.min(from + chunkSize - 1, range.getMaxId());
+                TransactionTemplate template = apply ? transactionTemplate : readOnlyTransaction;
+                List<Drift> chunk = template.execute(tx -> revalueRange(fromId, toId, apply));
+                for (Drift drift : chunk) {
+                    checked++;
+                    if (isDrift(drift)) {
+                        drifted++;
+                        valueDrift += drift.expectedValue() - drift.storedValue();
+                        if (drifts.size() < MAX_REPORTED) {
+                            drifts.add(drift);
+                        }
+                    }
+                }
+            }
+        }
+        return new RevaluationReport(checked, drifted, valueDrift, apply, drifts, System.currentTimeMillis() - start);
+    }
+
+    private List<Drift> revalueRange(long fromId, long toId, boolean apply) {
+        Map<Long, ProductValuation> stored = new HashMap<>();
+        List<ProductValuation> rows = apply
+                ? valuationRepository.findForUpdateBetween(fromId, toId)
+                : valuationRepository.findBetween(fromId, toId);
+        rows.forEach(row -> stored.put(row.getProductId(), row));
+
+        List<StockMovementRepository.CostedMovement> movements = new ArrayList<>(archiveRepository.findCostedBetween(fromId, toId));
+        movements.addAll(movementRepository.findCostedBetween(fromId, toId));
+        movements.sort(REPLAY_ORDER);
+
+        Map<Long, double[]> expected = new TreeMap<>();
+        for (StockMovementRepository.CostedMovement movement : movements) {
+            replay(expected.computeIfAbsent(movement.getProductId(), id -> new double[2]), movement);
+        }
+        stored.keySet().forEach(productId -> expected.computeIfAbsent(productId, id -> new double[2]));
+
+        List<Drift> result = new ArrayList<>(expected.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, double[]> entry : expected.entrySet()) {
+            ProductValuation row = stored.get(entry.getKey());
+            double quantity = entry.getValue()[0];
+            double value = entry.getValue()[1];
+            Drift drift = new Drift(entry.getKey(),
+                    row != null ? row.getQuantity() : 0.0, quantity,
+                    row != null ? row.getTotalValue() : 0.0, value);
+            result.add(drift);
+            if (apply && (row == null || isDrift(drift))) {
+                if (row == null) {
+                    valuationRepository.insertIfAbsent(entry.getKey(), now);
+                    row = valuationRepository.findForUpdate(entry.getKey()).orElseThrow();
+                }
+                dashboardAggregates.stockValueChanged(entry.getKey(), value - row.getTotalValue());
+                row.setQuantity(quantity);
+                row.setTotalValue(value);
+                row.setUpdatedAt(now);
+            }
+        }
+        return result;
+    }
+
+    // Mesma regra das operações incrementais: entrada ao custo informado (ou ao médio), saída ao médio
+    private static void replay(double[] state, StockMovementRepository.CostedMovement movement) {
+        double quantity = movement.getQuantity() != null ? movement.getQuantity() : 0.0;
+        double average = state[0] > 0 ? state[1] / state[0] : 0.0;
+        if (movement.getType() == StockMovement.MovementType.IN) {
+            double cost = movement.getUnitCost() != null ? movement.getUnitCost() : average;
+            state[0] += quantity;
+            state[1] += quantity * cost;
+        } else {
+            state[1] = state[0] > quantity ? state[1] - state[1] * quantity / state[0] : 0.0;
+            state[0] -= quantity;
+        }
+    }
+
+    private ProductValuationRepository.ValuationState lockRow(Long productId, LocalDateTime now) {
+        Optional<ProductValuationRepository.ValuationState> row = valuationRepository.findStateForUpdate(productId);
+        if (row.isPresent()) {
+            return row.get();
+        }
+        valuationRepository.insertIfAbsent(productId, now);
+        return valuationRepository.findStateForUpdate(productId).orElseThrow();
+    }
+
+    private void apply(Long productId, double quantity, double value, LocalDateTime now) {
+        valuationRepository.apply(productId, quantity, value, now);
+        dashboardAggregates.stockValueChanged(productId, value);
+    }
+
+    private static boolean isDrift(Drift drift) {
+        return Math.abs(drift.expectedQuantity() - drift.storedQuantity()) > QUANTITY_TOLERANCE
+                || Math.abs(drift.expectedValue() - drift.storedValue()) > VALUE_TOLERANCE;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.supply_manager.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Warehouse locations ordered by free volume. Best-fit lookup (the location with the least free
+ * volume that still fits) and every update are O(log n).
+ */
+public class LocationIndex {
+
+    private record Slot(double free, long locationId) {}
+
+    private static final Comparator<Slot> BY_FREE_VOLUME =
+            Comparator.comparingDouble(Slot::free).thenComparingLong(Slot::locationId);
+
+    private final TreeSet<Slot> slots = new TreeSet<>(BY_FREE_VOLUME);
+    private final Map<Long, Double> freeByLocation = new HashMap<>();
+
+    public synchronized void put(long locationId, double free) {
+        Double previous = freeByLocation.put(locationId, free);
+        if (previous != null) {
+            slots.remove(new Slot(previous, locationId));
+        }
+        slots.add(new Slot(free, locationId));
+    }
+
+    public synchronized void remove(long locationId) {
+        Double previous = freeByLocation.remove(locationId);
+        if (previous != null) {
+            slots.remove(new Slot(previous, locationId));
+        }
+    }
+
+    public synchronized void adjust(long locationId, double delta) {
+        Double previous = freeByLocation.get(locationId);
+        if (previous != null) {
+            put(locationId, previous + delta);
+        }
+    }
+
+    /**
+     * Picks the best-fit location for the volume and takes the volume out of its free space in
+     * the index, so concurrent callers do not pick the same room twice. Returns null when no
+     * location fits.
+     */
+    public synchronized Long takeBestFit(double volume) {
+        Slot slot = slots.ceiling(new Slot(volume, Long.MIN_VALUE));
+        if (slot == null) {
+            return null;
+        }
+        put(slot.locationId(), slot.free() - volume);
+        return slot.locationId();
+    }
+
+    public synchronized Double free(long locationId) {
+        return freeByLocation.get(locationId);
+    }
+
+    public synchronized int size() {
+        return freeByLocation.size();
+    }
+
+    public synchronized void clear() {
+        slots.clear();
+        freeByLocation.clear();
+    }
+}
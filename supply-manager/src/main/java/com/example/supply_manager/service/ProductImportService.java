@@ -0,0 +1,394 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.dto.ImportReport;
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.dto.ProductMapper;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams a product catalog from NDJSON (one product per line) or CSV and upserts it by SKU.
+ * Existing SKUs are preloaded once into a sorted array, so each row is classified as insert or
+ * update without a query. Rows are checked with Bean Validation and written per chunk, in one
+ * transaction, as JDBC batch INSERTs and UPDATEs. After commit the chunk is evicted from the
+ * reference cache and re-indexed for search and typeahead.
+ */
+@Service
+public class ProductImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    // Colunas esperadas no CSV (cabeçalho obrigatório, nesta ordem)
+    static final String CSV_HEADER = "sku,name,description,unit,width,height,length,weight,volume,"
+            + "default_price,preferred_supplier_id,reorder_point,reorder_quantity,active";
+    private static final int CSV_COLUMNS = 14;
+
+    private static final String INSERT_SQL = "INSERT INTO products (sku, name, description, unit, width, height, "
+            + "length, weight, volume, default_price, preferred_supplier_id, reorder_point, reorder_quantity, "
+            + "is_active, updated_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE products SET sku = ?, name = ?, description = ?, unit = ?, "
+            + "width = ?, height = ?, length = ?, weight = ?, volume = ?, default_price = ?, "
+            + "preferred_supplier_id = ?, reorder_point = ?, reorder_quantity = ?, is_active = ?, updated_at = ? "
+            + "WHERE id = ?";
+    private static final int[] COLUMN_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.NUMERIC, Types.BIGINT,
+            Types.DOUBLE, Types.DOUBLE, Types.BOOLEAN, Types.TIMESTAMP};
+    private static final int[] INSERT_TYPES = append(COLUMN_TYPES, Types.TIMESTAMP);
+    private static final int[] UPDATE_TYPES = append(COLUMN_TYPES, Types.BIGINT);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ProductRepository productRepository;
+    private final SupplierRepository supplierRepository;
+    private final DashboardAggregateService dashboardAggregates;
+    private final ReferenceDataCache referenceCache;
+    private final ProductSearchService productSearch;
+    private final TypeaheadService typeahead;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int defaultChunkSize;
+    private final int maxErrors;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ProductRepository productRepository,
+                                SupplierRepository supplierRepository,
+                                DashboardAggregateService dashboardAggregates,
+                                ReferenceDataCache referenceCache,
+                                ProductSearchService productSearch,
+                                TypeaheadService typeahead,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                @Value("${products.import.chunk-size:1000}") int defaultChunkSize,
+                                @Value("${products.import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.productRepository = productRepository;
+        this.supplierRepository = supplierRepository;
+        this.dashboardAggregates = dashboardAggregates;
+        this.referenceCache = referenceCache;
+        this.productSearch = productSearch;
+        this.typeahead = typeahead;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    // Linha já validada: existingId nulo = produto novo
+    private record ParsedProduct(long line, ProductDTO product, Long existingId) {}
+
+    /**
+     * Sorted in-memory set of the SKUs already in the catalog (case-insensitive, as the rest of
+     * the product API), answering "which product has this SKU" with a binary search.
+     */
+    static final class SkuIndex {
+        private final String[] skus;
+        private final long[] ids;
+
+        SkuIndex(List<ProductRepository.SkuRow> rows) {
+            List<ProductRepository.SkuRow> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparing(row -> key(row.getSku())));
+            skus = new String[sorted.size()];
+            ids = new long[sorted.size()];
+            for (int i = 0; i < skus.length; i++) {
+                skus[i] = key(sorted.get(i).getSku());
+                ids[i] = sorted.get(i).getId();
+            }
+        }
+
+        Long idOf(String sku) {
+            int position = Arrays.binarySearch(skus, key(sku));
+            return position >= 0 ? ids[position] : null;
+        }
+
+        static String key(String sku) {
+            return sku.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public ImportReport importProducts(InputStream body, Format format, Integer chunkSize) throws IOException {
+        long start = System.nanoTime();
+        int chunkLimit = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+        ImportReport report = new ImportReport();
+
+        SkuIndex existing = readOnlyTransaction.execute(tx -> {
+            try (Stream<ProductRepository.SkuRow> rows = productRepository.streamSkus()) {
+                return new SkuIndex(rows.toList());
+            }
+        });
+        long[] supplierIds = toSortedArray(supplierRepository.findAllIds());
+        // SKU -> linha em que apareceu neste arquivo (a segunda ocorrência é rejeitada)
+        Map<String, Long> seen = new HashMap<>();
+
+        List<ParsedProduct> chunk = new ArrayList<>(chunkLimit);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            if (format == Format.CSV) {
+                String header = reader.readLine();
+                lineNumber++;
+                if (header == null) {
+                    return finish(report, start);
+                }
+                if (!header.trim().equalsIgnoreCase(CSV_HEADER)) {
+                    report.reject(1, "Cabeçalho inválido, esperado: " + CSV_HEADER, maxErrors);
+                    return finish(report, start);
+                }
+            }
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.setRowsRead(report.getRowsRead() + 1);
+                try {
+                    ProductDTO product = format == Format.CSV ? fromCsv(line) : fromJson(line);
+                    validate(product, supplierIds);
+                    Long firstLine = seen.putIfAbsent(SkuIndex.key(product.getSku()), lineNumber);
+                    if (firstLine != null) {
+                        throw new IllegalArgumentException("SKU repetido no arquivo (linha " + firstLine + ")");
+                    }
+                    chunk.add(new ParsedProduct(lineNumber, product, existing.idOf(product.getSku())));
+                    if (chunk.size() >= chunkLimit) {
+                        writeChunk(chunk, report);
+                    }
+                } catch (IllegalArgumentException | IOException e) {
+                    report.reject(lineNumber, e.getMessage(), maxErrors);
+                }
+            }
+        }
+        writeChunk(chunk, report);
+        return finish(report, start);
+    }
+
+    // Um chunk = uma transação: INSERTs e UPDATEs em batch JDBC, contadores e índices uma vez por chunk
+    private void writeChunk(List<ParsedProduct> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            long written = transactionTemplate.execute(tx -> {
+                Map<Long, Boolean> wasActive = productRepository.findSearchRowsByIds(chunk.stream()
+                                .map(ParsedProduct::existingId)
+                                .filter(id -> id != null)
+                                .toList())
+                        .stream()
+                        .collect(Collectors.toMap(ProductRepository.SearchRow::getId,
+                                row -> Boolean.TRUE.equals(row.getActive())));
+
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                List<Object[]> inserts = new ArrayList<>();
+                List<Object[]> updates = new ArrayList<>();
+                List<Long> updatedIds = new ArrayList<>();
+                long createdActive = 0;
+                long activeDelta = 0;
+                for (ParsedProduct parsed : chunk) {
+                    ProductDTO product = parsed.product();
+                    Boolean previous = parsed.existingId() != null ? wasActive.get(parsed.existingId()) : null;
+                    if (previous == null) {
+                        inserts.add(values(product, now, now));
+                        createdActive += product.isActive() ? 1 : 0;
+                    } else {
+                        updates.add(values(product, now, parsed.existingId()));
+                        updatedIds.add(parsed.existingId());
+                        activeDelta += (product.isActive() ? 1 : 0) - (previous ? 1 : 0);
+                    }
+                }
+                List<Long> insertedIds = inserts.isEmpty() ? List.of() : insertReturningIds(inserts);
+                if (!updates.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, updates, UPDATE_TYPES);
+                }
+                dashboardAggregates.productsImported(inserts.size(), createdActive, activeDelta);
+
+                // Busca e typeahead só precisam de id, SKU, nome e situação: montados da própria linha
+                List<Product> indexed = new ArrayList<>(chunk.size());
+                int inserted = 0;
+                for (ParsedProduct parsed : chunk) {
+                    Product product = ProductMapper.toEntity(parsed.product());
+                    boolean update = parsed.existingId() != null && wasActive.containsKey(parsed.existingId());
+                    product.setId(update ? parsed.existingId() : insertedIds.get(inserted++));
+                    indexed.add(product);
+                }
+                referenceCache.evictProducts(updatedIds);
+                productSearch.indexAfterCommit(indexed);
+                typeahead.productsAfterCommit(indexed);
+                return (long) chunk.size();
+            });
+            report.setRowsImported(report.getRowsImported() + chunk.size());
+            report.setRecordsWritten(report.getRecordsWritten() + written);
+        } catch (RuntimeException e) {
+            for (ParsedProduct parsed : chunk) {
+                report.reject(parsed.line(), "Falha ao gravar lote: " + e.getMessage(), maxErrors);
+            }
+        }
+        chunk.clear();
+    }
+
+    // INSERT em batch devolvendo os ids gerados, na ordem das linhas
+    private List<Long> insertReturningIds(List<Object[]> inserts) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[]{"id"})) {
+                for (Object[] row : inserts) {
+                    for (int i = 0; i < row.length; i++) {
+                        StatementCreatorUtils.setParameterValue(statement, i + 1, INSERT_TYPES[i], row[i]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                List<Long> ids = new ArrayList<>(inserts.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                if (ids.size() != inserts.size()) {
+                    throw new IllegalStateException("Ids gerados incompletos: " + ids.size() + " de " + inserts.size());
+                }
+                return ids;
+            }
+        });
+    }
+
+    private void validate(ProductDTO product, long[] supplierIds) {
+        List<String> messages = validator.validate(product).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+        if (!messages.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", messages));
+        }
+        product.setSku(product.getSku().trim());
+        Long supplierId = product.getPreferredSupplierId();
+        if (supplierId != null && Arrays.binarySearch(supplierIds, supplierId) < 0) {
+            throw new IllegalArgumentException("Fornecedor não encontrado: " + supplierId);
+        }
+    }
+
+    private ProductDTO fromJson(String line) throws IOException {
+        return objectMapper.readValue(line, ProductDTO.class);
+    }
+
+    private static ProductDTO fromCsv(String line) {
+        String[] cols = Arrays.copyOf(Csv.split(line), CSV_COLUMNS);
+        ProductDTO product = new ProductDTO();
+        product.setSku(blankToNull(cols[0]));
+        product.setName(blankToNull(cols[1]));
+        product.setDescription(blankToNull(cols[2]));
+        product.setUnit(blankToNull(cols[3]));
+        product.setWidth(parseDouble(cols[4]));
+        product.setHeight(parseDouble(cols[5]));
+        product.setLength(parseDouble(cols[6]));
+        product.setWeight(parseDouble(cols[7]));
+        product.setVolume(parseDouble(cols[8]));
+        product.setDefaultPrice(parseDecimal(cols[9]));
+        product.setPreferredSupplierId(parseLong(cols[10]));
+        product.setReorderPoint(parseDouble(cols[11]));
+        product.setReorderQuantity(parseDouble(cols[12]));
+        String active = blankToNull(cols[13]);
+        product.setActive(active == null || Boolean.parseBoolean(active));
+        return product;
+    }
+
+    private static Object[] values(ProductDTO product, Timestamp now, Object last) {
+        return new Object[]{product.getSku(), product.getName(), product.getDescription(), product.getUnit(),
+                product.getWidth(), product.getHeight(), product.getLength(), product.getWeight(),
+                product.getVolume(), product.getDefaultPrice(), product.getPreferredSupplierId(),
+                product.getReorderPoint(), product.getReorderQuantity(), product.isActive(), now, last};
+    }
+
+    private static Double parseDouble(String value) {
+        String trimmed = blankToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + value);
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        String trimmed = blankToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + value);
+        }
+    }
+
+    private static Long parseLong(String value) {
+        String trimmed = blankToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + value);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static ImportReport finish(ImportReport report, long start) {
+        report.finish(start);
+        return report;
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        long[] result = new long[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int[] append(int[] types, int last) {
+        int[] result = Arrays.copyOf(types, types.length + 1);
+        result[types.length] = last;
+        return result;
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.supply_manager.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product SKU and name. Terms are lower-cased and accent-folded,
+ * kept in a sorted dictionary so every typed word also matches as a prefix. A query walks only
+ * the postings of its most selective word, checks the other words through per-query bitsets and
+ * keeps the best {@code offset + limit} in a bounded heap; per-document data the scoring needs is
+ * held in parallel arrays so most candidates are ranked without touching their strings. Re-indexing a product
+ * appends a new entry and tombstones the old one; a rebuild compacts them.
+ */
+public class ProductSearchIndex {
+
+    public record Hit(long productId, double score) {}
+
+    public record Result(List<Hit> hits, long total) {}
+
+    private record Doc(String sku, String name, String[] terms) {}
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    // Pesos: SKU exato sempre primeiro, depois prefixo de SKU, palavras inteiras e prefixos de palavras
+    private static final double EXACT_SKU = 1000.0;
+    private static final double SKU_PREFIX = 200.0;
+    private static final double EXACT_TERM = 10.0;
+    private static final double TERM_PREFIX = 4.0;
+    private static final double NAME_PREFIX = 5.0;
+    private static final int MAX_SKU_PREFIX_MATCHES = 1000;
+    // Palavras até 8x mais comuns que a mais seletiva viram bitset; acima disso, comparação de termos
+    private static final int BITSET_FACTOR = 8;
+
+    private static final Comparator<Hit> WORST_FIRST =
+            Comparator.comparingDouble(Hit::score).thenComparing(Hit::productId, Comparator.reverseOrder());
+
+    private final List<Doc> docs = new ArrayList<>();
+    private final BitSet dead = new BitSet();
+    private final BitSet inactive = new BitSet();
+    private long[] productIds = new long[16];
+    private int[] termCounts = new int[16];
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    private final TreeMap<String, Integer> skus = new TreeMap<>(); // "sku\0id" -> documento
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+
+    public void put(long productId, String sku, String name, boolean active) {
+        String normalizedSku = normalize(sku);
+        String normalizedName = normalize(name);
+        String[] terms = terms(normalizedSku + " " + normalizedName);
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            int doc = docs.size();
+            docs.add(new Doc(normalizedSku, normalizedName, terms));
+            if (doc == productIds.length) {
+                productIds = Arrays.copyOf(productIds, doc * 2);
+                termCounts = Arrays.copyOf(termCounts, doc * 2);
+            }
+            productIds[doc] = productId;
+            termCounts[doc] = terms.length;
+            inactive.set(doc, !active);
+            docByProduct.put(productId, doc);
+            if (!normalizedSku.isEmpty()) {
+                skus.put(normalizedSku + '\u0000' + productId, doc);
+            }
+            for (int i = 0; i < terms.length; i++) {
+                Postings list = postings.get(terms[i]);
+                if (list == null) {
+                    list = new Postings();
+                    postings.put(terms[i], list);
+                } else {
+                    // Reaproveita a String do dicionário: termos repetidos não ocupam memória por produto
+                    terms[i] = postings.ceilingKey(terms[i]);
+                }
+                list.add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Result search(String query, boolean activeOnly, int offset, int limit) {
+        String normalizedQuery = normalize(query);
+        String[] words = terms(normalizedQuery);
+        if (words.length == 0 || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+        String compactQuery = normalizedQuery.replace(" ", "");
+        int keep = offset + limit;
+        PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(keep, 1024) + 1, WORST_FIRST);
+        long total = 0;
+
+        lock.readLock().lock();
+        try {
+            WordMatch[] matches = new WordMatch[words.length];
+            WordMatch driver = null;
+            for (int i = 0; i < words.length; i++) {
+                matches[i] = new WordMatch(words[i]);
+                if (driver == null || matches[i].size < driver.size) {
+                    driver = matches[i];
+                }
+            }
+            for (WordMatch match : matches) {
+                if (match == driver || match.size <= driver.size * BITSET_FACTOR) {
+                    match.materialize(docs.size());
+                }
+            }
+
+            BitSet seen = new BitSet(docs.size());
+            // SKU: exato e por prefixo entram mesmo que o nome não tenha as palavras
+            for (int doc : skuPrefixMatches(compactQuery)) {
+                if (!dead.get(doc) && !seen.get(doc) && (!activeOnly || !inactive.get(doc))) {
+                    seen.set(doc);
+                    String sku = docs.get(doc).sku();
+                    double score = (sku.equals(compactQuery) ? EXACT_SKU : SKU_PREFIX)
+                            + wordScore(doc, matches, true);
+                    total++;
+                    offer(best, new Hit(productIds[doc], score + bonus(doc, words[0])), keep);
+                }
+            }
+            for (Postings list : driver.expansion.values()) {
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (dead.get(doc) || seen.get(doc) || (activeOnly && inactive.get(doc))) {
+                        continue;
+                    }
+                    seen.set(doc);
+                    double score = wordScore(doc, matches, false);
+                    if (score == 0.0) {
+                        continue;
+                    }
+                    total++;
+                    // Só olha o nome de quem ainda pode entrar no heap com o bônus de nome
+                    score += 1.0 / (1 + termCounts[doc]);
+                    if (best.size() < keep || beats(score + NAME_PREFIX, productIds[doc], best.peek())) {
+                        if (docs.get(doc).name().startsWith(words[0])) {
+                            score += NAME_PREFIX;
+                        }
+                        offer(best, new Hit(productIds[doc], score), keep);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(WORST_FIRST.reversed());
+        List<Hit> page = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+        return new Result(List.copyOf(page), total);
+    }
+
+    /**
+     * How one query word matches the index: the dictionary terms it is a prefix of and, once
+     * materialized, bitsets of documents holding the word itself or only a longer term. Very broad
+     * words (one or two letters) are instead checked against the candidate's own terms.
+     */
+    private final class WordMatch {
+        private final String word;
+        private final SortedMap<String, Postings> expansion;
+        private final long size;
+        private BitSet exact;
+        private BitSet prefix;
+
+        WordMatch(String word) {
+            this.word = word;
+            this.expansion = postings.subMap(word, word + Character.MAX_VALUE);
+            long sum = 0;
+            for (Postings list : expansion.values()) {
+                sum += list.size;
+            }
+            this.size = sum;
+        }
+
+        void materialize(int documents) {
+            exact = new BitSet(documents);
+            prefix = new BitSet(documents);
+            for (Map.Entry<String, Postings> entry : expansion.entrySet()) {
+                BitSet target = entry.getKey().equals(word) ? exact : prefix;
+                Postings list = entry.getValue();
+                for (int i = 0; i < list.size; i++) {
+                    target.set(list.docs[i]);
+                }
+            }
+        }
+
+        double score(int doc) {
+            if (exact != null) {
+                return exact.get(doc) ? EXACT_TERM : prefix.get(doc) ? TERM_PREFIX : 0.0;
+            }
+            double best = 0.0;
+            for (String term : docs.get(doc).terms()) {
+                if (term.equals(word)) {
+                    return EXACT_TERM;
+                }
+                if (term.startsWith(word)) {
+                    best = TERM_PREFIX;
+                }
+            }
+            return best;
+        }
+    }
+
+    // Zero quando alguma palavra não casa (busca E), exceto para quem casou pelo SKU
+    private static double wordScore(int doc, WordMatch[] matches, boolean skuMatch) {
+        double score = 0.0;
+        for (WordMatch match : matches) {
+            double wordScore = match.score(doc);
+            if (wordScore == 0.0 && !skuMatch) {
+                return 0.0;
+            }
+            score += wordScore;
+        }
+        return score;
+    }
+
+    // Nome que começa pela primeira palavra, e nomes mais curtos (mais específicos) no desempate
+    private double bonus(int doc, String firstWord) {
+        double bonus = 1.0 / (1 + termCounts[doc]);
+        return docs.get(doc).name().startsWith(firstWord) ? bonus + NAME_PREFIX : bonus;
+    }
+
+    private void removeLocked(long productId) {
+        Integer previous = docByProduct.remove(productId);
+        if (previous != null) {
+            dead.set(previous);
+            skus.remove(docs.get(previous).sku() + '\u0000' + productId);
+        }
+    }
+
+    private List<Integer> skuPrefixMatches(String compactQuery) {
+        if (compactQuery.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> result = new ArrayList<>();
+        for (Integer entry : skus.subMap(compactQuery, compactQuery + Character.MAX_VALUE).values()) {
+            if (result.size() == MAX_SKU_PREFIX_MATCHES) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    // Mesma ordem de WORST_FIRST sem alocar um Hit por candidato
+    private static boolean beats(double score, long productId, Hit worst) {
+        return score > worst.score() || (score == worst.score() && productId < worst.productId());
+    }
+
+    private static void offer(PriorityQueue<Hit> best, Hit hit, int keep) {
+        if (best.size() < keep) {
+            best.add(hit);
+        } else if (beats(hit.score(), hit.productId(), best.peek())) {
+            best.poll();
+            best.add(hit);
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return folded.toLowerCase().trim();
+    }
+
+    private static String[] terms(String normalized) {
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+}
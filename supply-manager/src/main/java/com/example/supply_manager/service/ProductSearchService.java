@@ -0,0 +1,134 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.dto.ProductMapper;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ranked product search backed by a {@link ProductSearchIndex}. The index is loaded on startup
+ * and rebuilt periodically (which also compacts re-indexed entries); between rebuilds product
+ * writes are applied to it after their transaction commits. Only the ids of the requested page
+ * are read from the database.
+ */
+@Slf4j
+@Service
+public class ProductSearchService {
+
+    private record Pending(long productId, String sku, String name, boolean active) {}
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Object writeLock = new Object();
+
+    private volatile ProductSearchIndex index = new ProductSearchIndex();
+    private volatile boolean ready;
+    // Escritas que chegam durante uma recarga: reaplicadas no índice novo antes da troca
+    private List<Pending> journal;
+
+    public ProductSearchService(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${product.search.refresh-ms:600000}", initialDelayString = "${product.search.refresh-ms:600000}")
+    public synchronized void refresh() {
+        synchronized (writeLock) {
+            journal = new ArrayList<>();
+        }
+        ProductSearchIndex fresh = new ProductSearchIndex();
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                try (Stream<ProductRepository.SearchRow> rows = productRepository.streamSearchRows()) {
+                    rows.forEach(row -> fresh.put(row.getId(), row.getSku(), row.getName(),
+                            Boolean.TRUE.equals(row.getActive())));
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                journal = null;
+            }
+            throw e;
+        }
+        synchronized (writeLock) {
+            journal.forEach(p -> fresh.put(p.productId(), p.sku(), p.name(), p.active()));
+            journal = null;
+            index = fresh;
+            ready = true;
+        }
+        log.debug("Product search index loaded with {} products", fresh.size());
+    }
+
+    /** Re-indexes the product once the current transaction commits (immediately without one). */
+    public void indexAfterCommit(Product product) {
+        afterCommit(List.of(new Pending(product.getId(), product.getSku(), product.getName(), product.isActive())));
+    }
+
+    // Lote (importação): uma única sincronização para todas as linhas do chunk
+    public void indexAfterCommit(List<Product> products) {
+        afterCommit(products.stream()
+                .map(product -> new Pending(product.getId(), product.getSku(), product.getName(), product.isActive()))
+                .toList());
+    }
+
+    private void afterCommit(List<Pending> pending) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.forEach(this::apply);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.forEach(ProductSearchService.this::apply);
+            }
+        });
+    }
+
+    public Page<ProductDTO> search(String query, boolean activeOnly, Pageable pageable) {
+        if (!ready) {
+            // Antes da primeira carga: busca antiga por LIKE, para não responder vazio
+            return productRepository.searchProducts(query, pageable).map(ProductMapper::toDTO);
+        }
+        ProductSearchIndex.Result result = index.search(query, activeOnly,
+                (int) pageable.getOffset(), pageable.getPageSize());
+        List<Long> ids = result.hits().stream().map(ProductSearchIndex.Hit::productId).toList();
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductDTO> content = ids.stream()
+                .map(products::get)
+                .filter(product -> product != null)
+                .map(ProductMapper::toDTO)
+                .toList();
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    private void apply(Pending pending) {
+        synchronized (writeLock) {
+            index.put(pending.productId(), pending.sku(), pending.name(), pending.active());
+            if (journal != null) {
+                journal.add(pending);
+            }
+        }
+    }
+}
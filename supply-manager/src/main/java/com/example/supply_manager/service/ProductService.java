@@ -1,5 +1,6 @@
 package com.example.supply_manager.service;
 
+import com.example.supply_manager.dto.CursorPage;
 import com.example.supply_manager.dto.ProductDTO;
 import com.example.supply_manager.model.Product;
 import com.example.supply_manager.model.Supplier;
@@ -9,10 +10,14 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.example.supply_manager.dto.ProductMapper;
@@ -23,6 +28,30 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final SupplierRepository supplierRepository;
+    private final DashboardAggregateService dashboardAggregates;
+    private final ReferenceDataCache referenceCache;
+    private final ProductSearchService productSearch;
+    private final TypeaheadService typeahead;
+    private final SparseFieldQuery sparseFields;
+
+    // fields= das listagens: mesmos nomes do ProductDTO, uma coluna cada
+    public static final SparseFieldQuery.Fields<Product> LIST_FIELDS = new SparseFieldQuery.Fields<>(Product.class)
+            .field("id", "id")
+            .field("sku", "sku")
+            .field("name", "name")
+            .field("description", "description")
+            .field("width", "width")
+            .field("height", "height")
+            .field("length", "length")
+            .field("weight", "weight")
+            .field("volume", "volume")
+            .field("unit", "unit")
+            .field("defaultPrice", "defaultPrice")
+            .field("preferredSupplierId", "preferredSupplier.id")
+            .field("reorderPoint", "reorderPoint")
+            .field("reorderQuantity", "reorderQuantity")
+            .field("active", "active")
+            .field("updatedAt", "updatedAt");
 
     @Transactional
     public ProductDTO createProduct(ProductDTO productDTO) {
@@ -30,12 +59,16 @@ public class ProductService {
         
         // Set preferred supplier if provided
         if (productDTO.getPreferredSupplierId() != null) {
-            Supplier supplier = supplierRepository.findById(productDTO.getPreferredSupplierId())
+            Supplier supplier = referenceCache.supplier(productDTO.getPreferredSupplierId())
                     .orElseThrow(() -> new EntityNotFoundException("Supplier not found with id: " + productDTO.getPreferredSupplierId()));
             product.setPreferredSupplier(supplier);
         }
         
         Product savedProduct = productRepository.save(product);
+        referenceCache.evictProduct(savedProduct.getId());
+        productSearch.indexAfterCommit(savedProduct);
+        typeahead.productAfterCommit(savedProduct);
+        dashboardAggregates.productCreated(savedProduct.isActive());
         return ProductMapper.toDTO(savedProduct);
     }
 
@@ -43,6 +76,7 @@ public class ProductService {
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
+        boolean wasActive = existingProduct.isActive();
         
         // Update fields from DTO
         existingProduct.setSku(productDTO.getSku());
@@ -55,11 +89,13 @@ public class ProductService {
         existingProduct.setVolume(productDTO.getVolume());
         existingProduct.setUnit(productDTO.getUnit());
         existingProduct.setDefaultPrice(productDTO.getDefaultPrice());
+        existingProduct.setReorderPoint(productDTO.getReorderPoint());
+        existingProduct.setReorderQuantity(productDTO.getReorderQuantity());
         existingProduct.setActive(productDTO.isActive());
         
         // Update preferred supplier if provided
         if (productDTO.getPreferredSupplierId() != null) {
-            Supplier supplier = supplierRepository.findById(productDTO.getPreferredSupplierId())
+            Supplier supplier = referenceCache.supplier(productDTO.getPreferredSupplierId())
                     .orElseThrow(() -> new EntityNotFoundException("Supplier not found with id: " + productDTO.getPreferredSupplierId()));
             existingProduct.setPreferredSupplier(supplier);
         } else {
@@ -67,6 +103,10 @@ public class ProductService {
         }
         
         Product updatedProduct = productRepository.save(existingProduct);
+        referenceCache.evictProduct(id);
+        productSearch.indexAfterCommit(updatedProduct);
+        typeahead.productAfterCommit(updatedProduct);
+        dashboardAggregates.productChanged(wasActive, updatedProduct.isActive());
         return ProductMapper.toDTO(updatedProduct);
     }
 
@@ -76,14 +116,28 @@ public class ProductService {
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
         
         // Soft delete by setting active to false
+        boolean wasActive = product.isActive();
         product.setActive(false);
         productRepository.save(product);
+        referenceCache.evictProduct(id);
+        productSearch.indexAfterCommit(product);
+        typeahead.productAfterCommit(product);
+        dashboardAggregates.productChanged(wasActive, false);
     }
 
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
+        return referenceCache.product(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
-        return ProductMapper.toDTO(product);
+    }
+
+    // Validador do GET condicional da listagem (ver ProductController): total pelo contador mantido,
+    // sem COUNT(*) na tabela, e o último updated_at pelo índice
+    public CatalogVersion getCatalogVersion() {
+        return new CatalogVersion(dashboardAggregates.count(DashboardAggregateService.PRODUCTS),
+                productRepository.findLastUpdatedAt());
+    }
+
+    public record CatalogVersion(long count, LocalDateTime updatedAt) {
     }
 
     public List<ProductDTO> getAllProducts() {
@@ -97,10 +151,51 @@ public class ProductService {
                 .map(ProductMapper::toDTO);
     }
 
-    public List<ProductDTO> searchProducts(String query) {
-        return productRepository.findByNameContainingIgnoreCaseOrSkuContainingIgnoreCase(query, query).stream()
-                .map(ProductMapper::toDTO)
-                .collect(Collectors.toList());
+    // Sparse fieldset: only the requested columns are selected (see SparseFieldQuery)
+    public Page<Map<String, Object>> getProducts(Pageable pageable, List<String> fields) {
+        return sparseFields.page(LIST_FIELDS, fields, null, pageable);
+    }
+
+    // Keyset pagination by (name, id); total comes from the maintained product counter
+    public CursorPage<ProductDTO> getProductsAfter(String after, int size, boolean includeTotal) {
+        CursorPage.Cursor cursor = CursorPage.Cursor.decode(after);
+        Pageable limit = PageRequest.of(0, size);
+        List<Product> products = cursor == null
+                ? productRepository.findFirstPage(limit)
+                : productRepository.findPageAfter(cursor.key(), cursor.id(), limit);
+
+        String next = null;
+        if (products.size() == size) {
+            Product last = products.get(products.size() - 1);
+            next = new CursorPage.Cursor(last.getName(), last.getId()).encode();
+        }
+        Long total = includeTotal ? dashboardAggregates.count(DashboardAggregateService.PRODUCTS) : null;
+        return new CursorPage<>(products.stream().map(ProductMapper::toDTO).toList(), next, size, total);
+    }
+
+    // Mesmo keyset com sparse fieldset; name e id entram na consulta para montar o cursor
+    public CursorPage<Map<String, Object>> getProductsAfter(String after, int size, boolean includeTotal,
+                                                            List<String> fields) {
+        CursorPage.Cursor cursor = CursorPage.Cursor.decode(after);
+        SparseFieldQuery.Where<Product> where = cursor == null ? null : (root, cb) -> cb.or(
+                cb.greaterThan(root.get("name"), cursor.key()),
+                cb.and(cb.equal(root.get("name"), cursor.key()), cb.greaterThan(root.get("id"), cursor.id())));
+        List<Map<String, Object>> rows = sparseFields.list(LIST_FIELDS,
+                SparseFieldQuery.Fields.with(fields, "name", "id"), where, Sort.by("name", "id"), 0, size);
+
+        String next = null;
+        if (rows.size() == size) {
+            Map<String, Object> last = rows.get(rows.size() - 1);
+            next = new CursorPage.Cursor((String) last.get("name"), (Long) last.get("id")).encode();
+        }
+        SparseFieldQuery.Fields.retain(rows, fields);
+        Long total = includeTotal ? dashboardAggregates.count(DashboardAggregateService.PRODUCTS) : null;
+        return new CursorPage<>(rows, next, size, total);
+    }
+
+    // Busca ranqueada no índice em memória (SKU exato primeiro), paginada
+    public Page<ProductDTO> searchProducts(String query, boolean activeOnly, Pageable pageable) {
+        return productSearch.search(query, activeOnly, pageable);
     }
 }
 
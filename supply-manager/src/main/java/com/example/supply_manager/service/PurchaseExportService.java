@@ -0,0 +1,172 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams purchase orders and their items to an output stream in the same formats the importer
+ * reads: CSV (one item per line, CSV_HEADER columns) or NDJSON (one order per line). Orders
+ * without items have no CSV line, since the importer rejects an order without items. Rows come
+ * from a forward-only cursor of scalar projections inside a read-only transaction, so memory use
+ * does not depend on the size of the export and no entity is ever managed.
+ */
+@Service
+public class PurchaseExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    public record Filter(PurchaseOrder.Status status, Long supplierId, LocalDate from, LocalDate to) {
+
+        public static Filter of(String status, Long supplierId, LocalDate from, LocalDate to) {
+            return new Filter(PurchaseImportService.status(status), supplierId, from, to);
+        }
+    }
+
+    private final PurchaseOrderRepository orderRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public PurchaseExportService(PurchaseOrderRepository orderRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public void export(Filter filter, Format format, OutputStream out) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                try (Stream<PurchaseOrderRepository.ExportRow> rows = orderRepository.streamExportRows(
+                        filter.status(), filter.supplierId(), filter.from(), filter.to())) {
+                    if (format == Format.CSV) {
+                        writeCsv(rows.iterator(), out);
+                    } else {
+                        writeNdjson(rows.iterator(), out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeCsv(Iterator<PurchaseOrderRepository.ExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(PurchaseImportService.CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            PurchaseOrderRepository.ExportRow row = rows.next();
+            // Pedido sem itens: o LEFT JOIN traz uma linha sem produto, que a importação rejeitaria
+            if (row.getItemId() == null) {
+                continue;
+            }
+            writer.write(String.valueOf(row.getOrderId()));
+            writeCsvColumn(writer, row.getSupplierId());
+            writeCsvColumn(writer, row.getOrderDate());
+            writeCsvColumn(writer, row.getExpectedDate());
+            writeCsvColumn(writer, row.getDeliveryDate());
+            writeCsvColumn(writer, row.getStatus());
+            writeCsvColumn(writer, row.getCode());
+            writeCsvColumn(writer, row.getProductId());
+            writeCsvColumn(writer, row.getQuantity());
+            writeCsvColumn(writer, row.getUnitPrice());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvColumn(Writer writer, Object value) throws IOException {
+        writer.write(',');
+        Csv.write(writer, value);
+    }
+
+    // As linhas chegam ordenadas por pedido: cada pedido é fechado quando o próximo começa
+    private void writeNdjson(Iterator<PurchaseOrderRepository.ExportRow> rows, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.setRootValueSeparator(null);
+        Long currentOrder = null;
+        while (rows.hasNext()) {
+            PurchaseOrderRepository.ExportRow row = rows.next();
+            if (!row.getOrderId().equals(currentOrder)) {
+                if (currentOrder != null) {
+                    endOrder(json);
+                }
+                startOrder(json, row);
+                currentOrder = row.getOrderId();
+            }
+            if (row.getItemId() != null) {
+                json.writeStartObject();
+                json.writeNumberField("id", row.getItemId());
+                writeField(json, "product", row.getProductId());
+                json.writeStringField("sku", row.getSku());
+                writeField(json, "quantity", row.getQuantity());
+                writeField(json, "unitPrice", row.getUnitPrice());
+                writeField(json, "receivedQuantity", row.getReceivedQuantity());
+                json.writeEndObject();
+            }
+        }
+        if (currentOrder != null) {
+            endOrder(json);
+        }
+        json.flush();
+    }
+
+    private static void startOrder(JsonGenerator json, PurchaseOrderRepository.ExportRow row) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", row.getOrderId());
+        json.writeStringField("code", row.getCode());
+        writeField(json, "supplier", row.getSupplierId());
+        json.writeStringField("purchaseDate", text(row.getOrderDate()));
+        json.writeStringField("expectedDeliveryDate", text(row.getExpectedDate()));
+        json.writeStringField("deliveryDate", text(row.getDeliveryDate()));
+        json.writeStringField("status", text(row.getStatus()));
+        writeField(json, "totalAmount", row.getTotalAmount());
+        json.writeArrayFieldStart("items");
+    }
+
+    private static void endOrder(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeField(JsonGenerator json, String name, Long value) throws IOException {
+        if (value == null) {
+            json.writeNullField(name);
+        } else {
+            json.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeField(JsonGenerator json, String name, Double value) throws IOException {
+        if (value == null) {
+            json.writeNullField(name);
+        } else {
+            json.writeNumberField(name, value);
+        }
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,404 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.dto.ImportReport;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams purchase orders from NDJSON (one order per line) or CSV (one item per line,
+ * consecutive rows sharing an order_ref form one order) and writes them in chunked
+ * transactions. Only the current chunk is kept in memory.
+ */
+@Service
+public class PurchaseImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    // Colunas esperadas no CSV (cabeçalho obrigatório, nesta ordem)
+    static final String CSV_HEADER =
+            "order_ref,supplier,purchase_date,expected_date,delivery_date,status,code,product,quantity,unit_price";
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final SupplierRepository supplierRepository;
+    private final ProductRepository productRepository;
+    private final DashboardAggregateService dashboardAggregates;
+    private final PurchaseOrderCodeGenerator codeGenerator;
+    private final ObjectMapper objectMapper;
+    private final int defaultChunkSize;
+    private final int maxErrors;
+
+    public PurchaseImportService(EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 SupplierRepository supplierRepository,
+                                 ProductRepository productRepository,
+                                 DashboardAggregateService dashboardAggregates,
+                                 PurchaseOrderCodeGenerator codeGenerator,
+                                 ObjectMapper objectMapper,
+                                 @Value("${purchases.import.chunk-size:500}") int defaultChunkSize,
+                                 @Value("${purchases.import.max-errors:1000}") int maxErrors) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.supplierRepository = supplierRepository;
+        this.productRepository = productRepository;
+        this.dashboardAggregates = dashboardAggregates;
+        this.codeGenerator = codeGenerator;
+        this.objectMapper = objectMapper;
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    // Pedido já validado, aguardando a gravação do chunk
+    private record ParsedItem(long productId, double quantity, Double unitPrice) {}
+
+    private static final class ParsedOrder {
+        final long line;
+        final String ref;
+        Long supplierId;
+        LocalDate orderDate;
+        LocalDate expectedDate;
+        LocalDate deliveryDate;
+        PurchaseOrder.Status status;
+        String code;
+        long rows;
+        final List<ParsedItem> items = new ArrayList<>();
+
+        ParsedOrder(long line, String ref) {
+            this.line = line;
+            this.ref = ref;
+        }
+    }
+
+    public ImportReport importOrders(InputStream body, Format format, Integer chunkSize) throws IOException {
+        long start = System.nanoTime();
+        int chunkLimit = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+        ImportReport report = new ImportReport();
+
+        // Cache de ids: arrays ordenados, busca binária, sem consulta por linha
+        long[] supplierIds = toSortedArray(supplierRepository.findAllIds());
+        long[] productIds = toSortedArray(productRepository.findAllIds());
+
+        List<ParsedOrder> chunk = new ArrayList<>(chunkLimit);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            if (format == Format.CSV) {
+                readCsv(reader, report, supplierIds, productIds, chunk, chunkLimit);
+            } else {
+                readNdjson(reader, report, supplierIds, productIds, chunk, chunkLimit);
+            }
+        }
+        writeChunk(chunk, report);
+
+        report.finish(start);
+        return report;
+    }
+
+    private void readNdjson(BufferedReader reader, ImportReport report, long[] supplierIds, long[] productIds,
+                            List<ParsedOrder> chunk, int chunkLimit) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setRowsRead(report.getRowsRead() + 1);
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                ParsedOrder order = new ParsedOrder(lineNumber, null);
+                order.rows = 1;
+                order.supplierId = idOf(node.get("supplier"));
+                order.orderDate = date(node.get("purchaseDate"));
+                order.expectedDate = date(node.get("expectedDeliveryDate"));
+                order.deliveryDate = date(node.get("deliveryDate"));
+                order.status = status(text(node.get("status")));
+                order.code = text(node.get("code"));
+                JsonNode items = node.get("items");
+                if (items != null) {
+                    for (JsonNode item : items) {
+                        order.items.add(item(idOf(item.get("product")),
+                                item.hasNonNull("quantity") ? item.get("quantity").asDouble() : null,
+                                item.hasNonNull("unitPrice") ? item.get("unitPrice").asDouble() : null));
+                    }
+                }
+                validate(order, supplierIds, productIds);
+                addToChunk(order, chunk, chunkLimit, report);
+            } catch (IllegalArgumentException | IOException e) {
+                report.reject(lineNumber, e.getMessage(), maxErrors);
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ImportReport report, long[] supplierIds, long[] productIds,
+                         List<ParsedOrder> chunk, int chunkLimit) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        if (!header.trim().equalsIgnoreCase(CSV_HEADER)) {
+            report.reject(1, "Cabeçalho inválido, esperado: " + CSV_HEADER, maxErrors);
+            return;
+        }
+
+        String line;
+        long lineNumber = 1;
+        ParsedOrder current = null;
+        boolean currentValid = true;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setRowsRead(report.getRowsRead() + 1);
+            String[] cols = Arrays.copyOf(Csv.split(line), 10);
+            String ref = cols[0].trim();
+
+            if (current == null || !ref.equals(current.ref)) {
+                finishCsvOrder(current, currentValid, supplierIds, productIds, chunk, chunkLimit, report);
+                current = new ParsedOrder(lineNumber, ref);
+                currentValid = true;
+            }
+            if (!currentValid) {
+                report.reject(lineNumber, "Pedido " + ref + " já rejeitado", maxErrors);
+                continue;
+            }
+            current.rows++;
+            try {
+                if (current.items.isEmpty()) {
+                    current.supplierId = parseLong(cols[1]);
+                    current.orderDate = parseDate(cols[2]);
+                    current.expectedDate = parseDate(cols[3]);
+                    current.deliveryDate = parseDate(cols[4]);
+                    current.status = status(blankToNull(cols[5]));
+                    current.code = blankToNull(cols[6]);
+                }
+                current.items.add(item(parseLong(cols[7]), parseDouble(cols[8]), parseDouble(cols[9])));
+            } catch (IllegalArgumentException e) {
+                currentValid = false;
+                report.reject(lineNumber, e.getMessage(), current.rows, maxErrors);
+            }
+        }
+        finishCsvOrder(current, currentValid, supplierIds, productIds, chunk, chunkLimit, report);
+    }
+
+    private void finishCsvOrder(ParsedOrder order, boolean valid, long[] supplierIds, long[] productIds,
+                                List<ParsedOrder> chunk, int chunkLimit, ImportReport report) {
+        if (order == null || !valid) {
+            return;
+        }
+        try {
+            validate(order, supplierIds, productIds);
+            addToChunk(order, chunk, chunkLimit, report);
+        } catch (IllegalArgumentException e) {
+            report.reject(order.line, e.getMessage(), order.rows, maxErrors);
+        }
+    }
+
+    private void addToChunk(ParsedOrder order, List<ParsedOrder> chunk, int chunkLimit, ImportReport report) {
+        chunk.add(order);
+        if (chunk.size() >= chunkLimit) {
+            writeChunk(chunk, report);
+        }
+    }
+
+    // Um chunk = uma transação; INSERTs em batch e contexto de persistência limpo ao final
+    private void writeChunk(List<ParsedOrder> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            long written = transactionTemplate.execute(tx -> {
+                Map<PurchaseOrder.Status, double[]> totals = new EnumMap<>(PurchaseOrder.Status.class);
+                long records = 0;
+                for (ParsedOrder parsed : chunk) {
+                    PurchaseOrder order = toEntity(parsed);
+                    entityManager.persist(order);
+                    records += 1 + order.getItems().size();
+                    double[] sum = totals.computeIfAbsent(order.getStatus(), s -> new double[2]);
+                    sum[0]++;
+                    sum[1] += order.getTotalAmount();
+                }
+                totals.forEach((status, sum) -> dashboardAggregates.ordersCreated(status, (long) sum[0], sum[1]));
+                entityManager.flush();
+                entityManager.clear();
+                return records;
+            });
+            report.setRowsImported(report.getRowsImported() + chunk.stream().mapToLong(o -> o.rows).sum());
+            report.setRecordsWritten(report.getRecordsWritten() + written);
+        } catch (RuntimeException e) {
+            for (ParsedOrder parsed : chunk) {
+                report.reject(parsed.line, "Falha ao gravar lote: " + e.getMessage(), parsed.rows, maxErrors);
+            }
+        }
+        chunk.clear();
+    }
+
+    private PurchaseOrder toEntity(ParsedOrder parsed) {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(entityManager.getReference(Supplier.class, parsed.supplierId));
+        order.setOrderDate(parsed.orderDate != null ? parsed.orderDate : LocalDate.now());
+        order.setExpectedDate(parsed.expectedDate);
+        order.setDeliveryDate(parsed.deliveryDate);
+        order.setStatus(parsed.status != null ? parsed.status : PurchaseOrder.Status.ISSUED);
+        order.setFullyReceived(order.getStatus() == PurchaseOrder.Status.RECEIVED);
+        order.setCode(parsed.code);
+        codeGenerator.assignIfMissing(order);
+
+        double total = 0.0;
+        for (ParsedItem parsedItem : parsed.items) {
+            PurchaseOrderItem item = new PurchaseOrderItem();
+            item.setProduct(entityManager.getReference(Product.class, parsedItem.productId()));
+            item.setQuantity(parsedItem.quantity());
+            item.setUnitPrice(parsedItem.unitPrice());
+            order.addItem(item);
+            total += parsedItem.quantity() * (parsedItem.unitPrice() != null ? parsedItem.unitPrice() : 0.0);
+        }
+        order.setTotalAmount(total);
+        order.recountOutstandingLines();
+        return order;
+    }
+
+    private static void validate(ParsedOrder order, long[] supplierIds, long[] productIds) {
+        if (order.supplierId == null) {
+            throw new IllegalArgumentException("Fornecedor obrigatório");
+        }
+        if (Arrays.binarySearch(supplierIds, order.supplierId) < 0) {
+            throw new IllegalArgumentException("Fornecedor não encontrado: " + order.supplierId);
+        }
+        if (order.items.isEmpty()) {
+            throw new IllegalArgumentException("Pedido sem itens");
+        }
+        List<Long> missing = new ArrayList<>();
+        for (ParsedItem item : order.items) {
+            if (Arrays.binarySearch(productIds, item.productId()) < 0) {
+                missing.add(item.productId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Produtos não encontrados: " + missing);
+        }
+    }
+
+    private static ParsedItem item(Long productId, Double quantity, Double unitPrice) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Produto obrigatório");
+        }
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantidade inválida para o produto " + productId);
+        }
+        if (unitPrice != null && unitPrice < 0) {
+            throw new IllegalArgumentException("Preço inválido para o produto " + productId);
+        }
+        return new ParsedItem(productId, quantity, unitPrice);
+    }
+
+    // Aceita os status do frontend (PENDING/DELIVERED/CANCELED) ou os do enum
+    static PurchaseOrder.Status status(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.trim().toUpperCase()) {
+            case "PENDING" -> PurchaseOrder.Status.ISSUED;
+            case "DELIVERED" -> PurchaseOrder.Status.RECEIVED;
+            default -> {
+                try {
+                    yield PurchaseOrder.Status.valueOf(value.trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Status inválido: " + value);
+                }
+            }
+        };
+    }
+
+    private static Long idOf(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (node.isObject()) {
+            return idOf(node.get("id"));
+        }
+        if (!node.canConvertToLong()) {
+            throw new IllegalArgumentException("Id inválido: " + node);
+        }
+        return node.asLong();
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static LocalDate date(JsonNode node) {
+        return parseDate(text(node));
+    }
+
+    private static LocalDate parseDate(String value) {
+        String trimmed = blankToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(trimmed);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Data inválida: " + value);
+        }
+    }
+
+    private static Long parseLong(String value) {
+        String trimmed = blankToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + value);
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        String trimmed = blankToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + value);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        long[] result = new long[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.PurchaseOrder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out purchase order codes (PO-2025-0001) numbered per year. Each year has a database
+ * sequence that steps by a whole block; an instance takes a block with one {@code nextval} and
+ * serves it from memory, like Hibernate's pooled id generator. {@code nextval} runs on the caller's
+ * own connection and is not transactional, so taking a block needs no second connection and no row
+ * lock, and a rollback never hands the same numbers out twice. Codes are unique, but not gap-free
+ * nor strictly ordered across instances or concurrent block refills.
+ */
+@Service
+public class PurchaseOrderCodeGenerator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ownTransaction;
+    private final int blockSize;
+
+    // Por ano: {próximo número, fim exclusivo do bloco}; só memória, protegido pelo monitor
+    private final Map<Integer, long[]> blocks = new HashMap<>();
+    // Anos cuja sequência já existe, com o passo (tamanho do bloco) com que foi criada
+    private final Map<Integer, Long> increments = new ConcurrentHashMap<>();
+
+    public PurchaseOrderCodeGenerator(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${purchases.code.block-size:50}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public void assignIfMissing(PurchaseOrder order) {
+        if (order.getCode() == null || order.getCode().isBlank()) {
+            LocalDate date = order.getOrderDate() != null ? order.getOrderDate() : LocalDate.now();
+            order.setCode(next(date.getYear()));
+        }
+    }
+
+    /**
+     * Never touches the database while holding the monitor: a caller that finds the block used up
+     * takes a new one outside it, on its own connection, so a full pool cannot deadlock here.
+     */
+    public String next(int year) {
+        synchronized (this) {
+            long[] block = blocks.get(year);
+            if (block != null && block[0] < block[1]) {
+                return format(year, block[0]++);
+            }
+        }
+        long increment = increment(year);
+        long start = jdbcTemplate.queryForObject("SELECT nextval('" + sequence(year) + "')", Long.class);
+        synchronized (this) {
+            // Outro chamador pode ter trocado o bloco enquanto este buscava o seu: fica o que tiver números
+            long[] block = blocks.get(year);
+            if (block == null || block[0] >= block[1]) {
+                blocks.put(year, new long[]{start + 1, start + increment});
+            }
+        }
+        return format(year, start);
+    }
+
+    public static String format(int year, long number) {
+        return String.format("PO-%d-%04d", year, number);
+    }
+
+    // Sequências do ano corrente e do próximo prontas antes do uso (na subida e diariamente):
+    // os pedidos do dia a dia nunca precisam criar a sequência
+    @Scheduled(cron = "${purchases.code.prepare-cron:0 0 1 * * *}")
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareSequences() {
+        int year = LocalDate.now().getYear();
+        increment(year);
+        increment(year + 1);
+    }
+
+    private long increment(int year) {
+        Long known = increments.get(year);
+        if (known != null) {
+            return known;
+        }
+        Long existing = lookupIncrement(year);
+        if (existing == null) {
+            // Ano ainda sem sequência (pedido retroativo, por exemplo): DDL fora da transação do chamador
+            try {
+                ownTransaction.executeWithoutResult(tx -> jdbcTemplate.execute(
+                        "CREATE SEQUENCE IF NOT EXISTS " + sequence(year)
+                                + " START WITH 1 INCREMENT BY " + blockSize));
+            } catch (DataAccessException e) {
+                // Outra instância criou a mesma sequência ao mesmo tempo
+            }
+            existing = lookupIncrement(year);
+            if (existing == null) {
+                throw new IllegalStateException("Sequence " + sequence(year) + " could not be created");
+            }
+        }
+        increments.put(year, existing);
+        return existing;
+    }
+
+    private Long lookupIncrement(int year) {
+        List<Long> rows = jdbcTemplate.queryForList(
+                "SELECT increment FROM information_schema.sequences WHERE UPPER(sequence_name) = ?",
+                Long.class, sequence(year).toUpperCase());
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static String sequence(int year) {
+        return "purchase_order_codes_" + year + "_seq";
+    }
+}
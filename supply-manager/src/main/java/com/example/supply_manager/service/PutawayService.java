@@ -0,0 +1,234 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.WarehouseLocation;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.WarehouseLocationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Suggests where incoming goods go. Locations are kept in a {@link LocationIndex} ordered by free
+ * volume, so the best fit is found in O(log n); the space is then reserved in the database with a
+ * conditional UPDATE, which stays correct when the index is stale or several instances compete.
+ */
+@Slf4j
+@Service
+public class PutawayService {
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final WarehouseLocationRepository locationRepository;
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final LocationIndex index = new LocationIndex();
+
+    public PutawayService(WarehouseLocationRepository locationRepository,
+                          ProductRepository productRepository,
+                          EntityManager entityManager) {
+        this.locationRepository = locationRepository;
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+    }
+
+    // Recarrega o índice: na subida e periodicamente, para absorver locais novos e reservas de outras instâncias
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${putaway.index.refresh-ms:300000}", initialDelayString = "${putaway.index.refresh-ms:300000}")
+    public void refresh() {
+        List<WarehouseLocationRepository.FreeVolume> locations = locationRepository.findAllFreeVolumes();
+        synchronized (index) {
+            index.clear();
+            locations.forEach(location -> index.put(location.getId(), location.getFree()));
+        }
+        log.debug("Putaway index loaded with {} locations", locations.size());
+    }
+
+    /**
+     * Fills the suggested location of every item that has none, reserving its volume, and resizes
+     * the reservation of items whose product or quantity changed since it was made.
+     */
+    @Transactional
+    public void assignLocations(Collection<PurchaseOrderItem> items) {
+        if (items == null || items.isEmpty() || index.size() == 0) {
+            return;
+        }
+        Map<Long, Double> unitVolumes = unitVolumes(items);
+        for (PurchaseOrderItem item : items) {
+            if (item.getProduct() == null || item.getQuantity() == null) {
+                continue;
+            }
+            Double unitVolume = unitVolumes.get(item.getProduct().getId());
+            double volume = unitVolume != null ? unitVolume * item.getQuantity() : 0.0;
+            if (item.getSuggestedLocation() != null) {
+                resize(item, volume);
+            } else if (volume > 0) {
+                place(item, volume);
+            }
+        }
+    }
+
+    /** Reserves the volume in the best-fitting location and returns its id, or null if none fits. */
+    @Transactional
+    public Long reserve(double volume) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Long locationId = index.takeBestFit(volume);
+            if (locationId == null) {
+                return null;
+            }
+            if (locationRepository.reserveSpace(locationId, volume) == 1) {
+                afterRollback(() -> index.adjust(locationId, volume));
+                return locationId;
+            }
+            // Índice desatualizado (outra instância ocupou o espaço): relê o valor real e tenta de novo
+            locationRepository.findFreeVolume(locationId).ifPresentOrElse(
+                    location -> index.put(locationId, location.getFree()),
+                    () -> index.remove(locationId));
+        }
+        return null;
+    }
+
+    /**
+     * Gives back the space reserved for a line that will no longer arrive (removed or canceled).
+     * Only the share still to be received is returned; what already arrived keeps its room.
+     */
+    @Transactional
+    public void release(PurchaseOrderItem item) {
+        if (item.getSuggestedLocation() == null) {
+            return;
+        }
+        double reserved = reservedVolume(item);
+        double ordered = item.getQuantity() != null ? item.getQuantity() : 0.0;
+        double received = item.getReceivedQuantity() != null ? item.getReceivedQuantity() : 0.0;
+        double kept = ordered > 0 ? reserved * Math.min(1.0, received / ordered) : 0.0;
+        giveBack(item.getSuggestedLocation().getId(), reserved - kept);
+        if (kept > 0) {
+            item.setReservedVolume(kept);
+        } else {
+            item.setSuggestedLocation(null);
+            item.setReservedVolume(null);
+        }
+    }
+
+    // Pedido cancelado devolve o espaço reservado; reativado ou alterado, reserva/redimensiona de novo
+    @Transactional
+    public void orderChanged(PurchaseOrder order, PurchaseOrder.Status oldStatus) {
+        if (order.getStatus() == PurchaseOrder.Status.CANCELED) {
+            if (oldStatus != PurchaseOrder.Status.CANCELED) {
+                order.getItems().forEach(this::release);
+            }
+        } else {
+            assignLocations(order.getItems());
+        }
+    }
+
+    private void place(PurchaseOrderItem item, double volume) {
+        Long locationId = reserve(volume);
+        if (locationId != null) {
+            item.setSuggestedLocation(entityManager.getReference(WarehouseLocation.class, locationId));
+            item.setReservedVolume(volume);
+        }
+    }
+
+    // Ajusta a reserva pela diferença no mesmo local; se o aumento não couber, muda a linha de local
+    private void resize(PurchaseOrderItem item, double volume) {
+        Long locationId = item.getSuggestedLocation().getId();
+        double delta = volume - reservedVolume(item);
+        if (Math.abs(delta) < 1e-9) {
+            return;
+        }
+        if (delta < 0) {
+            giveBack(locationId, -delta);
+        } else if (locationRepository.reserveSpace(locationId, delta) == 1) {
+            index.adjust(locationId, -delta);
+            afterRollback(() -> index.adjust(locationId, delta));
+        } else {
+            giveBack(locationId, reservedVolume(item));
+            item.setSuggestedLocation(null);
+            item.setReservedVolume(null);
+            place(item, volume);
+            return;
+        }
+        if (volume > 0) {
+            item.setReservedVolume(volume);
+        } else {
+            item.setSuggestedLocation(null);
+            item.setReservedVolume(null);
+        }
+    }
+
+    private void giveBack(Long locationId, double volume) {
+        if (volume <= 0) {
+            return;
+        }
+        locationRepository.releaseSpace(locationId, volume);
+        afterCommit(() -> index.adjust(locationId, volume));
+    }
+
+    // Linhas reservadas antes de reserved_volume existir: vale o volume atual da linha
+    private static double reservedVolume(PurchaseOrderItem item) {
+        if (item.getReservedVolume() != null) {
+            return item.getReservedVolume();
+        }
+        Double unitVolume = item.getProduct() != null ? item.getProduct().getVolume() : null;
+        return unitVolume != null && item.getQuantity() != null ? unitVolume * item.getQuantity() : 0.0;
+    }
+
+    // Volumes já carregados vêm da própria entidade; os que faltam saem de uma única consulta
+    private Map<Long, Double> unitVolumes(Collection<PurchaseOrderItem> items) {
+        Map<Long, Double> volumes = new HashMap<>();
+        for (PurchaseOrderItem item : items) {
+            Product product = item.getProduct();
+            if (product != null && product.getId() != null) {
+                volumes.put(product.getId(), product.getVolume());
+            }
+        }
+        if (volumes.containsValue(null)) {
+            productRepository.findVolumes(volumes.keySet().stream()
+                            .filter(id -> volumes.get(id) == null).toList())
+                    .forEach(product -> volumes.put(product.getId(), product.getVolume()));
+        }
+        volumes.values().removeIf(Objects::isNull);
+        return volumes;
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.supply_manager.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small read-through cache: least-recently-used eviction above {@code maxSize}, entries expire
+ * {@code ttlMillis} after being loaded, and hit/miss/eviction counters are kept for metrics.
+ * Loads run outside the lock; a load that overlaps an invalidation is returned to its caller
+ * but not stored, so an invalidated value is never put back by a slower concurrent read.
+ */
+public class ReadThroughCache<K, V> {
+
+    public record Stats(String name, boolean enabled, int size, int maxSize, long ttlSeconds,
+                        long hits, long misses, long evictions, long invalidations) {}
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final String name;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public ReadThroughCache(String name, boolean enabled, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        // Ordem de acesso: o mais antigo é o menos usado recentemente
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ReadThroughCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        if (!enabled) {
+            return loader.apply(key);
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    hits.increment();
+                    return Optional.of(entry.value());
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        long loadedAt = generation.get();
+        Optional<V> loaded = loader.apply(key);
+        if (loaded.isPresent()) {
+            synchronized (this) {
+                if (generation.get() == loadedAt) {
+                    entries.put(key, new Entry<>(loaded.get(), now + ttlMillis));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(K key) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+        invalidations.increment();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(name, enabled, entries.size(), maxSize, ttlMillis / 1000,
+                hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+}
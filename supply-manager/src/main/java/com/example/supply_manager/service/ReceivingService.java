@@ -0,0 +1,89 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.repository.PurchaseOrderItemRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Goods receiving without read-modify-write: quantities are incremented in the database and the
+ * order status follows a maintained count of outstanding lines, so concurrent receipts on the same
+ * line never lose updates and the order's items are never reloaded.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReceivingService {
+
+    private final PurchaseOrderRepository orderRepository;
+    private final PurchaseOrderItemRepository itemRepository;
+    private final DashboardAggregateService dashboardAggregates;
+    private final StockLedgerService stockLedger;
+
+    @Transactional
+    public PurchaseOrder receive(Long orderId, Long itemId, double quantity) {
+        boolean completed = receiveLine(orderId, itemId, quantity);
+        applyOrderTransition(orderId, completed ? 1 : 0);
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Pedido não encontrado"));
+    }
+
+    /**
+     * Adds the quantity to one line, appends the matching IN movement to the stock ledger and
+     * reports whether this receipt is the one that completed the line.
+     * The UPDATE keeps the row locked until commit, so the state read right after it is exactly
+     * the result of this increment.
+     */
+    @Transactional
+    public boolean receiveLine(Long orderId, Long itemId, double quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantidade inválida: " + quantity);
+        }
+        // Pedidos antigos ainda sem contador: inicializa uma única vez
+        orderRepository.initOutstandingLines(orderId);
+
+        if (itemRepository.incrementReceived(orderId, itemId, quantity) == 0) {
+            throw new RuntimeException("Item não encontrado");
+        }
+        PurchaseOrderItemRepository.ReceiptState state = itemRepository.findReceiptState(itemId)
+                .orElseThrow(() -> new RuntimeException("Item não encontrado"));
+        stockLedger.receive(state.getProductId(), state.getLocationId(), quantity, state.getUnitPrice(),
+                state.getOrderCode(), itemId);
+
+        double ordered = state.getQuantity() != null ? state.getQuantity() : 0.0;
+        double after = state.getReceivedQuantity() != null ? state.getReceivedQuantity() : 0.0;
+        double before = after - quantity;
+        return ordered > 0 && before < ordered && after >= ordered;
+    }
+
+    // Transição de status em O(1): RECEIVED quando não há linhas pendentes, senão PARTIALLY_RECEIVED
+    @Transactional
+    public void applyOrderTransition(Long orderId, int completedLines) {
+        if (completedLines > 0) {
+            orderRepository.adjustOutstandingLines(orderId, -completedLines);
+            PurchaseOrderRepository.ReceivingState state = orderRepository.findReceivingState(orderId)
+                    .orElseThrow(() -> new RuntimeException("Pedido não encontrado"));
+            if (state.getOutstandingLines() != null && state.getOutstandingLines() <= 0
+                    && state.getStatus() != PurchaseOrder.Status.RECEIVED
+                    && orderRepository.markReceived(orderId, LocalDate.now()) == 1) {
+                dashboardAggregates.orderChanged(state.getStatus(), state.getTotalAmount(),
+                        PurchaseOrder.Status.RECEIVED, state.getTotalAmount());
+                return;
+            }
+        }
+
+        // Só o primeiro recebimento muda o status; os demais não tocam na linha do pedido
+        for (PurchaseOrder.Status from : new PurchaseOrder.Status[]{PurchaseOrder.Status.ISSUED, PurchaseOrder.Status.DRAFT}) {
+            if (orderRepository.transitionStatus(orderId, from, PurchaseOrder.Status.PARTIALLY_RECEIVED) == 1) {
+                Double total = orderRepository.findReceivingState(orderId)
+                        .map(PurchaseOrderRepository.ReceivingState::getTotalAmount)
+                        .orElse(null);
+                dashboardAggregates.orderChanged(from, total, PurchaseOrder.Status.PARTIALLY_RECEIVED, total);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.dto.ProductMapper;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through cache of products (as DTOs) and suppliers, the hot reference data behind product
+ * lookups and purchase order assembly. Writers evict the key immediately and again when their
+ * transaction completes, so no reader keeps a value that was replaced by a committed write.
+ * Suppliers are handed out as detached copies: callers may attach them to new orders but never
+ * change the cached instance. Disabled with {@code cache.reference.enabled=false}.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private final ProductRepository productRepository;
+    private final SupplierRepository supplierRepository;
+    private final ReadThroughCache<Long, ProductDTO> products;
+    private final ReadThroughCache<Long, Supplier> suppliers;
+
+    public ReferenceDataCache(ProductRepository productRepository,
+                              SupplierRepository supplierRepository,
+                              @Value("${cache.reference.enabled:true}") boolean enabled,
+                              @Value("${cache.reference.max-size:10000}") int maxSize,
+                              @Value("${cache.reference.ttl-seconds:300}") long ttlSeconds) {
+        this.productRepository = productRepository;
+        this.supplierRepository = supplierRepository;
+        this.products = new ReadThroughCache<>("products", enabled, maxSize, ttlSeconds * 1000);
+        this.suppliers = new ReadThroughCache<>("suppliers", enabled, maxSize, ttlSeconds * 1000);
+    }
+
+    public Optional<ProductDTO> product(Long id) {
+        return products.get(id, key -> productRepository.findById(key).map(ProductMapper::toDTO));
+    }
+
+    public Optional<Supplier> supplier(Long id) {
+        return suppliers.get(id, key -> supplierRepository.findById(key).map(ReferenceDataCache::copy))
+                .map(ReferenceDataCache::copy);
+    }
+
+    public void evictProduct(Long id) {
+        evictOnCompletion(() -> products.invalidate(id));
+    }
+
+    public void evictProducts(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            evictOnCompletion(() -> ids.forEach(products::invalidate));
+        }
+    }
+
+    public void evictSupplier(Long id) {
+        evictOnCompletion(() -> suppliers.invalidate(id));
+    }
+
+    public List<ReadThroughCache.Stats> stats() {
+        return List.of(products.stats(), suppliers.stats());
+    }
+
+    // Remove já (leituras da própria transação) e de novo no fim (leituras concorrentes de antes do commit)
+    private static void evictOnCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    // Só os campos escalares: a coleção de pedidos nunca é carregada nem compartilhada
+    private static Supplier copy(Supplier source) {
+        Supplier copy = new Supplier();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setCnpj(source.getCnpj());
+        copy.setEmail(source.getEmail());
+        copy.setAddress(source.getAddress());
+        copy.setNotes(source.getNotes());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderItemRepository;
+import com.example.supply_manager.repository.StockBalanceRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Generates DRAFT purchase orders for products whose stock position (on hand plus quantity still
+ * to be received on open orders) has fallen below their reorder point. The catalog is split into
+ * product-id partitions evaluated in parallel on a fork/join pool, each partition reading three
+ * grouped projections in its own short read-only transaction; the resulting needs are grouped by
+ * preferred supplier and written as one draft per supplier, a bounded number of lines per
+ * transaction.
+ */
+@Slf4j
+@Service
+public class ReplenishmentPlanner {
+
+    // Rascunhos também contam como em aberto: rodar o planejador de novo não duplica pedidos
+    private static final List<PurchaseOrder.Status> OPEN_STATUSES = List.of(
+            PurchaseOrder.Status.DRAFT, PurchaseOrder.Status.ISSUED, PurchaseOrder.Status.PARTIALLY_RECEIVED);
+
+    public record Need(Long productId, Long supplierId, double onHand, double onOrder,
+                       double quantity, double unitPrice) {}
+
+    public record Plan(long productsScanned, List<Need> needs) {}
+
+    public record PlanReport(long productsScanned, long productsBelowReorderPoint, long withoutSupplier,
+                             int ordersCreated, long linesCreated, long elapsedMs) {}
+
+    private final ProductRepository productRepository;
+    private final StockBalanceRepository balanceRepository;
+    private final PurchaseOrderItemRepository itemRepository;
+    private final PurchaseOrderCodeGenerator codeGenerator;
+    private final DashboardAggregateService dashboardAggregates;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int partitionSize;
+    private final int parallelism;
+    private final int linesPerTransaction;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ReplenishmentPlanner(ProductRepository productRepository,
+                                StockBalanceRepository balanceRepository,
+                                PurchaseOrderItemRepository itemRepository,
+                                PurchaseOrderCodeGenerator codeGenerator,
+                                DashboardAggregateService dashboardAggregates,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${replenishment.partition-size:5000}") int partitionSize,
+                                @Value("${replenishment.parallelism:4}") int parallelism,
+                                @Value("${replenishment.lines-per-transaction:5000}") int linesPerTransaction) {
+        this.productRepository = productRepository;
+        this.balanceRepository = balanceRepository;
+        this.itemRepository = itemRepository;
+        this.codeGenerator = codeGenerator;
+        this.dashboardAggregates = dashboardAggregates;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.partitionSize = Math.max(1, partitionSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.linesPerTransaction = Math.max(1, linesPerTransaction);
+    }
+
+    @Scheduled(cron = "${replenishment.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        try {
+            PlanReport report = run();
+            log.info("Replenishment: {} products scanned, {} drafts created with {} lines in {} ms",
+                    report.productsScanned(), report.ordersCreated(), report.linesCreated(), report.elapsedMs());
+        } catch (IllegalStateException e) {
+            log.info("Replenishment skipped: {}", e.getMessage());
+        }
+    }
+
+    public PlanReport run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Planejamento de reposição já em execução");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Plan plan = plan();
+
+            Map<Long, List<Need>> bySupplier = new TreeMap<>();
+            long withoutSupplier = 0;
+            for (Need need : plan.needs()) {
+                if (need.supplierId() == null) {
+                    withoutSupplier++;
+                } else {
+                    bySupplier.computeIfAbsent(need.supplierId(), id -> new ArrayList<>()).add(need);
+                }
+            }
+
+            long lines = 0;
+            List<Map.Entry<Long, List<Need>>> chunk = new ArrayList<>();
+            int chunkLines = 0;
+            for (Map.Entry<Long, List<Need>> supplier : bySupplier.entrySet()) {
+                if (!chunk.isEmpty() && chunkLines + supplier.getValue().size() > linesPerTransaction) {
+                    writeDrafts(chunk);
+                    chunk.clear();
+                    chunkLines = 0;
+                }
+                chunk.add(supplier);
+                chunkLines += supplier.getValue().size();
+                lines += supplier.getValue().size();
+            }
+            if (!chunk.isEmpty()) {
+                writeDrafts(chunk);
+            }
+
+            return new PlanReport(plan.productsScanned(), plan.needs().size(), withoutSupplier,
+                    bySupplier.size(), lines, System.currentTimeMillis() - start);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Só calcula: não grava nada
+    public Plan plan() {
+        ProductRepository.IdRange range = readOnlyTransaction.execute(tx -> productRepository.findReorderIdRange());
+        if (range == null || range.getMinId() == null) {
+            return new Plan(0, List.of());
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new PartitionTask(range.getMinId(), range.getMaxId()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Divide a faixa de ids ao meio até caber numa partição; cada folha lê em transação própria
+    private class PartitionTask extends RecursiveTask<Plan> {
+
+        private final long fromId;
+        private final long toId;
+
+        PartitionTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected Plan compute() {
+            if (toId - fromId < partitionSize) {
+                return readOnlyTransaction.execute(tx -> evaluate(fromId, toId));
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            PartitionTask left = new PartitionTask(fromId, middle);
+            left.fork();
+            Plan right = new PartitionTask(middle + 1, toId).compute();
+            Plan leftPlan = left.join();
+
+            List<Need> needs = new ArrayList<>(leftPlan.needs().size() + right.needs().size());
+            needs.addAll(leftPlan.needs());
+            needs.addAll(right.needs());
+            return new Plan(leftPlan.productsScanned() + right.productsScanned(), needs);
+        }
+    }
+
+    private Plan evaluate(long fromId, long toId) {
+        List<ProductRepository.ReorderCandidate> candidates = productRepository.findReorderCandidates(fromId, toId);
+        if (candidates.isEmpty()) {
+            return new Plan(0, List.of());
+        }
+        Map<Long, Double> onHand = new HashMap<>();
+        for (StockBalanceRepository.ProductQuantity row : balanceRepository.sumOnHand(fromId, toId)) {
+            onHand.put(row.getProductId(), row.getQuantity());
+        }
+        Map<Long, Double> onOrder = new HashMap<>();
+        for (PurchaseOrderItemRepository.OpenQuantity row : itemRepository.sumOpenQuantities(OPEN_STATUSES, fromId, toId)) {
+            onOrder.put(row.getProductId(), row.getQuantity());
+        }
+
+        List<Need> needs = new ArrayList<>();
+        for (ProductRepository.ReorderCandidate candidate : candidates) {
+            double stock = onHand.getOrDefault(candidate.getId(), 0.0);
+            // Linhas recebidas a mais não devem abater a necessidade de outros pedidos
+            double pending = Math.max(0.0, onOrder.getOrDefault(candidate.getId(), 0.0));
+            double position = stock + pending;
+            double reorderPoint = candidate.getReorderPoint();
+            // Estritamente abaixo: um rascunho que completa até o ponto de pedido não dispara outro
+            if (position >= reorderPoint) {
+                continue;
+            }
+            double lot = candidate.getReorderQuantity() != null ? candidate.getReorderQuantity() : 0.0;
+            double quantity = Math.max(lot, reorderPoint - position);
+            if (quantity <= 0) {
+                continue;
+            }
+            double price = candidate.getDefaultPrice() != null ? candidate.getDefaultPrice().doubleValue() : 0.0;
+            needs.add(new Need(candidate.getId(), candidate.getSupplierId(), stock, pending, quantity, price));
+        }
+        return new Plan(candidates.size(), needs);
+    }
+
+    private void writeDrafts(List<Map.Entry<Long, List<Need>>> chunk) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            double total = 0.0;
+            for (Map.Entry<Long, List<Need>> supplier : chunk) {
+                PurchaseOrder order = draft(supplier.getKey(), supplier.getValue());
+                entityManager.persist(order);
+                total += order.getTotalAmount();
+            }
+            dashboardAggregates.ordersCreated(PurchaseOrder.Status.DRAFT, chunk.size(), total);
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    // Rascunho não reserva espaço no putaway: os locais são sugeridos quando o pedido for emitido
+    private PurchaseOrder draft(Long supplierId, List<Need> needs) {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(entityManager.getReference(Supplier.class, supplierId));
+        order.setOrderDate(LocalDate.now());
+        order.setStatus(PurchaseOrder.Status.DRAFT);
+        order.setFullyReceived(false);
+        codeGenerator.assignIfMissing(order);
+
+        double total = 0.0;
+        for (Need need : needs) {
+            PurchaseOrderItem item = new PurchaseOrderItem();
+            item.setProduct(entityManager.getReference(Product.class, need.productId()));
+            item.setQuantity(need.quantity());
+            item.setUnitPrice(need.unitPrice());
+            order.addItem(item);
+            total += need.quantity() * need.unitPrice();
+        }
+        order.setTotalAmount(total);
+        order.recountOutstandingLines();
+        return order;
+    }
+}
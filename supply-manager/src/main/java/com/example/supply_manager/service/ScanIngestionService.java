@@ -0,0 +1,147 @@
+package com.example.supply_manager.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers barcode scans and applies them in micro-batches: every window the queued scans are
+ * summed per order line and written in one transaction (one increment per line), and each scan
+ * is acknowledged individually once its batch commits.
+ */
+@Slf4j
+@Service
+public class ScanIngestionService {
+
+    public record Scan(String scanId, Long orderId, Long itemId, Double quantity) {}
+
+    public record ScanAck(String scanId, Long orderId, Long itemId, boolean accepted, String message) {}
+
+    private record Pending(Scan scan, double quantity, CompletableFuture<ScanAck> ack) {}
+
+    private record LineKey(Long orderId, Long itemId) {}
+
+    // Ordem fixa das linhas dentro do lote: evita deadlock com outros recebimentos
+    private static final Comparator<LineKey> LINE_ORDER =
+            Comparator.comparing(LineKey::orderId).thenComparing(LineKey::itemId);
+
+    private final ReceivingService receivingService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final int maxQueued;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public ScanIngestionService(ReceivingService receivingService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${receiving.scan.max-batch:5000}") int maxBatch,
+                                @Value("${receiving.scan.max-queued:100000}") int maxQueued) {
+        this.receivingService = receivingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatch = maxBatch;
+        this.maxQueued = maxQueued;
+    }
+
+    public CompletableFuture<List<ScanAck>> submitAll(List<Scan> scans) {
+        List<CompletableFuture<ScanAck>> acks = scans.stream().map(this::submit).toList();
+        return CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                .thenApply(done -> acks.stream().map(CompletableFuture::join).toList());
+    }
+
+    public CompletableFuture<ScanAck> submit(Scan scan) {
+        if (scan.orderId() == null || scan.itemId() == null) {
+            return CompletableFuture.completedFuture(reject(scan, "Pedido e item são obrigatórios"));
+        }
+        double quantity = scan.quantity() != null ? scan.quantity() : 1.0;
+        if (quantity <= 0) {
+            return CompletableFuture.completedFuture(reject(scan, "Quantidade inválida: " + quantity));
+        }
+        // Back-pressure: fila cheia é recusada na hora em vez de crescer sem limite
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return CompletableFuture.completedFuture(reject(scan, "Fila de leituras cheia, tente novamente"));
+        }
+        Pending pending = new Pending(scan, quantity, new CompletableFuture<>());
+        queue.add(pending);
+        return pending.ack();
+    }
+
+    @Scheduled(fixedDelayString = "${receiving.scan.window-ms:50}")
+    public void flush() {
+        List<Pending> batch;
+        do {
+            batch = drain();
+            if (!batch.isEmpty()) {
+                apply(batch);
+            }
+        } while (batch.size() == maxBatch);
+    }
+
+    private List<Pending> drain() {
+        List<Pending> batch = new ArrayList<>();
+        Pending pending;
+        while (batch.size() < maxBatch && (pending = queue.poll()) != null) {
+            batch.add(pending);
+        }
+        queued.addAndGet(-batch.size());
+        return batch;
+    }
+
+    private void apply(List<Pending> batch) {
+        Map<LineKey, List<Pending>> byLine = new TreeMap<>(LINE_ORDER);
+        for (Pending pending : batch) {
+            byLine.computeIfAbsent(new LineKey(pending.scan().orderId(), pending.scan().itemId()),
+                    key -> new ArrayList<>()).add(pending);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> applyLines(byLine));
+            byLine.values().forEach(scans -> acknowledge(scans, true, null));
+        } catch (RuntimeException batchFailure) {
+            // Alguma linha inválida derrubou o lote: reaplica linha a linha para isolar o erro
+            log.debug("Scan batch failed, retrying per line: {}", batchFailure.getMessage());
+            for (Map.Entry<LineKey, List<Pending>> line : byLine.entrySet()) {
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> applyLines(Map.of(line.getKey(), line.getValue())));
+                    acknowledge(line.getValue(), true, null);
+                } catch (RuntimeException e) {
+                    acknowledge(line.getValue(), false, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void applyLines(Map<LineKey, List<Pending>> lines) {
+        Map<Long, Integer> completedByOrder = new TreeMap<>();
+        for (Map.Entry<LineKey, List<Pending>> line : lines.entrySet()) {
+            double quantity = line.getValue().stream().mapToDouble(Pending::quantity).sum();
+            boolean completed = receivingService.receiveLine(line.getKey().orderId(), line.getKey().itemId(), quantity);
+            completedByOrder.merge(line.getKey().orderId(), completed ? 1 : 0, Integer::sum);
+        }
+        completedByOrder.forEach(receivingService::applyOrderTransition);
+    }
+
+    private static void acknowledge(List<Pending> scans, boolean accepted, String message) {
+        for (Pending pending : scans) {
+            Scan scan = pending.scan();
+            pending.ack().complete(new ScanAck(scan.scanId(), scan.orderId(), scan.itemId(), accepted, message));
+        }
+    }
+
+    private static ScanAck reject(Scan scan, String message) {
+        return new ScanAck(scan.scanId(), scan.orderId(), scan.itemId(), false, message);
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.supply_manager.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Sparse fieldsets for list endpoints ({@code fields=id,sku,name}). A {@link Fields} definition maps
+ * the public field names of a listing to entity attributes, and only the requested columns are
+ * selected with a criteria tuple query, so unrequested ones (a product's TEXT description, say) are
+ * neither read, nor materialized as entities, nor serialized. Rows come back as ordered maps; dotted
+ * names ({@code supplier.name}) become nested objects.
+ */
+@Service
+public class SparseFieldQuery {
+
+    @FunctionalInterface
+    public interface Where<E> {
+        Predicate apply(Root<E> root, CriteriaBuilder cb);
+    }
+
+    @FunctionalInterface
+    private interface Source<E> {
+        Expression<?> apply(Root<E> root, CriteriaBuilder cb, Map<String, Join<E, ?>> joins);
+    }
+
+    private record Column<E>(Source<E> source, Function<Object, Object> converter) {}
+
+    /** Field names a listing accepts and the column behind each one. */
+    public static final class Fields<E> {
+
+        private final Class<E> entity;
+        private final Map<String, Column<E>> columns = new LinkedHashMap<>();
+
+        public Fields(Class<E> entity) {
+            this.entity = entity;
+        }
+
+        // Atributo da entidade; "a.b" navega sem join (o id de um @ManyToOne lê a própria FK)
+        public Fields<E> field(String name, String attribute) {
+            return field(name, attribute, value -> value);
+        }
+
+        public Fields<E> field(String name, String attribute, Function<Object, Object> converter) {
+            columns.put(name, new Column<>((root, cb, joins) -> path(root, attribute), converter));
+            return this;
+        }
+
+        // Atributo de uma associação por LEFT JOIN: linhas sem a associação continuam na lista
+        public Fields<E> joined(String name, String association, String attribute) {
+            columns.put(name, new Column<>((root, cb, joins) -> joins
+                    .computeIfAbsent(association, key -> root.join(key, JoinType.LEFT)).get(attribute), value -> value));
+            return this;
+        }
+
+        // Tamanho de uma coleção por subconsulta, sem carregar os elementos
+        public Fields<E> size(String name, String collection) {
+            columns.put(name, new Column<>((root, cb, joins) -> cb.size(root.<Collection<?>>get(collection)),
+                    value -> value));
+            return this;
+        }
+
+        /**
+         * Parses a {@code fields=} value in request order, without duplicates. A name that prefixes
+         * dotted fields ({@code supplier}) expands to all of them. Returns null when absent (full
+         * representation); unknown names throw IllegalArgumentException.
+         */
+        public List<String> parse(String fields) {
+            if (fields == null || fields.isBlank()) {
+                return null;
+            }
+            List<String> names = new ArrayList<>();
+            for (String raw : fields.split(",")) {
+                String name = raw.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                List<String> expanded = columns.containsKey(name)
+                        ? List.of(name)
+                        : columns.keySet().stream().filter(key -> key.startsWith(name + ".")).toList();
+                if (expanded.isEmpty()) {
+                    throw new IllegalArgumentException("Unknown field: " + name
+                            + " (allowed: " + String.join(",", columns.keySet()) + ")");
+                }
+                expanded.stream().filter(key -> !names.contains(key)).forEach(names::add);
+            }
+            if (names.isEmpty()) {
+                throw new IllegalArgumentException("No fields requested");
+            }
+            return names;
+        }
+
+        // Campos pedidos mais as chaves que o chamador precisa (cursor, por exemplo)
+        public static List<String> with(List<String> fields, String... keys) {
+            List<String> all = new ArrayList<>(fields);
+            for (String key : keys) {
+                if (!all.contains(key)) {
+                    all.add(key);
+                }
+            }
+            return all;
+        }
+
+        // Remove das linhas as chaves que só o chamador usou
+        public static void retain(List<Map<String, Object>> rows, List<String> fields) {
+            List<String> keys = fields.stream()
+                    .map(field -> field.contains(".") ? field.substring(0, field.indexOf('.')) : field)
+                    .toList();
+            for (Map<String, Object> row : rows) {
+                row.keySet().retainAll(keys);
+            }
+        }
+    }
+
+    private final EntityManager entityManager;
+
+    public SparseFieldQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /** Selects the given fields; {@code limit <= 0} means no limit. */
+    public <E> List<Map<String, Object>> list(Fields<E> definition, List<String> fields, Where<E> where,
+                                              Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<E> root = query.from(definition.entity);
+        Map<String, Join<E, ?>> joins = new HashMap<>();
+        List<Column<E>> columns = new ArrayList<>(fields.size());
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            Column<E> column = definition.columns.get(field);
+            columns.add(column);
+            selections.add(column.source().apply(root, cb, joins));
+        }
+        query.multiselect(selections);
+        if (where != null) {
+            query.where(where.apply(root, cb));
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(sort.stream()
+                    .map(order -> order.isAscending()
+                            ? cb.asc(path(root, order.getProperty()))
+                            : cb.desc(path(root, order.getProperty())))
+                    .toList());
+        }
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query).setFirstResult((int) offset);
+        if (limit > 0) {
+            typed.setMaxResults(limit);
+        }
+        List<Tuple> tuples = typed.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                Object value = tuple.get(i);
+                put(row, fields.get(i), value != null ? columns.get(i).converter().apply(value) : null);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    public <E> Page<Map<String, Object>> page(Fields<E> definition, List<String> fields, Where<E> where,
+                                              Pageable pageable) {
+        List<Map<String, Object>> rows = list(definition, fields, where, pageable.getSort(),
+                pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(definition, where));
+    }
+
+    public <E> long count(Fields<E> definition, Where<E> where) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<E> root = query.from(definition.entity);
+        query.select(cb.count(root));
+        if (where != null) {
+            query.where(where.apply(root, cb));
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Path<?> path(Root<?> root, String attribute) {
+        Path<?> path = root;
+        for (String part : attribute.split("\\.")) {
+            path = path.get(part);
+        }
+        return path;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> row, String field, Object value) {
+        int dot = field.indexOf('.');
+        if (dot < 0) {
+            row.put(field, value);
+            return;
+        }
+        Map<String, Object> nested = (Map<String, Object>) row.computeIfAbsent(field.substring(0, dot),
+                key -> new LinkedHashMap<>());
+        put(nested, field.substring(dot + 1), value);
+    }
+}
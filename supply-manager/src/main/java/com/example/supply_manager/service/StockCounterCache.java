@@ -0,0 +1,204 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.repository.StockBalanceRepository;
+import com.example.supply_manager.repository.StockMovementRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional in-process on-hand counters per (product, location), kept in thousandths of a unit in
+ * LongAdders so reads and receipts never touch the database or contend on a balance row.
+ * Committed movements are written behind to stock_balances every flush window, one UPDATE per
+ * key, together with the balance_applied flag of the movements they cover; on startup any
+ * movement still unapplied (a crash between commit and flush) is folded into the balances before
+ * the counters are loaded. Counters only see this instance's movements, so enable it on a
+ * single node only.
+ */
+@Slf4j
+@Service
+public class StockCounterCache implements SmartInitializingSingleton {
+
+    private static final Comparator<Key> KEY_ORDER =
+            Comparator.comparingLong(Key::productId).thenComparingLong(Key::locationId);
+    private static final int MARK_CHUNK = 1000;
+
+    private record Key(long productId, long locationId) {}
+
+    private record Pending(Key key, long deltaMilli, long movementId) {}
+
+    private final StockBalanceRepository balanceRepository;
+    private final StockMovementRepository movementRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private final Map<Key, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+
+    public StockCounterCache(StockBalanceRepository balanceRepository,
+                             StockMovementRepository movementRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${stock.cache.enabled:false}") boolean enabled) {
+        this.balanceRepository = balanceRepository;
+        this.movementRepository = movementRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Aquecimento antes de o servidor aceitar requisições: nenhum movimento novo concorre com ele
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            warm();
+        }
+    }
+
+    void warm() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            List<StockMovementRepository.PendingDelta> unapplied = movementRepository.sumUnapplied();
+            LocalDateTime now = LocalDateTime.now();
+            for (StockMovementRepository.PendingDelta delta : unapplied) {
+                long location = delta.getLocationId() != null ? delta.getLocationId() : 0L;
+                applyToBalance(delta.getProductId(), location, delta.getDelta(), now);
+            }
+            int movements = movementRepository.markAllApplied();
+            if (movements > 0) {
+                log.warn("Stock balances reconciled with {} unflushed ledger movements", movements);
+            }
+        });
+        counters.clear();
+        for (StockBalanceRepository.BalanceQuantity balance : balanceRepository.findAllQuantities()) {
+            counter(balance.getProductId(), balance.getLocationId()).add(toMilli(balance.getQuantity()));
+        }
+    }
+
+    public double onHand(long productId, long locationId) {
+        LongAdder counter = counters.get(new Key(productId, locationId));
+        return counter != null ? counter.sum() / 1000.0 : 0.0;
+    }
+
+    // Entrada: soma no contador e entra na fila de gravação só depois do commit
+    public void recordReceipt(long productId, long locationId, double quantity, long movementId) {
+        long milli = toMilli(quantity);
+        Key key = new Key(productId, locationId);
+        onCompletion(() -> {
+            counter(productId, locationId).add(milli);
+            pending.add(new Pending(key, milli, movementId));
+        }, null);
+    }
+
+    /**
+     * Takes the quantity out of the counter if it is available. Issuers of the same key serialize
+     * on its counter; receipts only ever add, so the check cannot be invalidated by them. The
+     * reservation is returned if the surrounding transaction rolls back.
+     */
+    public boolean tryReserve(long productId, long locationId, double quantity) {
+        long milli = toMilli(quantity);
+        LongAdder counter = counter(productId, locationId);
+        synchronized (counter) {
+            if (counter.sum() < milli) {
+                return false;
+            }
+            counter.add(-milli);
+        }
+        onCompletion(null, () -> counter.add(milli));
+        return true;
+    }
+
+    public void recordIssue(long productId, long locationId, double quantity, long movementId) {
+        Key key = new Key(productId, locationId);
+        long milli = toMilli(quantity);
+        onCompletion(() -> pending.add(new Pending(key, -milli, movementId)), null);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.cache.flush-ms:1000}")
+    public void flush() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+        List<Pending> drained = new ArrayList<>();
+        Pending next;
+        while ((next = pending.poll()) != null) {
+            drained.add(next);
+        }
+
+        Map<Key, Long> deltas = new TreeMap<>(KEY_ORDER);
+        List<Long> movementIds = new ArrayList<>(drained.size());
+        for (Pending p : drained) {
+            deltas.merge(p.key(), p.deltaMilli(), Long::sum);
+            movementIds.add(p.movementId());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                LocalDateTime now = LocalDateTime.now();
+                deltas.forEach((key, milli) -> applyToBalance(key.productId(), key.locationId(), milli / 1000.0, now));
+                for (int i = 0; i < movementIds.size(); i += MARK_CHUNK) {
+                    movementRepository.markBalanceApplied(movementIds.subList(i, Math.min(i + MARK_CHUNK, movementIds.size())));
+                }
+            });
+        } catch (RuntimeException e) {
+            // Mantém os deltas para a próxima janela; o razão continua sendo a fonte da verdade
+            pending.addAll(drained);
+            log.warn("Stock balance flush failed, retrying next window: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void applyToBalance(Long productId, Long locationId, double delta, LocalDateTime now) {
+        if (balanceRepository.increment(productId, locationId, delta, now) == 0) {
+            balanceRepository.insertIfAbsent(productId, locationId, now);
+            balanceRepository.increment(productId, locationId, delta, now);
+        }
+    }
+
+    private LongAdder counter(long productId, long locationId) {
+        return counters.computeIfAbsent(new Key(productId, locationId), key -> new LongAdder());
+    }
+
+    private static long toMilli(double quantity) {
+        return Math.round(quantity * 1000);
+    }
+
+    private static void onCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit != null) {
+                onCommit.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                Runnable action = status == STATUS_COMMITTED ? onCommit : onRollback;
+                if (action != null) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.StockBalance;
+import com.example.supply_manager.model.StockMovement;
+import com.example.supply_manager.model.WarehouseLocation;
+import com.example.supply_manager.repository.StockBalanceRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Append-only stock ledger. Every movement is one INSERT into stock_movements (batched through
+ * the pooled sequence) plus one atomic UPDATE of the matching stock_balances row, in the caller's
+ * transaction, so balances always agree with the ledger and are read by primary key. With the
+ * counter cache enabled the balance UPDATE is written behind by {@link StockCounterCache}. Each
+ * movement also updates the product's weighted-average valuation ({@link InventoryValuationService}).
+ */
+@Service
+@RequiredArgsConstructor
+public class StockLedgerService {
+
+    private final StockBalanceRepository balanceRepository;
+    private final EntityManager entityManager;
+    private final StockCounterCache counterCache;
+    private final InventoryValuationService valuation;
+
+    // Entrada sem custo (ajuste de inventário): entra ao custo médio vigente
+    @Transactional
+    public StockMovement receive(Long productId, Long locationId, double quantity, String reference, Long itemId) {
+        return receive(productId, locationId, quantity, null, reference, itemId);
+    }
+
+    @Transactional
+    public StockMovement receive(Long productId, Long locationId, double quantity, Double unitCost,
+                                 String reference, Long itemId) {
+        requirePositive(quantity);
+        long location = locationKey(locationId);
+        if (counterCache.isEnabled()) {
+            valuation.receive(productId, quantity, unitCost);
+            StockMovement movement = append(StockMovement.MovementType.IN, productId, locationId, quantity, unitCost,
+                    reference, itemId, false);
+            counterCache.recordReceipt(productId, location, quantity, movement.getId());
+            return movement;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (balanceRepository.increment(productId, location, quantity, now) == 0) {
+            balanceRepository.insertIfAbsent(productId, location, now);
+            balanceRepository.increment(productId, location, quantity, now);
+        }
+        // Avaliação depois do saldo: mesma ordem de bloqueio das saídas
+        valuation.receive(productId, quantity, unitCost);
+        return append(StockMovement.MovementType.IN, productId, locationId, quantity, unitCost, reference, itemId, true);
+    }
+
+    @Transactional
+    public StockMovement issue(Long productId, Long locationId, double quantity, String reference) {
+        requirePositive(quantity);
+        long location = locationKey(locationId);
+        if (counterCache.isEnabled()) {
+            if (!counterCache.tryReserve(productId, location, quantity)) {
+                throw new IllegalStateException("Saldo insuficiente para o produto " + productId);
+            }
+            StockMovement movement = append(StockMovement.MovementType.OUT, productId, locationId, quantity,
+                    valuation.issue(productId, quantity), reference, null, false);
+            counterCache.recordIssue(productId, location, quantity, movement.getId());
+            return movement;
+        }
+        if (balanceRepository.decrementIfAvailable(productId, location, quantity, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Saldo insuficiente para o produto " + productId);
+        }
+        return append(StockMovement.MovementType.OUT, productId, locationId, quantity,
+                valuation.issue(productId, quantity), reference, null, true);
+    }
+
+    public double onHand(Long productId, Long locationId) {
+        if (counterCache.isEnabled()) {
+            return counterCache.onHand(productId, locationKey(locationId));
+        }
+        return balanceRepository.findById(new StockBalance.Key(productId, locationKey(locationId)))
+                .map(StockBalance::getQuantity)
+                .orElse(0.0);
+    }
+
+    public List<StockBalance> balancesOf(Long productId) {
+        return balanceRepository.findByProductId(productId);
+    }
+
+    private StockMovement append(StockMovement.MovementType type, Long productId, Long locationId,
+                                 double quantity, Double unitCost, String reference, Long itemId,
+                                 boolean balanceApplied) {
+        StockMovement movement = new StockMovement();
+        movement.setType(type);
+        movement.setProduct(entityManager.getReference(Product.class, productId));
+        if (locationId != null) {
+            movement.setLocation(entityManager.getReference(WarehouseLocation.class, locationId));
+        }
+        if (itemId != null) {
+            movement.setPurchaseOrderItem(entityManager.getReference(PurchaseOrderItem.class, itemId));
+        }
+        movement.setQuantity(quantity);
+        movement.setUnitCost(unitCost);
+        movement.setReference(reference);
+        movement.setBalanceApplied(balanceApplied);
+        entityManager.persist(movement);
+        return movement;
+    }
+
+    private static long locationKey(Long locationId) {
+        return locationId != null ? locationId : StockBalance.NO_LOCATION;
+    }
+
+    private static void requirePositive(double quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantidade inválida: " + quantity);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.StockSnapshot;
+import com.example.supply_manager.model.StockSnapshotLine;
+import com.example.supply_manager.repository.ArchivedStockMovementRepository;
+import com.example.supply_manager.repository.StockBalanceRepository;
+import com.example.supply_manager.repository.StockMovementRepository;
+import com.example.supply_manager.repository.StockSnapshotLineRepository;
+import com.example.supply_manager.repository.StockSnapshotRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Point-in-time stock. Snapshots checkpoint the balance of every (product, location) as of a
+ * cutoff date, each built from the previous one plus the movements in between; an as-of query
+ * loads the nearest earlier snapshot and replays only the movements after it, so its cost is
+ * bounded by the snapshot interval rather than by the size of the ledger. Movements older than
+ * the retention window and already covered by a snapshot are moved to stock_movements_archive.
+ */
+@Slf4j
+@Service
+public class StockSnapshotService {
+
+    private static final int BATCH = 500;
+
+    public record Balance(Long productId, Long locationId, double quantity) {}
+
+    private record Key(long productId, long locationId) {}
+
+    private static final Comparator<Key> KEY_ORDER =
+            Comparator.comparingLong(Key::productId).thenComparingLong(Key::locationId);
+
+    private final StockSnapshotRepository snapshotRepository;
+    private final StockSnapshotLineRepository lineRepository;
+    private final StockMovementRepository movementRepository;
+    private final ArchivedStockMovementRepository archiveRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final long settleSeconds;
+    private final int retentionDays;
+
+    public StockSnapshotService(StockSnapshotRepository snapshotRepository,
+                                StockSnapshotLineRepository lineRepository,
+                                StockMovementRepository movementRepository,
+                                ArchivedStockMovementRepository archiveRepository,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${stock.snapshot.settle-seconds:60}") long settleSeconds,
+                                @Value("${stock.archive.retention-days:365}") int retentionDays) {
+        this.snapshotRepository = snapshotRepository;
+        this.lineRepository = lineRepository;
+        this.movementRepository = movementRepository;
+        this.archiveRepository = archiveRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settleSeconds = settleSeconds;
+        this.retentionDays = retentionDays;
+    }
+
+    // O corte fica um pouco no passado: movimentos ainda em transação entram no próximo snapshot
+    @Scheduled(cron = "${stock.snapshot.cron:0 30 0 * * *}")
+    public void scheduledSnapshot() {
+        takeSnapshot();
+    }
+
+    public StockSnapshot takeSnapshot() {
+        return takeSnapshot(LocalDateTime.now().minusSeconds(settleSeconds));
+    }
+
+    public StockSnapshot takeSnapshot(LocalDateTime cutoff) {
+        return transactionTemplate.execute(tx -> {
+            StockSnapshot previous = snapshotRepository.findFirstByOrderByCutoffDesc().orElse(null);
+            if (previous != null && !cutoff.isAfter(previous.getCutoff())) {
+                return previous;
+            }
+            Map<Key, Double> balances = replay(previous, cutoff, null);
+
+            StockSnapshot snapshot = new StockSnapshot();
+            snapshot.setCutoff(cutoff);
+            snapshot.setCreatedAt(LocalDateTime.now());
+            snapshot.setLineCount(balances.size());
+            entityManager.persist(snapshot);
+
+            int pending = 0;
+            for (Map.Entry<Key, Double> balance : balances.entrySet()) {
+                entityManager.persist(new StockSnapshotLine(snapshot.getId(), balance.getKey().productId(),
+                        balance.getKey().locationId(), balance.getValue()));
+                if (++pending % BATCH == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            log.info("Stock snapshot {} taken at {} with {} lines", snapshot.getId(), cutoff, balances.size());
+            return snapshot;
+        });
+    }
+
+    public List<Balance> asOf(LocalDateTime at, Long productId) {
+        StockSnapshot snapshot = snapshotRepository.findFirstByCutoffLessThanEqualOrderByCutoffDesc(at).orElse(null);
+        List<Balance> result = new ArrayList<>();
+        replay(snapshot, at, productId).forEach((key, quantity) -> result.add(
+                new Balance(key.productId(), key.locationId() == 0L ? null : key.locationId(), quantity)));
+        return result;
+    }
+
+    // Snapshot anterior (ou zero) + movimentos em (snapshot.cutoff, to], inclusive os arquivados
+    private Map<Key, Double> replay(StockSnapshot base, LocalDateTime to, Long productId) {
+        Map<Key, Double> balances = new TreeMap<>(KEY_ORDER);
+        LocalDateTime from = null;
+        if (base != null) {
+            from = base.getCutoff();
+            for (StockBalanceRepository.BalanceQuantity line : lineRepository.findQuantities(base.getId(), productId)) {
+                balances.put(new Key(line.getProductId(), line.getLocationId()), line.getQuantity());
+            }
+        }
+        List<StockMovementRepository.PendingDelta> deltas = new ArrayList<>(movementRepository.sumBetween(from, to, productId));
+        deltas.addAll(archiveRepository.sumBetween(from, to, productId));
+        for (StockMovementRepository.PendingDelta delta : deltas) {
+            long location = delta.getLocationId() != null ? delta.getLocationId() : 0L;
+            balances.merge(new Key(delta.getProductId(), location), delta.getDelta(), Double::sum);
+        }
+        balances.values().removeIf(quantity -> Math.abs(quantity) < 1e-9);
+        return balances;
+    }
+
+    @Scheduled(cron = "${stock.archive.cron:0 0 2 * * SUN}")
+    public void scheduledArchive() {
+        archive(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    /**
+     * Moves movements dated before the given instant to the archive table, in batches of their own
+     * transaction. Only movements already covered by a snapshot are moved, so new snapshots never
+     * need the archive.
+     */
+    public long archive(LocalDateTime before) {
+        LocalDateTime covered = snapshotRepository.findFirstByOrderByCutoffDesc()
+                .map(StockSnapshot::getCutoff)
+                .orElse(null);
+        if (covered == null) {
+            return 0;
+        }
+        LocalDateTime limit = before.isBefore(covered) ? before : covered;
+        long archived = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(tx -> {
+                List<Long> ids = movementRepository.findArchivableIds(limit, PageRequest.of(0, BATCH));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                archiveRepository.copyFromLedger(ids);
+                return movementRepository.deleteByIdIn(ids);
+            });
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+        }
+        if (archived > 0) {
+            log.info("Archived {} stock movements dated before {}", archived, limit);
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.supply_manager.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact prefix index for typeahead. Every word start of every entry's text is a suffix in one
+ * sorted array of (document, offset) pairs over the shared normalized strings, so a prefix is a
+ * binary search away and the suggestions are the first {@code k} distinct documents after it.
+ * Writes since the last compaction go to a small sorted overlay that is merged in at query time;
+ * replaced entries are tombstoned until the overlay outgrows a fraction of the array and both are
+ * rebuilt into a new array. The rebuild sorts a snapshot outside the lock; only the swap, which
+ * replays the writes made meanwhile, holds the write lock.
+ */
+public class TypeaheadIndex {
+
+    public record Suggestion(long id, String label) {}
+
+    // Entrada da carga inicial: texto pesquisável e o rótulo devolvido ao cliente
+    public record Entry(long id, String label, String text) {}
+
+    private record Snapshot(long generation, long[] ids, String[] labels, String[] texts, int documents,
+                            BitSet dead) {}
+
+    private record Compacted(long[] ids, String[] labels, String[] texts, int documents, int[] remap,
+                             Map<Long, Integer> docById, int[] suffixDocs, int[] suffixOffsets) {}
+
+    private static final int MIN_OVERLAY = 1024;
+    private static final int OVERLAY_FRACTION = 8;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private long[] ids = new long[16];
+    private String[] labels = new String[16];
+    private String[] texts = new String[16];
+    private int documents;
+    private BitSet dead = new BitSet();
+    private Map<Long, Integer> docById = new HashMap<>();
+
+    // Sufixos ordenados: documento e posição do início da palavra no texto normalizado
+    private int[] suffixDocs = new int[0];
+    private int[] suffixOffsets = new int[0];
+    // "texto a partir da palavra\0documento" -> documento, para o que foi escrito desde a compactação
+    private final TreeMap<String, Integer> overlay = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Compactação em andamento fora do lock; a carga completa invalida a que estiver em curso
+    private boolean compacting;
+    private long generation;
+
+    /** Replaces the whole content and builds the sorted array in one pass. */
+    public void load(List<Entry> entries) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            compacting = false;
+            ids = new long[Math.max(16, entries.size())];
+            labels = new String[ids.length];
+            texts = new String[ids.length];
+            documents = 0;
+            dead = new BitSet();
+            docById = new HashMap<>();
+            overlay.clear();
+            for (Entry entry : entries) {
+                removeLocked(entry.id());
+                append(entry.id(), entry.label(), normalize(entry.text()));
+            }
+            Snapshot snapshot = snapshotLocked();
+            install(snapshot, build(snapshot));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(long id, String label, String text) {
+        String normalized = normalize(text);
+        Snapshot snapshot = null;
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int doc = append(id, label, normalized);
+            for (int offset : wordStarts(normalized)) {
+                overlay.put(normalized.substring(offset) + KEY_SEPARATOR + doc, doc);
+            }
+            if (!compacting && overlay.size() > Math.max(MIN_OVERLAY, suffixDocs.length / OVERLAY_FRACTION)) {
+                compacting = true;
+                snapshot = snapshotLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (snapshot != null) {
+            compact(snapshot);
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries having a word (or consecutive words) that starts with the
+     * prefix, in alphabetical order of the matched text, so shorter completions come first.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<Suggestion> result = new ArrayList<>(Math.max(0, limit));
+        if (limit <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            Set<Integer> seen = new HashSet<>();
+            int position = lowerBound(normalized);
+            Iterator<Map.Entry<String, Integer>> pending =
+                    overlay.subMap(normalized, normalized + Character.MAX_VALUE).entrySet().iterator();
+            Map.Entry<String, Integer> next = pending.hasNext() ? pending.next() : null;
+            String nextText = next != null ? overlayText(next.getKey()) : null;
+            while (result.size() < limit) {
+                boolean baseMatches = position < suffixDocs.length
+                        && texts[suffixDocs[position]].startsWith(normalized, suffixOffsets[position]);
+                if (!baseMatches && next == null) {
+                    break;
+                }
+                int doc;
+                // Intercala array e overlay na ordem alfabética do texto casado
+                if (baseMatches && (next == null
+                        || compareRegions(texts[suffixDocs[position]], suffixOffsets[position], nextText, 0) <= 0)) {
+                    doc = suffixDocs[position++];
+                } else {
+                    doc = next.getValue();
+                    next = pending.hasNext() ? pending.next() : null;
+                    nextText = next != null ? overlayText(next.getKey()) : null;
+                }
+                if (!dead.get(doc) && seen.add(doc)) {
+                    result.add(new Suggestion(ids[doc], labels[doc]));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private int append(long id, String label, String normalized) {
+        if (documents == ids.length) {
+            ids = Arrays.copyOf(ids, documents * 2);
+            labels = Arrays.copyOf(labels, documents * 2);
+            texts = Arrays.copyOf(texts, documents * 2);
+        }
+        int doc = documents++;
+        ids[doc] = id;
+        labels[doc] = label;
+        texts[doc] = normalized;
+        docById.put(id, doc);
+        return doc;
+    }
+
+    private void removeLocked(long id) {
+        Integer previous = docById.remove(id);
+        if (previous != null) {
+            dead.set(previous);
+        }
+    }
+
+    // Documentos até "documents" nunca mudam de lugar (append só escreve adiante): basta guardar as
+    // referências dos arrays e uma cópia dos tombstones
+    private Snapshot snapshotLocked() {
+        return new Snapshot(generation, ids, labels, texts, documents, (BitSet) dead.clone());
+    }
+
+    private void compact(Snapshot snapshot) {
+        Compacted built = null;
+        try {
+            built = build(snapshot);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (snapshot.generation() == generation) {
+                    if (built != null) {
+                        install(snapshot, built);
+                    }
+                    compacting = false;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Renumera os documentos vivos do snapshot e ordena todos os seus sufixos, sem lock
+    private static Compacted build(Snapshot snapshot) {
+        int[] remap = new int[snapshot.documents()];
+        int live = 0;
+        int suffixes = 0;
+        for (int doc = 0; doc < snapshot.documents(); doc++) {
+            if (snapshot.dead().get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = live++;
+                suffixes += wordStarts(snapshot.texts()[doc]).length;
+            }
+        }
+        long[] ids = new long[Math.max(16, live * 2)];
+        String[] labels = new String[ids.length];
+        String[] texts = new String[ids.length];
+        Map<Long, Integer> docById = new HashMap<>(live * 2);
+        int[] docs = new int[suffixes];
+        int[] offsets = new int[suffixes];
+        int next = 0;
+        for (int doc = 0; doc < snapshot.documents(); doc++) {
+            int moved = remap[doc];
+            if (moved < 0) {
+                continue;
+            }
+            ids[moved] = snapshot.ids()[doc];
+            labels[moved] = snapshot.labels()[doc];
+            texts[moved] = snapshot.texts()[doc];
+            docById.put(ids[moved], moved);
+            for (int offset : wordStarts(texts[moved])) {
+                docs[next] = moved;
+                offsets[next] = offset;
+                next++;
+            }
+        }
+        int[] order = sortSuffixes(docs, offsets, texts);
+        int[] suffixDocs = new int[suffixes];
+        int[] suffixOffsets = new int[suffixes];
+        for (int i = 0; i < suffixes; i++) {
+            suffixDocs[i] = docs[order[i]];
+            suffixOffsets[i] = offsets[order[i]];
+        }
+        return new Compacted(ids, labels, texts, live, remap, docById, suffixDocs, suffixOffsets);
+    }
+
+    // Troca pelo array novo e reaplica o que mudou desde o snapshot: remoções viram tombstones,
+    // documentos novos voltam para o overlay
+    private void install(Snapshot snapshot, Compacted built) {
+        long[] previousIds = ids;
+        String[] previousLabels = labels;
+        String[] previousTexts = texts;
+        BitSet previousDead = dead;
+        int previousDocuments = documents;
+
+        ids = built.ids();
+        labels = built.labels();
+        texts = built.texts();
+        documents = built.documents();
+        docById = built.docById();
+        dead = new BitSet();
+        overlay.clear();
+        suffixDocs = built.suffixDocs();
+        suffixOffsets = built.suffixOffsets();
+
+        for (int doc = previousDead.nextSetBit(0); doc >= 0 && doc < snapshot.documents();
+             doc = previousDead.nextSetBit(doc + 1)) {
+            if (!snapshot.dead().get(doc)) {
+                int moved = built.remap()[doc];
+                dead.set(moved);
+                docById.remove(ids[moved]);
+            }
+        }
+        for (int doc = snapshot.documents(); doc < previousDocuments; doc++) {
+            if (previousDead.get(doc)) {
+                continue;
+            }
+            String normalized = previousTexts[doc];
+            int moved = append(previousIds[doc], previousLabels[doc], normalized);
+            for (int offset : wordStarts(normalized)) {
+                overlay.put(normalized.substring(offset) + KEY_SEPARATOR + moved, moved);
+            }
+        }
+    }
+
+    // Merge sort de baixo para cima sobre índices int (sem Integer boxed); estável, então empates
+    // ficam na ordem dos documentos
+    private static int[] sortSuffixes(int[] docs, int[] offsets, String[] texts) {
+        int count = docs.length;
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int low = 0; low < count; low += 2 * width) {
+                int middle = Math.min(low + width, count);
+                int high = Math.min(low + 2 * width, count);
+                int left = low;
+                int right = middle;
+                int out = low;
+                while (left < middle && right < high) {
+                    int a = order[left];
+                    int b = order[right];
+                    buffer[out++] = compareRegions(texts[docs[a]], offsets[a], texts[docs[b]], offsets[b]) <= 0
+                            ? order[left++] : order[right++];
+                }
+                while (left < middle) {
+                    buffer[out++] = order[left++];
+                }
+                while (right < high) {
+                    buffer[out++] = order[right++];
+                }
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    // Primeiro sufixo >= prefixo (busca binária sobre o array ordenado)
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = suffixDocs.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareRegions(texts[suffixDocs[middle]], suffixOffsets[middle], prefix, 0) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static String overlayText(String overlayKey) {
+        return overlayKey.substring(0, overlayKey.lastIndexOf(KEY_SEPARATOR));
+    }
+
+    private static int compareRegions(String left, int leftOffset, String right, int rightOffset) {
+        int leftLength = left.length() - leftOffset;
+        int rightLength = right.length() - rightOffset;
+        int common = Math.min(leftLength, rightLength);
+        for (int i = 0; i < common; i++) {
+            char a = left.charAt(leftOffset + i);
+            char b = right.charAt(rightOffset + i);
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return leftLength - rightLength;
+    }
+
+    private static int[] wordStarts(String normalized) {
+        int count = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                count++;
+            }
+        }
+        int[] starts = new int[count];
+        int next = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                starts[next++] = i;
+            }
+        }
+        return starts;
+    }
+
+    // Mesma normalização da busca, com as palavras separadas por um único espaço
+    static String normalize(String value) {
+        return String.join(" ", ProductSearchIndex.normalize(value).split("[^\\p{Alnum}]+")).trim();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead suggestions (id and display label) for active products, by SKU or name, and for
+ * suppliers, by name or CNPJ digits. Both {@link TypeaheadIndex}es are loaded once on startup and
+ * then kept current by applying each product or supplier write after its transaction commits.
+ */
+@Slf4j
+@Service
+public class TypeaheadService {
+
+    public enum Scope { ALL, PRODUCTS, SUPPLIERS }
+
+    public record Suggestions(List<TypeaheadIndex.Suggestion> products,
+                              List<TypeaheadIndex.Suggestion> suppliers,
+                              long serverMicros) {}
+
+    // label nulo = remover
+    private record Change(boolean product, long id, String label, String text) {}
+
+    private final ProductRepository productRepository;
+    private final SupplierRepository supplierRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Object writeLock = new Object();
+
+    private volatile TypeaheadIndex products = new TypeaheadIndex();
+    private volatile TypeaheadIndex suppliers = new TypeaheadIndex();
+    // Escritas que chegam durante a carga: reaplicadas nos índices novos antes da troca
+    private List<Change> journal;
+
+    public TypeaheadService(ProductRepository productRepository,
+                            SupplierRepository supplierRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.supplierRepository = supplierRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        synchronized (writeLock) {
+            journal = new ArrayList<>();
+        }
+        TypeaheadIndex freshProducts = new TypeaheadIndex();
+        TypeaheadIndex freshSuppliers = new TypeaheadIndex();
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                List<TypeaheadIndex.Entry> entries = new ArrayList<>();
+                try (Stream<ProductRepository.SearchRow> rows = productRepository.streamSearchRows()) {
+                    rows.filter(row -> Boolean.TRUE.equals(row.getActive()))
+                            .forEach(row -> entries.add(new TypeaheadIndex.Entry(row.getId(),
+                                    productLabel(row.getSku(), row.getName()), productText(row.getSku(), row.getName()))));
+                }
+                freshProducts.load(entries);
+                freshSuppliers.load(supplierRepository.findTypeaheadRows().stream()
+                        .map(row -> new TypeaheadIndex.Entry(row.getId(), row.getName(),
+                                supplierText(row.getName(), row.getCnpj())))
+                        .toList());
+            });
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                journal = null;
+            }
+            throw e;
+        }
+        synchronized (writeLock) {
+            journal.forEach(change -> apply(change, freshProducts, freshSuppliers));
+            journal = null;
+            products = freshProducts;
+            suppliers = freshSuppliers;
+        }
+        log.debug("Typeahead loaded with {} products and {} suppliers", freshProducts.size(), freshSuppliers.size());
+    }
+
+    public Suggestions suggest(String query, Scope scope, int limit) {
+        long start = System.nanoTime();
+        List<TypeaheadIndex.Suggestion> productHits = scope == Scope.SUPPLIERS ? List.of() : products.suggest(query, limit);
+        List<TypeaheadIndex.Suggestion> supplierHits = scope == Scope.PRODUCTS ? List.of() : suppliers.suggest(query, limit);
+        return new Suggestions(productHits, supplierHits, (System.nanoTime() - start) / 1000);
+    }
+
+    /** Re-indexes the product after commit; inactive products leave the suggestions. */
+    public void productAfterCommit(Product product) {
+        afterCommit(List.of(productChange(product.getId(), product.getSku(), product.getName(), product.isActive())));
+    }
+
+    // Lote (importação): uma única sincronização para todas as linhas do chunk
+    public void productsAfterCommit(List<Product> products) {
+        afterCommit(products.stream()
+                .map(product -> productChange(product.getId(), product.getSku(), product.getName(), product.isActive()))
+                .toList());
+    }
+
+    public void supplierAfterCommit(Supplier supplier) {
+        afterCommit(List.of(new Change(false, supplier.getId(), supplier.getName(),
+                supplierText(supplier.getName(), supplier.getCnpj()))));
+    }
+
+    public void supplierRemovedAfterCommit(Long id) {
+        afterCommit(List.of(new Change(false, id, null, null)));
+    }
+
+    private void afterCommit(List<Change> changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changes.forEach(this::applyCurrent);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changes.forEach(TypeaheadService.this::applyCurrent);
+            }
+        });
+    }
+
+    private void applyCurrent(Change change) {
+        synchronized (writeLock) {
+            apply(change, products, suppliers);
+            if (journal != null) {
+                journal.add(change);
+            }
+        }
+    }
+
+    private static void apply(Change change, TypeaheadIndex productIndex, TypeaheadIndex supplierIndex) {
+        TypeaheadIndex index = change.product() ? productIndex : supplierIndex;
+        if (change.label() == null) {
+            index.remove(change.id());
+        } else {
+            index.put(change.id(), change.label(), change.text());
+        }
+    }
+
+    private static Change productChange(long id, String sku, String name, boolean active) {
+        return new Change(true, id, active ? productLabel(sku, name) : null, productText(sku, name));
+    }
+
+    private static String productLabel(String sku, String name) {
+        return sku == null || sku.isBlank() ? name : name + " (" + sku + ")";
+    }
+
+    private static String productText(String sku, String name) {
+        return (sku != null ? sku : "") + " " + (name != null ? name : "");
+    }
+
+    // CNPJ só com dígitos: "12345678" acha "12.345.678/0001-90"
+    private static String supplierText(String name, String cnpj) {
+        return (name != null ? name : "") + " " + (cnpj != null ? cnpj.replaceAll("\\D", "") : "");
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.repository.UserRepository;
+import com.example.supply_manager.service.JwtService;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class AdminEndpointSecurityTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter securityFilterChain;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private MockMvc mockMvc;
+
+    // Mesmo contexto dos outros testes (um segundo contexto recriaria o schema do H2 compartilhado)
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(securityFilterChain).build();
+    }
+
+    // Usuários criados pelo DataInitializer
+    @Test
+    void dashboardRebuildIsAdminOnly() throws Exception {
+        String user = bearer("usuario");
+        mockMvc.perform(as(get("/api/dashboard"), user)).andExpect(status().isOk());
+        mockMvc.perform(as(post("/api/dashboard/rebuild"), user)).andExpect(status().isForbidden());
+        mockMvc.perform(as(post("/api/dashboard/rebuild"), bearer("admin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void replenishmentRunIsAdminOnly() throws Exception {
+        mockMvc.perform(as(post("/api/replenishment/run"), bearer("usuario"))).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void stockSnapshotIsAdminOnly() throws Exception {
+        mockMvc.perform(as(post("/api/stock/snapshots"), bearer("usuario"))).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void stockRevalueIsAdminOnly() throws Exception {
+        mockMvc.perform(as(post("/api/stock/valuation/revalue"), bearer("usuario"))).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void dashboardCacheStatsAreAdminOnly() throws Exception {
+        mockMvc.perform(as(get("/api/dashboard/cache"), bearer("usuario"))).andExpect(status().isForbidden());
+        mockMvc.perform(as(get("/api/dashboard/cache"), bearer("admin"))).andExpect(status().isOk());
+    }
+
+    private String bearer(String username) {
+        return "Bearer " + jwtService.generateToken(userRepository.findByUsername(username).orElseThrow());
+    }
+
+    private static MockHttpServletRequestBuilder as(MockHttpServletRequestBuilder request, String authorization) {
+        return request.header(HttpHeaders.AUTHORIZATION, authorization);
+    }
+}
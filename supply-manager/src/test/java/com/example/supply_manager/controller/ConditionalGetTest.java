@@ -0,0 +1,198 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ConditionalGetTest {
+
+    @Autowired
+    private ProductController productController;
+
+    @Autowired
+    private SupplierController supplierController;
+
+    @Autowired
+    private PurchaseController purchaseController;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void productAndCatalogAnswerNotModifiedUntilAWrite() {
+        ProductDTO dto = new ProductDTO();
+        dto.setSku("ETAG-" + System.nanoTime());
+        dto.setName("Antes");
+        Long id = productService.createProduct(dto).getId();
+
+        String tag = get(null, request -> productController.getProductById(id, request)).tag();
+        assertNotNull(tag);
+        assertEquals(304, get(tag, request -> productController.getProductById(id, request)).status());
+
+        String listTag = get(null, request -> productController.getAllProducts(PageRequest.of(0, 10), null, false, null, request)).tag();
+        assertEquals(304, get(listTag,
+                request -> productController.getAllProducts(PageRequest.of(0, 10), null, false, null, request)).status());
+        // Outra página é outro recurso
+        assertEquals(200, get(listTag,
+                request -> productController.getAllProducts(PageRequest.of(1, 10), null, false, null, request)).status());
+
+        dto.setName("Depois");
+        productService.updateProduct(id, dto);
+        Response changed = get(tag, request -> productController.getProductById(id, request));
+        assertEquals(200, changed.status());
+        assertNotEquals(tag, changed.tag());
+        assertEquals(200, get(listTag,
+                request -> productController.getAllProducts(PageRequest.of(0, 10), null, false, null, request)).status());
+    }
+
+    @Test
+    void catalogValidatorDoesNotCountTheProductTable() {
+        Function<ServletWebRequest, ResponseEntity<?>> firstCursorPage =
+                request -> productController.getAllProducts(PageRequest.of(0, 10), "", true, null, request);
+        String tag = get(null, firstCursorPage).tag();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        assertEquals(304, get(tag, firstCursorPage).status());
+        for (String query : statistics.getQueries()) {
+            assertFalse(query.toUpperCase().contains("COUNT("), query);
+        }
+
+        // Produto novo: o contador mantido muda o validador
+        ProductDTO dto = new ProductDTO();
+        dto.setSku("ETAG-NEW-" + System.nanoTime());
+        dto.setName("Novo");
+        productService.createProduct(dto);
+        assertEquals(200, get(tag, firstCursorPage).status());
+    }
+
+    @Test
+    void supplierAnswersNotModifiedUntilAWrite() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Fornecedor ETag");
+        Long id = supplierController.create(supplier).getId();
+
+        Response first = get(null, request -> supplierController.getById(id, request));
+        assertEquals(304, get(first.tag(), request -> supplierController.getById(id, request)).status());
+
+        Supplier renamed = supplierController.getById(id, get()).getBody();
+        renamed.setName("Fornecedor ETag renomeado");
+        supplierController.update(id, renamed);
+        assertEquals(200, get(first.tag(), request -> supplierController.getById(id, request)).status());
+    }
+
+    @Test
+    void purchaseNotModifiedSkipsLoadingTheOrder() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Fornecedor do pedido");
+        supplier = supplierController.create(supplier);
+        Product product = new Product();
+        product.setSku("ETAG-PO-" + System.nanoTime());
+        product.setName("Item do pedido");
+        product.setPreferredSupplier(supplier);
+        product = productRepository.save(product);
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(supplier);
+        order.setStatus(PurchaseOrder.Status.ISSUED);
+        PurchaseOrderItem item = new PurchaseOrderItem();
+        item.setProduct(product);
+        item.setQuantity(2.0);
+        item.setUnitPrice(3.0);
+        order.addItem(item);
+        order.setTotalAmount(6.0);
+        Long id = orderRepository.save(order).getId();
+        Long itemId = order.getItems().get(0).getId();
+
+        // Validador calculado do grafo carregado == validador do SELECT agregado
+        String tag = getPurchase(null, id).tag();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        assertEquals(304, getPurchase(tag, id).status());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        // Produto do pedido alterado: o corpo muda, o validador também
+        product.setName("Item renomeado");
+        productRepository.save(product);
+        String afterProduct = getPurchase(tag, id).tag();
+        assertNotEquals(tag, afterProduct);
+
+        // Alteração só no item (mesmo total) também avança o pedido
+        PurchaseController.PurchaseItemRequest patch = new PurchaseController.PurchaseItemRequest();
+        patch.unitPrice = 3.0;
+        purchaseController.updateItem(id, itemId, patch);
+        String afterItem = getPurchase(afterProduct, id).tag();
+        assertNotEquals(afterProduct, afterItem);
+
+        // Transição de status por UPDATE em JPQL (recebimento)
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> orderRepository.transitionStatus(
+                id, PurchaseOrder.Status.ISSUED, PurchaseOrder.Status.PARTIALLY_RECEIVED));
+        Response afterStatus = getPurchase(afterItem, id);
+        assertEquals(200, afterStatus.status());
+        assertNotEquals(afterItem, afterStatus.tag());
+    }
+
+    private record Response(int status, String tag) {}
+
+    // Serializa dentro de uma transação, como o open-in-view faz na requisição real
+    private Response getPurchase(String ifNoneMatch, Long id) {
+        return new TransactionTemplate(transactionManager).execute(tx ->
+                get(ifNoneMatch, request -> purchaseController.getById(id, request)));
+    }
+
+    private static Response get(String ifNoneMatch, Function<ServletWebRequest, ResponseEntity<?>> handler) {
+        ServletWebRequest request = get();
+        if (ifNoneMatch != null) {
+            ((MockHttpServletRequest) request.getRequest()).addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        ResponseEntity<?> entity = handler.apply(request);
+        MockHttpServletResponse response = (MockHttpServletResponse) request.getResponse();
+        if (entity == null) {
+            assertEquals(304, response.getStatus());
+            return new Response(304, response.getHeader(HttpHeaders.ETAG));
+        }
+        assertNotNull(entity.getBody());
+        return new Response(entity.getStatusCode().value(), response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private static ServletWebRequest get() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.repository.UserRepository;
+import com.example.supply_manager.service.DashboardAggregateService;
+import com.example.supply_manager.service.DashboardStreamService;
+import com.example.supply_manager.service.JwtService;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+class DashboardStreamTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter securityFilterChain;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DashboardAggregateService aggregateService;
+
+    @Autowired
+    private DashboardStreamService streamService;
+
+    @Test
+    void streamSendsSnapshotOnConnectAndDeltaAfterAWrite() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(securityFilterChain).build();
+        String token = jwtService.generateToken(userRepository.findByUsername("usuario").orElseThrow());
+        int subscribers = streamService.subscriberCount();
+
+        MvcResult result = mockMvc.perform(get("/api/dashboard/stream")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = result.getResponse();
+        assertEquals(subscribers + 1, streamService.subscriberCount());
+        String snapshot = response.getContentAsString();
+        assertTrue(snapshot.startsWith("event:snapshot\ndata:{"), snapshot);
+        assertTrue(snapshot.contains("\"fornecedores\":"), snapshot);
+
+        // A escrita só marca o stream; o flush (agendado ou este) envia o delta
+        aggregateService.supplierCreated();
+        streamService.flush();
+        String content = response.getContentAsString();
+        assertTrue(content.contains("event:delta\ndata:{"), content);
+        assertTrue(content.substring(content.indexOf("event:delta")).contains("\"fornecedores\":"), content);
+
+        // Depois do primeiro envio, o delta traz só as métricas alteradas
+        long suppliers = aggregateService.count(DashboardAggregateService.SUPPLIERS);
+        aggregateService.supplierCreated();
+        streamService.flush();
+        content = response.getContentAsString();
+        assertTrue(content.substring(content.lastIndexOf("event:delta"))
+                .startsWith("event:delta\ndata:{\"fornecedores\":" + (suppliers + 1) + "}\n\n"), content);
+
+        // Cliente desconectado sai da lista: o flush agendado não consulta mais os agregados por ele
+        result.getRequest().getAsyncContext().complete();
+        assertEquals(subscribers, streamService.subscriberCount());
+    }
+}
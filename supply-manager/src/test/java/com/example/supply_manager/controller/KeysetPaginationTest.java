@@ -0,0 +1,157 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.dto.CursorPage;
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import com.example.supply_manager.service.DashboardAggregateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class KeysetPaginationTest {
+
+    @Autowired
+    private PurchaseController purchaseController;
+
+    @Autowired
+    private ProductController productController;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DashboardAggregateService dashboardAggregates;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void purchasesWalkByIdDescendingWithoutRepeats() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Fornecedor do cursor");
+        supplierRepository.save(supplier);
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(0, order(supplier).getId());
+        }
+
+        // Primeira página (after vazio): mais recentes primeiro, cursor aponta para o último entregue
+        CursorPage<PurchaseController.PurchaseResponse> first = purchases("", true);
+        List<Long> firstIds = ids(first);
+        assertEquals(2, firstIds.size());
+        assertTrue(firstIds.get(0) > firstIds.get(1));
+        assertEquals(new CursorPage.Cursor("", firstIds.get(1)), CursorPage.Cursor.decode(first.next()));
+        assertEquals(dashboardAggregates.totalOrders(), first.totalElements());
+
+        // A partir de logo acima do último criado: percorre os cinco pedidos sem repetir nenhum
+        List<Long> walked = new ArrayList<>();
+        String after = new CursorPage.Cursor(null, created.get(0) + 1).encode();
+        while (after != null && walked.size() < created.size()) {
+            CursorPage<PurchaseController.PurchaseResponse> page = purchases(after, false);
+            assertNull(page.totalElements());
+            // Página incompleta é a última: sem próximo cursor
+            assertEquals(page.content().size() < 2, page.next() == null);
+            walked.addAll(ids(page));
+            after = page.next();
+        }
+        assertEquals(created, walked.subList(0, created.size()));
+
+        assertEquals(400, purchaseController.list(0, 2, "%%%", false, null).getStatusCode().value());
+    }
+
+    @Test
+    void productsBreakNameTiesById() {
+        String run = "Keyset " + Long.toString(System.nanoTime(), 36).toUpperCase();
+        Long a = product(run + " A").getId();
+        Long b1 = product(run + " B").getId();
+        Long b2 = product(run + " B").getId();
+        Long c = product(run + " C").getId();
+
+        // Cursor logo antes do prefixo: as páginas seguem (name, id) e o empate em "B" atravessa a página
+        CursorPage<ProductDTO> first = products(new CursorPage.Cursor(run, 0).encode(), true);
+        assertEquals(List.of(a, b1), first.content().stream().map(ProductDTO::getId).toList());
+        assertEquals(new CursorPage.Cursor(run + " B", b1), CursorPage.Cursor.decode(first.next()));
+        assertEquals(dashboardAggregates.count(DashboardAggregateService.PRODUCTS), first.totalElements());
+
+        CursorPage<ProductDTO> second = products(first.next(), false);
+        assertEquals(List.of(b2, c), second.content().stream().map(ProductDTO::getId).toList());
+        assertNull(second.totalElements());
+
+        // Com fields= o cursor é o mesmo, mesmo sem name/id na resposta
+        @SuppressWarnings("unchecked")
+        CursorPage<Map<String, Object>> sparse = (CursorPage<Map<String, Object>>) productController.getAllProducts(
+                PageRequest.of(0, 2), first.next(), false, "sku", request()).getBody();
+        assertEquals(second.next(), sparse.next());
+        assertEquals(List.of("sku"), List.copyOf(sparse.content().get(0).keySet()));
+
+        assertEquals(400, productController.getAllProducts(
+                PageRequest.of(0, 2), "%%%", false, null, request()).getStatusCode().value());
+    }
+
+    // Serializa dentro de uma transação, como o open-in-view faz na requisição real
+    @SuppressWarnings("unchecked")
+    private CursorPage<PurchaseController.PurchaseResponse> purchases(String after, boolean includeTotal) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            ResponseEntity<?> response = purchaseController.list(0, 2, after, includeTotal, null);
+            assertEquals(200, response.getStatusCode().value());
+            return (CursorPage<PurchaseController.PurchaseResponse>) response.getBody();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private CursorPage<ProductDTO> products(String after, boolean includeTotal) {
+        ResponseEntity<?> response = productController.getAllProducts(
+                PageRequest.of(0, 2), after, includeTotal, null, request());
+        assertEquals(200, response.getStatusCode().value());
+        return (CursorPage<ProductDTO>) response.getBody();
+    }
+
+    private static List<Long> ids(CursorPage<PurchaseController.PurchaseResponse> page) {
+        return page.content().stream().map(order -> order.id).toList();
+    }
+
+    private static ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest());
+    }
+
+    private PurchaseOrder order(Supplier supplier) {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(supplier);
+        order.setOrderDate(LocalDate.of(2025, 3, 1));
+        order.setStatus(PurchaseOrder.Status.ISSUED);
+        order.setTotalAmount(5.0);
+        return orderRepository.save(order);
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setSku("KEYSET-" + System.nanoTime());
+        product.setName(name);
+        return productRepository.save(product);
+    }
+}
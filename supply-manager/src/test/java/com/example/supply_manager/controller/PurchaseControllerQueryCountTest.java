@@ -0,0 +1,121 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseControllerQueryCountTest {
+
+    @Autowired
+    private PurchaseController controller;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Supplier supplier;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        supplier = new Supplier();
+        supplier.setName("Fornecedor Teste");
+        supplier = supplierRepository.save(supplier);
+
+        products.clear();
+        for (int i = 0; i < 200; i++) {
+            Product product = new Product();
+            product.setSku("QC-" + System.nanoTime() + "-" + i);
+            product.setName("Produto " + i);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Test
+    void createResolvesProductsOnceAndBatchesItemInserts() {
+        long small = statementsToCreate(5);
+        long large = statementsToCreate(200);
+
+        // 200 linhas não podem custar 200 SELECTs/INSERTs: só o número de lotes cresce
+        assertTrue(large - small <= 8,
+                "expected near-constant statement count, got " + small + " vs " + large);
+        assertTrue(large < 30, "too many statements for a 200-line order: " + large);
+    }
+
+    @Test
+    void createReportsEveryMissingProductAtOnce() {
+        PurchaseController.PurchaseRequest request = request(2);
+        request.items.get(0).product = -1L;
+        request.items.get(1).product = Map.of("id", -2);
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> controller.create(request));
+        assertTrue(error.getMessage().contains("[-2, -1]"), error.getMessage());
+    }
+
+    @Test
+    void updateWritesOnlyTheChangedLine() {
+        var created = controller.create(request(200)).getBody();
+
+        PurchaseController.PurchaseRequest edit = request(200);
+        for (int i = 0; i < edit.items.size(); i++) {
+            edit.items.get(i).id = created.items.get(i).id;
+        }
+        edit.items.get(10).quantity = 999;
+
+        statistics.clear();
+        var updated = (PurchaseController.PurchaseResponse) controller.update(created.id, edit).getBody();
+
+        // a linha editada e o total do pedido
+        assertEquals(2, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+        assertEquals(created.items.get(10).id, updated.items.get(10).id);
+    }
+
+    private long statementsToCreate(int lines) {
+        PurchaseController.PurchaseRequest request = request(lines);
+        statistics.clear();
+        var response = controller.create(request);
+        assertEquals(lines, response.getBody().items.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private PurchaseController.PurchaseRequest request(int lines) {
+        PurchaseController.PurchaseRequest request = new PurchaseController.PurchaseRequest();
+        request.supplier = supplier.getId();
+        request.items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            PurchaseController.PurchaseItemRequest item = new PurchaseController.PurchaseItemRequest();
+            item.product = products.get(i).getId();
+            item.quantity = 1 + i;
+            item.unitPrice = 2.5;
+            request.items.add(item);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderItemRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseOrderControllerConcurrencyTest {
+
+    private static final int LINES = 4;
+    private static final int UNITS_PER_LINE = 100;
+
+    @Autowired
+    private PurchaseOrderController controller;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private PurchaseOrderItemRepository itemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void parallelReceivesLoseNoUpdatesAndCloseTheOrderOnce() throws Exception {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setStatus(PurchaseOrder.Status.ISSUED);
+        order.setTotalAmount(0.0);
+        for (int i = 0; i < LINES; i++) {
+            Product product = new Product();
+            product.setSku("RCV-" + System.nanoTime() + "-" + i);
+            product.setName("Produto " + i);
+            PurchaseOrderItem item = new PurchaseOrderItem();
+            item.setProduct(productRepository.save(product));
+            item.setQuantity((double) UNITS_PER_LINE);
+            order.addItem(item);
+        }
+        order.recountOutstandingLines();
+        order = orderRepository.save(order);
+        Long orderId = order.getId();
+        List<Long> itemIds = order.getItems().stream().map(PurchaseOrderItem::getId).toList();
+
+        // 400 recebimentos de 1 unidade, todos disparados ao mesmo tempo
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> receipts = new ArrayList<>();
+        for (int n = 0; n < LINES * UNITS_PER_LINE; n++) {
+            Long itemId = itemIds.get(n % LINES);
+            receipts.add(pool.submit(() -> {
+                start.await();
+                return controller.receiveItem(orderId, itemId, new PurchaseOrderController.ReceiveRequest(1.0));
+            }));
+        }
+        start.countDown();
+        for (Future<?> receipt : receipts) {
+            receipt.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (Long itemId : itemIds) {
+            assertEquals(UNITS_PER_LINE, itemRepository.findById(itemId).orElseThrow().getReceivedQuantity());
+        }
+        PurchaseOrder received = orderRepository.findById(orderId).orElseThrow();
+        assertEquals(0, received.getOutstandingLines());
+        assertEquals(PurchaseOrder.Status.RECEIVED, received.getStatus());
+        assertTrue(received.getFullyReceived());
+    }
+}
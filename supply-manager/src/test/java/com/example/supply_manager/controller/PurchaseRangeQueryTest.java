@@ -0,0 +1,170 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseRangeQueryTest {
+
+    @Autowired
+    private PurchaseController controller;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pagesBySupplierWithTotalsFromTheSameQuery() {
+        Supplier supplier = supplier("Fornecedor por página");
+        Supplier other = supplier("Outro fornecedor");
+        Product product = product();
+        for (int i = 1; i <= 5; i++) {
+            order(supplier, product, LocalDate.of(2025, 1, i), PurchaseOrder.Status.ISSUED, i * 10.0);
+        }
+        order(other, product, LocalDate.of(2025, 1, 3), PurchaseOrder.Status.ISSUED, 999.0);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        Map<String, Object> page = body(() -> controller.bySupplier(supplier.getId(), 0, 2, "total,desc"));
+        // Página, count e soma em uma consulta (itens e produtos vêm depois, em lote)
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertEquals(List.of(50.0, 40.0), totals(page));
+        assertEquals(5L, page.get("totalElements"));
+        assertEquals(150.0, page.get("totalAmount"));
+        assertEquals(3, page.get("totalPages"));
+
+        assertEquals(List.of(10.0), totals(body(() -> controller.bySupplier(supplier.getId(), 0, 1, "purchaseDate"))));
+        // Página depois do fim: agregados por uma consulta separada
+        Map<String, Object> past = body(() -> controller.bySupplier(supplier.getId(), 9, 2, "purchaseDate,desc"));
+        assertTrue(((List<?>) past.get("content")).isEmpty());
+        assertEquals(5L, past.get("totalElements"));
+        assertEquals(150.0, past.get("totalAmount"));
+
+        assertEquals(400, controller.bySupplier(supplier.getId(), 0, 2, "supplier.name").getStatusCode().value());
+    }
+
+    @Test
+    void pagesByDateRangeAndStatus() {
+        Supplier supplier = supplier("Fornecedor por período");
+        Product product = product();
+        order(supplier, product, LocalDate.of(2024, 6, 1), PurchaseOrder.Status.RECEIVED, 5.0);
+        order(supplier, product, LocalDate.of(2024, 6, 15), PurchaseOrder.Status.ISSUED, 7.0);
+        order(supplier, product, LocalDate.of(2024, 6, 30), PurchaseOrder.Status.DRAFT, 11.0);
+        order(supplier, product, LocalDate.of(2024, 7, 1), PurchaseOrder.Status.ISSUED, 13.0);
+
+        LocalDate from = LocalDate.of(2024, 6, 1);
+        LocalDate to = LocalDate.of(2024, 6, 30);
+        Map<String, Object> all = body(() -> controller.byDateRange(from, to, null, 0, 10, "purchaseDate,asc"));
+        assertEquals(List.of(5.0, 7.0, 11.0), totals(all));
+        assertEquals(23.0, all.get("totalAmount"));
+
+        // PENDING (frontend) cobre ISSUED e DRAFT
+        Map<String, Object> pending = body(() -> controller.byDateRange(from, to, "PENDING", 0, 10, "total,desc"));
+        assertEquals(List.of(11.0, 7.0), totals(pending));
+        assertEquals(2L, pending.get("totalElements"));
+
+        // Página além do fim: totais pelas consultas de soma, com e sem filtro de status
+        Map<String, Object> allPast = body(() -> controller.byDateRange(from, to, null, 3, 10, "purchaseDate"));
+        assertTrue(((List<?>) allPast.get("content")).isEmpty());
+        assertEquals(3L, allPast.get("totalElements"));
+        assertEquals(23.0, allPast.get("totalAmount"));
+        Map<String, Object> receivedPast = body(() -> controller.byDateRange(from, to, "DELIVERED", 3, 10, "purchaseDate"));
+        assertEquals(1L, receivedPast.get("totalElements"));
+        assertEquals(5.0, receivedPast.get("totalAmount"));
+
+        assertEquals(400, controller.byDateRange(to, from, null, 0, 10, "purchaseDate").getStatusCode().value());
+        assertEquals(400, controller.byDateRange(from, to, "LOST", 0, 10, "purchaseDate").getStatusCode().value());
+    }
+
+    @Test
+    void compositeIndexesExist() {
+        List<String> columns = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME || ':' || COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS " +
+                "WHERE TABLE_NAME = 'PURCHASE_ORDERS' AND INDEX_NAME LIKE 'IDX_PURCHASE_ORDERS_%' " +
+                "ORDER BY INDEX_NAME, ORDINAL_POSITION", String.class);
+        assertTrue(columns.containsAll(List.of(
+                "IDX_PURCHASE_ORDERS_SUPPLIER_DATE:SUPPLIER_ID", "IDX_PURCHASE_ORDERS_SUPPLIER_DATE:ORDER_DATE",
+                "IDX_PURCHASE_ORDERS_DATE_STATUS:ORDER_DATE", "IDX_PURCHASE_ORDERS_DATE_STATUS:STATUS")), columns::toString);
+    }
+
+    // Serializa dentro de uma transação, como o open-in-view faz na requisição real
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> body(java.util.function.Supplier<ResponseEntity<Map<String, Object>>> call) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            ResponseEntity<Map<String, Object>> response = call.get();
+            assertEquals(200, response.getStatusCode().value());
+            return response.getBody();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Double> totals(Map<String, Object> page) {
+        return ((List<PurchaseController.PurchaseResponse>) page.get("content")).stream()
+                .map(order -> order.total)
+                .toList();
+    }
+
+    private Supplier supplier(String name) {
+        Supplier supplier = new Supplier();
+        supplier.setName(name);
+        return supplierRepository.save(supplier);
+    }
+
+    private Product product() {
+        Product product = new Product();
+        product.setSku("RANGE-" + System.nanoTime());
+        product.setName("Produto do período");
+        return productRepository.save(product);
+    }
+
+    private void order(Supplier supplier, Product product, LocalDate date,
+                       PurchaseOrder.Status status, double total) {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(supplier);
+        order.setOrderDate(date);
+        order.setStatus(status);
+        order.setTotalAmount(total);
+        PurchaseOrderItem item = new PurchaseOrderItem();
+        item.setProduct(product);
+        item.setQuantity(1.0);
+        item.setUnitPrice(total);
+        order.addItem(item);
+        orderRepository.save(order);
+    }
+}
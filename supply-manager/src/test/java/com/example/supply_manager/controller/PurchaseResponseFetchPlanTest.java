@@ -0,0 +1,130 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseResponseFetchPlanTest {
+
+    @Autowired
+    private PurchaseController controller;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+    private Long lastOrderId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        // 40 pedidos, cada um com fornecedor e produtos próprios (pior caso para N+1);
+        // 80 produtos cabem em um lote de default_batch_fetch_size
+        for (int i = 0; i < 40; i++) {
+            Supplier supplier = new Supplier();
+            supplier.setName("Fornecedor " + i);
+            supplier = supplierRepository.save(supplier);
+
+            PurchaseOrder order = new PurchaseOrder();
+            order.setSupplier(supplier);
+            order.setStatus(PurchaseOrder.Status.ISSUED);
+            for (int j = 0; j < 2; j++) {
+                Product product = new Product();
+                product.setSku("FP-" + System.nanoTime() + "-" + j);
+                product.setName("Produto " + i + "-" + j);
+                product.setPreferredSupplier(supplier);
+                product = productRepository.save(product);
+
+                PurchaseOrderItem item = new PurchaseOrderItem();
+                item.setProduct(product);
+                item.setQuantity(1.0);
+                item.setUnitPrice(1.0);
+                order.addItem(item);
+            }
+            lastOrderId = orderRepository.save(order).getId();
+        }
+    }
+
+    @Test
+    void listStatementCountDoesNotGrowWithPageSize() {
+        long small = statementsFor(() -> controller.list(0, 5, null, false, null).getBody());
+        long large = statementsFor(() -> controller.list(0, 40, null, false, null).getBody());
+
+        assertEquals(small, large, "page of 5 used " + small + " statements, page of 40 used " + large);
+    }
+
+    @Test
+    void cursorAndSearchStatementCountDoesNotGrowWithPageSize() {
+        assertEquals(
+                statementsFor(() -> controller.list(0, 5, "", false, null).getBody()),
+                statementsFor(() -> controller.list(0, 40, "", false, null).getBody()));
+        assertEquals(
+                statementsFor(() -> controller.search("Fornecedor", 0, 5).getBody()),
+                statementsFor(() -> controller.search("Fornecedor", 0, 40).getBody()));
+    }
+
+    @Test
+    void getByIdLoadsOrderGraphInBoundedStatements() {
+        long statements = statementsFor(() -> controller.getById(lastOrderId,
+                new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse())).getBody());
+
+        // pedido+fornecedor+itens+produtos em um SELECT, fornecedor preferido dos produtos em outro
+        assertTrue(statements <= 2, "get by id used " + statements + " statements");
+    }
+
+    // Executa e serializa dentro de uma transação (como o open-in-view faz na requisição real)
+    private long statementsFor(Callable<Object> call) {
+        List<String> json = new ArrayList<>();
+        statistics.clear();
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            try {
+                json.add(objectMapper.writeValueAsString(call.call()));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertFalse(json.get(0).isEmpty());
+        return statistics.getPrepareStatementCount();
+    }
+}
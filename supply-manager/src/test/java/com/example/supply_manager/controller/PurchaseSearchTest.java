@@ -0,0 +1,151 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseSearchTest {
+
+    @Autowired
+    private PurchaseController controller;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void ranksExactCodeBeforeCodePrefixAndIgnoresWildcards() {
+        String run = "SRCH" + Long.toString(System.nanoTime(), 36).toUpperCase();
+        Supplier supplier = supplier("Fornecedor da busca por código");
+        Long prefixed = order(supplier, run + "-10").getId();
+        Long exact = order(supplier, run + "-1").getId();
+        order(supplier, run + "-2");
+
+        // Código em minúsculas: a busca normaliza para o formato gravado
+        Map<String, Object> page = body(() -> controller.search(run.toLowerCase() + "-1", 0, 10));
+        assertEquals(List.of(exact, prefixed), ids(page));
+        assertEquals(2L, page.get("totalElements"));
+
+        // '_' e '%' são literais no prefixo, não curingas do LIKE
+        assertEquals(List.of(), ids(body(() -> controller.search(run + "_1", 0, 10))));
+        assertEquals(List.of(), ids(body(() -> controller.search(run + "%1", 0, 10))));
+    }
+
+    @Test
+    void numericTermMatchesTheOrderIdFirst() {
+        Supplier supplier = supplier("Fornecedor da busca por id");
+        PurchaseOrder order = order(supplier, "SRCH-ID-" + System.nanoTime());
+
+        Map<String, Object> page = body(() -> controller.search(" " + order.getId() + " ", 0, 10));
+        assertEquals(order.getId(), ids(page).get(0));
+    }
+
+    @Test
+    void supplierNameMatchesArePagedByIdDescending() {
+        String run = "Z" + Long.toString(System.nanoTime(), 36).toUpperCase();
+        Supplier supplier = supplier("Fornecedor " + run + " Ltda");
+        Supplier other = supplier("Outro fornecedor da busca");
+        Long first = order(supplier, "SRCH-A-" + System.nanoTime()).getId();
+        Long second = order(supplier, "SRCH-B-" + System.nanoTime()).getId();
+        Long third = order(supplier, "SRCH-C-" + System.nanoTime()).getId();
+        order(other, "SRCH-D-" + System.nanoTime());
+
+        // Nome em qualquer caixa, parte do meio do nome
+        Map<String, Object> firstPage = body(() -> controller.search(run.toLowerCase(), 0, 2));
+        assertEquals(List.of(third, second), ids(firstPage));
+        assertEquals(3L, firstPage.get("totalElements"));
+        assertEquals(2, firstPage.get("totalPages"));
+
+        Map<String, Object> secondPage = body(() -> controller.search(run, 1, 2));
+        assertEquals(List.of(first), ids(secondPage));
+        assertEquals(1, secondPage.get("number"));
+    }
+
+    @Test
+    void codePrefixSearchLoadsOnlyUpToTheRequestedPage() {
+        String run = "SRCL" + Long.toString(System.nanoTime(), 36).toUpperCase();
+        Supplier supplier = supplier("Fornecedor da busca limitada");
+        List<Long> ids = new java.util.ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(order(supplier, run + "-" + i).getId());
+        }
+
+        // Prefixo que casa com todos: a primeira página carrega só os dois primeiros pelo código
+        statistics.clear();
+        Map<String, Object> firstPage = body(() -> controller.search(run, 0, 2));
+        assertEquals(ids.subList(0, 2), ids(firstPage));
+        assertEquals(2, statistics.getEntityStatistics(PurchaseOrder.class.getName()).getLoadCount());
+        assertEquals(5L, firstPage.get("totalElements"));
+        assertEquals(3, firstPage.get("totalPages"));
+
+        Map<String, Object> lastPage = body(() -> controller.search(run, 2, 2));
+        assertEquals(ids.subList(4, 5), ids(lastPage));
+        assertEquals(5L, lastPage.get("totalElements"));
+    }
+
+    // Serializa dentro de uma transação, como o open-in-view faz na requisição real
+    private Map<String, Object> body(java.util.function.Supplier<ResponseEntity<Map<String, Object>>> call) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            ResponseEntity<Map<String, Object>> response = call.get();
+            assertEquals(200, response.getStatusCode().value());
+            return response.getBody();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> ids(Map<String, Object> page) {
+        return ((List<PurchaseController.PurchaseResponse>) page.get("content")).stream()
+                .map(order -> order.id)
+                .toList();
+    }
+
+    private Supplier supplier(String name) {
+        Supplier supplier = new Supplier();
+        supplier.setName(name);
+        return supplierRepository.save(supplier);
+    }
+
+    private PurchaseOrder order(Supplier supplier, String code) {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(supplier);
+        order.setCode(code);
+        order.setOrderDate(LocalDate.of(2025, 2, 1));
+        order.setStatus(PurchaseOrder.Status.ISSUED);
+        order.setTotalAmount(10.0);
+        return orderRepository.save(order);
+    }
+}
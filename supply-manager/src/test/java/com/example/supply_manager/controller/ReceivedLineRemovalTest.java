@@ -0,0 +1,102 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderItemRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import com.example.supply_manager.service.ReceivingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ReceivedLineRemovalTest {
+
+    @Autowired
+    private PurchaseController purchaseController;
+
+    @Autowired
+    private PurchaseOrderController purchaseOrderController;
+
+    @Autowired
+    private SupplierController supplierController;
+
+    @Autowired
+    private ReceivingService receivingService;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private PurchaseOrderItemRepository itemRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void receivedLinesAndTheirOrderCannotBeRemoved() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Fornecedor com recebimento");
+        supplier = supplierRepository.save(supplier);
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(supplier);
+        order.setStatus(PurchaseOrder.Status.ISSUED);
+        order.addItem(item(product(), 5.0));
+        order.addItem(item(product(), 2.0));
+        order.setTotalAmount(7.0);
+        order = orderRepository.save(order);
+        Long orderId = order.getId();
+        Long received = order.getItems().get(0).getId();
+        Long pending = order.getItems().get(1).getId();
+
+        // Recebimento parcial: o razão passa a referenciar a primeira linha
+        receivingService.receive(orderId, received, 2.0);
+
+        assertEquals(409, purchaseController.deleteItem(orderId, received).getStatusCode().value());
+        PurchaseController.PurchaseRequest withoutReceived = new PurchaseController.PurchaseRequest();
+        PurchaseController.PurchaseItemRequest kept = new PurchaseController.PurchaseItemRequest();
+        kept.id = pending;
+        kept.product = order.getItems().get(1).getProduct().getId();
+        kept.quantity = 2;
+        kept.unitPrice = 1.0;
+        withoutReceived.items = List.of(kept);
+        assertEquals(409, purchaseController.update(orderId, withoutReceived).getStatusCode().value());
+        assertEquals(409, purchaseController.delete(orderId).getStatusCode().value());
+        assertEquals(409, purchaseOrderController.delete(orderId).getStatusCode().value());
+        assertEquals(409, supplierController.delete(supplier.getId()).getStatusCode().value());
+
+        assertEquals(2.0, itemRepository.findById(received).orElseThrow().getReceivedQuantity(), 1e-9);
+        assertTrue(orderRepository.existsById(orderId));
+        assertTrue(supplierRepository.existsById(supplier.getId()));
+
+        // A linha ainda sem recebimento continua removível
+        assertEquals(204, purchaseController.deleteItem(orderId, pending).getStatusCode().value());
+        assertFalse(itemRepository.existsById(pending));
+    }
+
+    private PurchaseOrderItem item(Product product, double quantity) {
+        PurchaseOrderItem item = new PurchaseOrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setUnitPrice(1.0);
+        return item;
+    }
+
+    private Product product() {
+        Product product = new Product();
+        product.setSku("RCV-DEL-" + System.nanoTime());
+        product.setName("Produto recebido");
+        return productRepository.save(product);
+    }
+}
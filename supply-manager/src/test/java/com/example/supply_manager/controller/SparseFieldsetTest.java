@@ -0,0 +1,143 @@
+package com.example.supply_manager.controller;
+
+import com.example.supply_manager.dto.CursorPage;
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SparseFieldsetTest {
+
+    @Autowired
+    private ProductController productController;
+
+    @Autowired
+    private SupplierController supplierController;
+
+    @Autowired
+    private PurchaseController purchaseController;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void productListSelectsOnlyRequestedFieldsInBothPagingModes() {
+        String run = Long.toString(System.nanoTime(), 36);
+        for (int i = 0; i < 3; i++) {
+            ProductDTO dto = new ProductDTO();
+            dto.setSku("SF-" + run + "-" + i);
+            dto.setName("Sparse " + i);
+            dto.setDescription("Descrição longa " + i);
+            productService.createProduct(dto);
+        }
+
+        Page<Map<String, Object>> page = (Page<Map<String, Object>>) productController.getAllProducts(
+                PageRequest.of(0, 50, Sort.by("id")), null, false, "sku, name ,sku", get()).getBody();
+        Map<String, Object> row = page.getContent().get(0);
+        assertEquals(List.of("sku", "name"), new ArrayList<>(row.keySet()));
+        assertEquals(page.getTotalElements(), productService.getProducts(PageRequest.of(0, 1)).getTotalElements());
+
+        // Cursor: mesma ordem do modo completo; name/id do cursor não vazam para a resposta
+        CursorPage<ProductDTO> full = (CursorPage<ProductDTO>) productController.getAllProducts(
+                PageRequest.of(0, 2), "", false, null, get()).getBody();
+        CursorPage<Map<String, Object>> sparse = (CursorPage<Map<String, Object>>) productController.getAllProducts(
+                PageRequest.of(0, 2), "", false, "sku", get()).getBody();
+        assertEquals(full.next(), sparse.next());
+        assertEquals(full.content().stream().map(ProductDTO::getSku).toList(),
+                sparse.content().stream().map(sku -> sku.get("sku")).toList());
+        assertEquals(List.of("sku"), new ArrayList<>(sparse.content().get(0).keySet()));
+        CursorPage<Map<String, Object>> second = (CursorPage<Map<String, Object>>) productController.getAllProducts(
+                PageRequest.of(0, 2), sparse.next(), false, "id", get()).getBody();
+        assertEquals(((CursorPage<ProductDTO>) productController.getAllProducts(
+                PageRequest.of(0, 2), full.next(), false, null, get()).getBody()).content().get(0).getId(),
+                second.content().get(0).get("id"));
+
+        assertEquals(400, productController.getAllProducts(PageRequest.of(0, 2), null, false, "sku,secret", get())
+                .getStatusCode().value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void purchaseListNestsSupplierAndCountsItems() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Fornecedor esparso");
+        supplier = supplierController.create(supplier);
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(supplier);
+        order.setStatus(PurchaseOrder.Status.RECEIVED);
+        order.setOrderDate(LocalDate.of(2026, 3, 1));
+        order.setTotalAmount(12.0);
+        ProductDTO dto = new ProductDTO();
+        dto.setSku("SF-PO-" + System.nanoTime());
+        dto.setName("Item esparso");
+        Product product = productRepository.findById(productService.createProduct(dto).getId()).orElseThrow();
+        for (int i = 0; i < 3; i++) {
+            PurchaseOrderItem item = new PurchaseOrderItem();
+            item.setProduct(product);
+            item.setQuantity(1.0);
+            item.setUnitPrice(4.0);
+            order.addItem(item);
+        }
+        Long id = orderRepository.save(order).getId();
+
+        CursorPage<Map<String, Object>> page = (CursorPage<Map<String, Object>>) purchaseController.list(
+                0, 1, "", false, "supplier.name,purchaseDate,status,itemCount").getBody();
+        Map<String, Object> row = page.content().get(0);
+        assertEquals(Map.of("name", "Fornecedor esparso"), row.get("supplier"));
+        assertEquals("2026-03-01", row.get("purchaseDate"));
+        assertEquals("DELIVERED", row.get("status"));
+        assertEquals(3, ((Number) row.get("itemCount")).intValue());
+        assertFalse(row.containsKey("id"));
+        assertEquals(new CursorPage.Cursor(null, id).encode(), page.next());
+
+        Map<String, Object> paged = (Map<String, Object>) purchaseController.list(0, 5, null, false, "id,supplier").getBody();
+        Map<String, Object> first = ((List<Map<String, Object>>) paged.get("content")).get(0);
+        assertEquals(List.of("id", "supplier"), new ArrayList<>(first.keySet()));
+        assertEquals(List.of("id", "name", "cnpj"), new ArrayList<>(((Map<String, Object>) first.get("supplier")).keySet()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void supplierListSelectsRequestedFields() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Fornecedor lista");
+        supplier.setNotes("Observação");
+        Long id = supplierController.create(supplier).getId();
+
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) supplierController.getAll("id,name").getBody();
+        assertTrue(rows.contains(Map.of("id", id, "name", "Fornecedor lista")));
+        assertEquals(400, supplierController.getAll("phone").getStatusCode().value());
+    }
+
+    private static ServletWebRequest get() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.DashboardAggregateRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class DashboardAggregateServiceTest {
+
+    @Autowired
+    private DashboardAggregateService aggregateService;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private DashboardAggregateRepository aggregateRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rebuildDoesNotLoseAnIncrementCommittedDuringTheScan() throws Exception {
+        Supplier supplier = new Supplier();
+        supplier.setName("Fornecedor da reconstrução");
+        Supplier saved = supplierRepository.save(supplier);
+        aggregateService.rebuild();
+        String key = DashboardAggregateService.orderKey(PurchaseOrder.Status.CANCELED);
+        long before = aggregateService.count(key);
+        // Divergência a corrigir (incremento sem pedido): a reconstrução precisa regravar a linha
+        aggregateService.orderCreated(PurchaseOrder.Status.CANCELED, 0.0);
+
+        // Escrita concorrente: pedido + incremento ainda sem commit quando a reconstrução começa
+        CountDownLatch incremented = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+                    PurchaseOrder order = new PurchaseOrder();
+                    order.setSupplier(saved);
+                    order.setStatus(PurchaseOrder.Status.CANCELED);
+                    order.setTotalAmount(12.5);
+                    orderRepository.save(order);
+                    aggregateService.orderCreated(order.getStatus(), order.getTotalAmount());
+                    incremented.countDown();
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(incremented.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Map<String, Map<String, Object>>> rebuild = CompletableFuture.supplyAsync(aggregateService::rebuild);
+
+        writer.get(10, TimeUnit.SECONDS);
+        rebuild.get(10, TimeUnit.SECONDS);
+        assertEquals(before + 1, aggregateService.count(key));
+        assertFalse(aggregateService.rebuild().containsKey(key));
+    }
+
+    @Test
+    void concurrentFirstIncrementsOfAMissingRowBothCommit() throws Exception {
+        // Base nova: a linha do agregado ainda não existe quando as duas escritas chegam
+        aggregateRepository.deleteById(DashboardAggregateService.SUPPLIERS);
+        try {
+            CountDownLatch incremented = new CountDownLatch(1);
+            CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+                    new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+                        aggregateService.supplierCreated();
+                        incremented.countDown();
+                        try {
+                            Thread.sleep(500);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+            assertTrue(incremented.await(5, TimeUnit.SECONDS));
+            new TransactionTemplate(transactionManager).executeWithoutResult(tx -> aggregateService.supplierCreated());
+
+            first.get(10, TimeUnit.SECONDS);
+            assertEquals(2, aggregateService.count(DashboardAggregateService.SUPPLIERS));
+        } finally {
+            aggregateService.rebuild();
+        }
+    }
+}
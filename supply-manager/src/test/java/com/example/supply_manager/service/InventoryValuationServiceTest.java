@@ -0,0 +1,146 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.ProductValuation;
+import com.example.supply_manager.model.StockMovement;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.ProductValuationRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class InventoryValuationServiceTest {
+
+    @Autowired
+    private InventoryValuationService valuation;
+
+    @Autowired
+    private StockLedgerService stockLedger;
+
+    @Autowired
+    private ProductValuationRepository valuationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DashboardAggregateService dashboardAggregates;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void weightedAverageIsMaintainedIncrementallyAndMatchesAFullRecompute() {
+        Product product = new Product();
+        product.setSku("VAL-" + System.nanoTime());
+        product.setName("Produto avaliado");
+        Long productId = productRepository.save(product).getId();
+        double totalBefore = valuation.totalValue();
+
+        stockLedger.receive(productId, null, 10.0, 2.0, "PO-2031-0001", null);
+        stockLedger.receive(productId, null, 10.0, 4.0, "PO-2031-0002", null);
+        StockMovement issue = stockLedger.issue(productId, null, 5.0, "OS-1");
+        assertEquals(3.0, issue.getUnitCost(), 1e-9);
+        // Ajuste sem custo entra ao custo médio: o médio não muda
+        stockLedger.receive(productId, null, 5.0, "AJUSTE", null);
+
+        ProductValuation current = valuation.valuationOf(productId).orElseThrow();
+        assertEquals(20.0, current.getQuantity(), 1e-9);
+        assertEquals(60.0, current.getTotalValue(), 1e-9);
+        assertEquals(3.0, current.averageCost(), 1e-9);
+        assertEquals(totalBefore + 60.0, valuation.totalValue(), 1e-6);
+
+        assertFalse(driftOf(valuation.revalue(false), productId));
+
+        // Divergência simulada (linha e faixa do total): a verificação só reporta; a reavaliação corrige ambos
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            valuationRepository.apply(productId, 0.0, 7.0, LocalDateTime.now());
+            dashboardAggregates.stockValueChanged(productId, 7.0);
+        });
+        assertTrue(driftOf(valuation.revalue(false), productId));
+        assertEquals(67.0, valuation.valuationOf(productId).orElseThrow().getTotalValue(), 1e-9);
+
+        InventoryValuationService.RevaluationReport applied = valuation.revalue(true);
+        assertTrue(driftOf(applied, productId));
+        assertEquals(60.0, valuation.valuationOf(productId).orElseThrow().getTotalValue(), 1e-9);
+        assertEquals(totalBefore + 60.0, valuation.totalValue(), 1e-6);
+        assertFalse(driftOf(valuation.revalue(false), productId));
+    }
+
+    @Test
+    void totalValueReadsOnlyTheStripeRowsAndMatchesTheValuations() {
+        Long first = product("VAL-S-");
+        Long second = product("VAL-S-");
+        stockLedger.receive(first, null, 4.0, 2.5, "PO-2033-0001", null);
+        stockLedger.receive(second, null, 1.0, 8.0, "PO-2033-0002", null);
+        stockLedger.issue(first, null, 2.0, "OS-2");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        double total = valuation.totalValue();
+        assertEquals(1, statistics.getPrepareStatementCount());
+        for (String query : statistics.getQueries()) {
+            assertFalse(query.contains("ProductValuation"), query);
+        }
+        assertEquals(total, (double) dashboardAggregates.metrics().get("valorEstoque"), 1e-6);
+
+        // As faixas somadas incrementalmente batem com a soma completa de product_valuations
+        assertTrue(dashboardAggregates.rebuild().keySet().stream().noneMatch(key -> key.startsWith("stock:value:")));
+    }
+
+    @Test
+    void receiptsOfDifferentProductsDoNotWaitOnEachOther() throws Exception {
+        Long first = product("VAL-A-");
+        Long second = product("VAL-B-");
+        double totalBefore = valuation.totalValue();
+        CountDownLatch firstReceived = new CountDownLatch(1);
+        CountDownLatch secondCommitted = new CountDownLatch(1);
+
+        // A primeira entrada segura a transação aberta até a segunda (outro produto) terminar
+        CompletableFuture<Boolean> holder = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(tx -> {
+                    stockLedger.receive(first, null, 1.0, 10.0, "PO-2032-0001", null);
+                    firstReceived.countDown();
+                    try {
+                        return secondCommitted.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }));
+        assertTrue(firstReceived.await(5, TimeUnit.SECONDS));
+        stockLedger.receive(second, null, 2.0, 5.0, "PO-2032-0002", null);
+        secondCommitted.countDown();
+
+        assertTrue(holder.get(10, TimeUnit.SECONDS));
+        assertEquals(totalBefore + 20.0, valuation.totalValue(), 1e-6);
+    }
+
+    private Long product(String skuPrefix) {
+        Product product = new Product();
+        product.setSku(skuPrefix + System.nanoTime());
+        product.setName("Produto avaliado");
+        return productRepository.save(product).getId();
+    }
+
+    private static boolean driftOf(InventoryValuationService.RevaluationReport report, Long productId) {
+        return report.drifts().stream().anyMatch(d -> d.productId().equals(productId));
+    }
+}
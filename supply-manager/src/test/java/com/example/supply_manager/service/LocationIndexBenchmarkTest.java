@@ -0,0 +1,48 @@
+package com.example.supply_manager.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Fora do build padrão (medição de tempo): mvn test -Pbenchmark
+@Tag("benchmark")
+class LocationIndexBenchmarkTest {
+
+    private static final int BINS = 50_000;
+    private static final int ITEMS = 100_000;
+
+    @Test
+    void picksLocationsFor100kItemsAcross50kBins() {
+        Random random = new Random(42);
+        double[] capacity = new double[BINS];
+        double[] used = new double[BINS];
+        LocationIndex index = new LocationIndex();
+        for (int bin = 0; bin < BINS; bin++) {
+            capacity[bin] = 1.0 + random.nextInt(20);
+            index.put(bin, capacity[bin]);
+        }
+
+        int placed = 0;
+        long start = System.nanoTime();
+        for (int item = 0; item < ITEMS; item++) {
+            double volume = 0.05 + random.nextDouble() * 0.5;
+            Long bin = index.takeBestFit(volume);
+            if (bin != null) {
+                used[bin.intValue()] += volume;
+                placed++;
+            }
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(ITEMS, placed);
+        for (int bin = 0; bin < BINS; bin++) {
+            assertTrue(used[bin] <= capacity[bin] + 1e-9, "bin " + bin + " overfilled");
+            assertEquals(capacity[bin] - used[bin], index.free(bin), 1e-6);
+        }
+        // O(log n) por item: 100k escolhas bem abaixo de 10 µs cada
+        assertTrue(elapsedMs < 1_000, "best-fit lookups took " + elapsedMs + " ms");
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.supply_manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationIndexTest {
+
+    @Test
+    void bestFitIsTheSmallestFreeSpaceThatFits() {
+        LocationIndex index = new LocationIndex();
+        index.put(1, 10.0);
+        index.put(2, 5.0);
+        index.put(3, 2.0);
+
+        assertEquals(2L, index.takeBestFit(4.0));
+        assertEquals(1L, index.takeBestFit(4.0));
+        assertEquals(3L, index.takeBestFit(1.5));
+        assertNull(index.takeBestFit(7.0));
+    }
+
+    @Test
+    void neverOverfillsABinAndKeepsFreeSpaceInStep() {
+        Random random = new Random(42);
+        double[] capacity = new double[1_000];
+        double[] used = new double[capacity.length];
+        LocationIndex index = new LocationIndex();
+        for (int bin = 0; bin < capacity.length; bin++) {
+            capacity[bin] = 1.0 + random.nextInt(20);
+            index.put(bin, capacity[bin]);
+        }
+        for (int item = 0; item < 5_000; item++) {
+            double volume = 0.05 + random.nextDouble() * 0.5;
+            Long bin = index.takeBestFit(volume);
+            assertNotNull(bin);
+            used[bin.intValue()] += volume;
+        }
+        for (int bin = 0; bin < capacity.length; bin++) {
+            assertTrue(used[bin] <= capacity[bin] + 1e-9, "bin " + bin + " overfilled");
+            assertEquals(capacity[bin] - used[bin], index.free(bin), 1e-6);
+        }
+    }
+}
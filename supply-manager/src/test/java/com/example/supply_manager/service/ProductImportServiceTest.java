@@ -0,0 +1,118 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.controller.SupplierController;
+import com.example.supply_manager.dto.ImportReport;
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierController supplierController;
+
+    @Autowired
+    private DashboardAggregateService dashboardAggregates;
+
+    @Autowired
+    private TypeaheadService typeahead;
+
+    @Test
+    void upsertsBySkuAndReportsRejectedRows() throws Exception {
+        String run = Long.toString(System.nanoTime(), 36).toUpperCase();
+        Supplier newSupplier = new Supplier();
+        newSupplier.setName("Fornecedor do catálogo");
+        Supplier supplier = supplierController.create(newSupplier);
+
+        ProductDTO existing = new ProductDTO();
+        existing.setSku("IMP-" + run + "-1");
+        existing.setName("Nome antigo");
+        Long existingId = productService.createProduct(existing).getId();
+        // Deixa o produto no cache: a importação precisa invalidá-lo
+        assertEquals("Nome antigo", productService.getProductById(existingId).getName());
+        long products = (long) dashboardAggregates.metrics().get("produtos");
+
+        String csv = ProductImportService.CSV_HEADER + "\n"
+                + "imp-" + run + "-1,Nome novo,,un,,,,,,12.50," + supplier.getId() + ",5,10,false\n"
+                + "IMP-" + run + "-2,\"Parafuso " + run + ", inox\",\"Descrição com \"\"aspas\"\"\",un,,,,,,1.99,,,,\n"
+                + "IMP-" + run + "-3,Preço negativo,,un,,,,,,-1,,,,\n"
+                + "IMP-" + run + "-4,Sem fornecedor,,un,,,,,,1,999999999,,,\n"
+                + "IMP-" + run + "-2,Repetido,,un,,,,,,1,,,,\n"
+                + "IMP-" + run + "-5,,,un,,,,,,1,,,,\n";
+        ImportReport report = importService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductImportService.Format.CSV, 2);
+
+        assertEquals(6, report.getRowsRead());
+        assertEquals(2, report.getRowsImported());
+        assertEquals(4, report.getRowsRejected());
+        assertEquals(4, report.getErrors().get(0).line());
+        assertEquals("Price must be a positive number", report.getErrors().get(0).message());
+        assertEquals("Fornecedor não encontrado: 999999999", report.getErrors().get(1).message());
+        assertEquals("SKU repetido no arquivo (linha 3)", report.getErrors().get(2).message());
+        assertEquals("Name is required", report.getErrors().get(3).message());
+
+        ProductDTO updated = productService.getProductById(existingId);
+        assertEquals("Nome novo", updated.getName());
+        assertEquals("imp-" + run + "-1", updated.getSku());
+        assertEquals(supplier.getId(), updated.getPreferredSupplierId());
+        assertEquals(5.0, updated.getReorderPoint());
+        assertFalse(updated.isActive());
+
+        Product created = productRepository.findBySkuIgnoreCase("IMP-" + run + "-2");
+        assertEquals("Parafuso " + run + ", inox", created.getName());
+        assertEquals("Descrição com \"aspas\"", created.getDescription());
+        assertNotNull(created.getCreatedAt());
+        assertEquals(products + 1, (long) dashboardAggregates.metrics().get("produtos"));
+
+        // Busca e typeahead recebem as linhas do chunk depois do commit
+        assertEquals(created.getId(), productService.searchProducts("parafuso " + run, false, PageRequest.of(0, 5))
+                .getContent().get(0).getId());
+        assertEquals(created.getId(), typeahead.suggest("imp-" + run, TypeaheadService.Scope.PRODUCTS, 10)
+                .products().get(0).id());
+        assertEquals(1, typeahead.suggest("imp-" + run, TypeaheadService.Scope.PRODUCTS, 10).products().size());
+    }
+
+    @Test
+    void importsNdjsonCatalogInBatches() throws Exception {
+        int rows = 30_000;
+        String run = Long.toString(System.nanoTime(), 36).toUpperCase();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            ndjson.append("{\"sku\":\"BULK-").append(run).append('-').append(i)
+                    .append("\",\"name\":\"Item ").append(i).append("\",\"unit\":\"un\",\"defaultPrice\":")
+                    .append(i % 100).append(".5,\"active\":false}\n");
+        }
+        byte[] body = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        ImportReport first = importService.importProducts(new ByteArrayInputStream(body), ProductImportService.Format.NDJSON, null);
+        // Mesmo arquivo de novo: todas as linhas viram UPDATE
+        ImportReport second = importService.importProducts(new ByteArrayInputStream(body), ProductImportService.Format.NDJSON, null);
+        System.out.printf("Product import: %d rows, insert %.0f rows/s, update %.0f rows/s%n",
+                rows, first.getRowsPerSecond(), second.getRowsPerSecond());
+
+        assertEquals(rows, first.getRowsImported());
+        assertEquals(rows, second.getRowsImported());
+        assertTrue(first.getErrors().isEmpty(), () -> first.getErrors().toString());
+        assertEquals(99.5, productRepository.findBySkuIgnoreCase("BULK-" + run + "-99").getDefaultPrice().doubleValue());
+    }
+}
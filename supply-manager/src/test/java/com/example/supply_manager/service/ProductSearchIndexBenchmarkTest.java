@@ -0,0 +1,59 @@
+package com.example.supply_manager.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Fora do build padrão (1M produtos, medição de latência): mvn test -Pbenchmark
+@Tag("benchmark")
+class ProductSearchIndexBenchmarkTest {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int QUERIES = 2_000;
+    private static final int WARMUP = 500;
+
+    private static final String[] KINDS = {"Parafuso", "Porca", "Arruela", "Rebite", "Bucha", "Abraçadeira",
+            "Luva", "Cabo", "Fita", "Mangueira", "Conector", "Disjuntor", "Tomada", "Lâmpada", "Tinta"};
+    private static final String[] DETAILS = {"sextavado", "inox", "zincado", "galvanizado", "nylon", "latão",
+            "flexível", "isolante", "elétrico", "hidráulico", "branco", "preto", "azul", "reforçado", "térmico"};
+    private static final String[] SIZES = {"M4", "M5", "M6", "M8", "M10", "M12", "10mm", "20mm", "50mm", "1m", "5m"};
+
+    @Test
+    void answersRankedQueriesOverOneMillionProducts() {
+        Random random = new Random(7);
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            index.put(id, String.format("SKU-%07d", id), name(random, id), id % 10 != 0);
+        }
+
+        List<String> queries = List.of("SKU-0123456", "parafuso inox", "porca m8", "abracadeira", "cabo flex",
+                "tinta branco", "lamp", "SKU-00042", "rebite latao 10mm", "disjuntor termico");
+        // Aquecimento: as primeiras consultas medem o JIT, não o índice
+        for (int i = 0; i < WARMUP; i++) {
+            index.search(queries.get(i % queries.size()), false, 0, 20);
+        }
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = queries.get(i % queries.size());
+            long start = System.nanoTime();
+            ProductSearchIndex.Result result = index.search(query, false, 0, 20);
+            latencies[i] = System.nanoTime() - start;
+            assertFalse(result.hits().isEmpty(), query);
+        }
+        Arrays.sort(latencies);
+        double p99 = latencies[(int) (QUERIES * 0.99)] / 1e6;
+
+        assertEquals(123456L, index.search("sku-0123456", false, 0, 5).hits().get(0).productId());
+        assertTrue(p99 < 10, "p99 " + p99 + " ms");
+    }
+
+    private static String name(Random random, int id) {
+        return KINDS[random.nextInt(KINDS.length)] + " " + DETAILS[random.nextInt(DETAILS.length)] + " "
+                + DETAILS[random.nextInt(DETAILS.length)] + " " + SIZES[random.nextInt(SIZES.length)] + " " + id;
+    }
+}
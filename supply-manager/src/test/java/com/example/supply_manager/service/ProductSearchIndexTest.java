@@ -0,0 +1,35 @@
+package com.example.supply_manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    @Test
+    void ranksExactSkuFirstThenWholeWordsThenPrefixes() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1, "CAB-10", "Cabo flexível 10mm", true);
+        index.put(2, "CAB-20", "Cabeçote de cabo", true);
+        index.put(3, "PAR-01", "Parafuso cabo de aço", true);
+        index.put(4, "CABO", "Braçadeira", true);
+        index.put(5, "CAB-30", "Cabo flexível antigo", false);
+
+        assertEquals(List.of(4L, 1L, 5L, 2L, 3L), ids(index.search("cabo", false, 0, 10)));
+        assertEquals(List.of(1L), ids(index.search("cabo flexivel", true, 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("CAB-20", false, 0, 1)));
+        assertEquals(5, index.search("cab", false, 0, 2).total());
+        assertEquals(List.of(1L, 5L), ids(index.search("cabo fle", false, 0, 10)));
+
+        // Reindexação substitui a entrada antiga
+        index.put(3, "PAR-01", "Parafuso de aço", true);
+        assertFalse(ids(index.search("cabo", false, 0, 10)).contains(3L));
+        assertEquals(List.of(3L), ids(index.search("parafuso", false, 0, 10)));
+    }
+
+    private static List<Long> ids(ProductSearchIndex.Result result) {
+        return result.hits().stream().map(ProductSearchIndex.Hit::productId).toList();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseExportServiceTest {
+
+    @Autowired
+    private PurchaseExportService exportService;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PurchaseImportService importService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void exportsFilteredRowsWithoutLoadingEntities() throws Exception {
+        Supplier newSupplier = new Supplier();
+        newSupplier.setName("Exportador " + System.nanoTime());
+        Supplier supplier = supplierRepository.save(newSupplier);
+        Product product = new Product();
+        product.setSku("EXP-" + System.nanoTime());
+        product.setName("Produto exportado");
+        product = productRepository.save(product);
+
+        PurchaseOrder issued = order(supplier, product, PurchaseOrder.Status.ISSUED, 3);
+        order(supplier, product, PurchaseOrder.Status.CANCELED, 1);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.export(PurchaseExportService.Filter.of("PENDING", supplier.getId(), null, null),
+                PurchaseExportService.Format.CSV, csv);
+
+        List<String> lines = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(PurchaseImportService.CSV_HEADER, lines.get(0));
+        assertEquals(4, lines.size());
+        assertTrue(lines.stream().skip(1).allMatch(line -> line.startsWith(issued.getId() + "," + supplier.getId())));
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        exportService.export(PurchaseExportService.Filter.of(null, supplier.getId(), LocalDate.of(2020, 1, 1), null),
+                PurchaseExportService.Format.NDJSON, ndjson);
+
+        List<String> orders = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, orders.size());
+        assertTrue(orders.get(0).contains("\"id\":" + issued.getId()));
+        assertTrue(orders.get(0).contains("\"status\":\"ISSUED\""));
+    }
+
+    @Test
+    void csvExportRoundTripsThroughTheImportWithCommasAndQuotes() throws Exception {
+        Supplier newSupplier = new Supplier();
+        newSupplier.setName("Ida e volta " + System.nanoTime());
+        Supplier supplier = supplierRepository.save(newSupplier);
+        Product product = new Product();
+        product.setSku("RT-" + System.nanoTime());
+        product.setName("Produto ida e volta");
+        product = productRepository.save(product);
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(supplier);
+        order.setStatus(PurchaseOrder.Status.DRAFT);
+        order.setOrderDate(LocalDate.of(2024, 5, 2));
+        order.setCode("PO-2024-0007, lote \"B\"");
+        order.setTotalAmount(0.0);
+        PurchaseOrderItem item = new PurchaseOrderItem();
+        item.setProduct(product);
+        item.setQuantity(3.0);
+        item.setUnitPrice(1.5);
+        order.addItem(item);
+        order = orderRepository.save(order);
+
+        String exported = exportCsv(supplier);
+        String line = exported.lines().skip(1).findFirst().orElseThrow();
+        assertEquals(order.getId() + "," + supplier.getId() + ",2024-05-02,,,DRAFT,\"PO-2024-0007, lote \"\"B\"\"\"," +
+                product.getId() + ",3.0,1.5", line);
+
+        var report = importService.importOrders(new ByteArrayInputStream(exported.getBytes(StandardCharsets.UTF_8)),
+                PurchaseImportService.Format.CSV, null);
+        assertEquals(1, report.getRowsImported(), () -> report.getErrors().toString());
+
+        // O pedido importado volta idêntico, exceto pela referência (id)
+        List<String> lines = exportCsv(supplier).lines().skip(1).toList();
+        assertEquals(2, lines.size());
+        assertEquals(lines.get(0).substring(lines.get(0).indexOf(',')), lines.get(1).substring(lines.get(1).indexOf(',')));
+    }
+
+    @Test
+    void csvExportSkipsOrdersWithoutItemsSoTheFileImportsCleanly() throws Exception {
+        Supplier newSupplier = new Supplier();
+        newSupplier.setName("Sem itens " + System.nanoTime());
+        Supplier supplier = supplierRepository.save(newSupplier);
+        Product product = new Product();
+        product.setSku("NI-" + System.nanoTime());
+        product.setName("Produto com e sem itens");
+        product = productRepository.save(product);
+        PurchaseOrder withItems = order(supplier, product, PurchaseOrder.Status.ISSUED, 1);
+        order(supplier, product, PurchaseOrder.Status.DRAFT, 0);
+
+        String exported = exportCsv(supplier);
+        List<String> lines = exported.lines().skip(1).toList();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith(withItems.getId() + ","));
+
+        var report = importService.importOrders(new ByteArrayInputStream(exported.getBytes(StandardCharsets.UTF_8)),
+                PurchaseImportService.Format.CSV, null);
+        assertEquals(1, report.getRowsImported(), () -> report.getErrors().toString());
+        assertTrue(report.getErrors().isEmpty(), () -> report.getErrors().toString());
+        assertEquals(2, exportCsv(supplier).lines().skip(1).count());
+    }
+
+    private String exportCsv(Supplier supplier) throws Exception {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.export(PurchaseExportService.Filter.of(null, supplier.getId(), null, null),
+                PurchaseExportService.Format.CSV, csv);
+        return csv.toString(StandardCharsets.UTF_8);
+    }
+
+    private PurchaseOrder order(Supplier supplier, Product product, PurchaseOrder.Status status, int lines) {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setSupplier(supplier);
+        order.setStatus(status);
+        order.setOrderDate(LocalDate.of(2024, 5, 1));
+        order.setTotalAmount(0.0);
+        for (int i = 0; i < lines; i++) {
+            PurchaseOrderItem item = new PurchaseOrderItem();
+            item.setProduct(product);
+            item.setQuantity(2.0);
+            item.setUnitPrice(5.0);
+            order.addItem(item);
+        }
+        return orderRepository.save(order);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.dto.ImportReport;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseImportServiceTest {
+
+    @Autowired
+    private PurchaseImportService importService;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DashboardAggregateService dashboardAggregates;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void csvGroupsLinesByOrderAndRejectsWholeOrders() throws Exception {
+        String run = Long.toString(System.nanoTime(), 36).toUpperCase();
+        Long supplierId = supplier().getId();
+        Long first = product().getId();
+        Long second = product().getId();
+        String received = DashboardAggregateService.orderKey(PurchaseOrder.Status.RECEIVED);
+        long receivedBefore = dashboardAggregates.count(received);
+
+        // Um pedido por order_ref; a linha inválida derruba o pedido inteiro
+        String csv = PurchaseImportService.CSV_HEADER + "\n"
+                + "A," + supplierId + ",2023-03-01,,2023-03-10,DELIVERED,\"PO-" + run + ", lote \"\"1\"\"\"," + first + ",2,1.5\n"
+                + "A,,,,,,," + second + ",4,\n"
+                + "B," + supplierId + ",2023-03-02,,,PENDING,," + first + ",1,1\n"
+                + "B,,,,,,," + second + ",0,1\n"
+                + "B,,,,,,," + second + ",1,1\n"
+                + "C,999999999,2023-03-03,,,,," + first + ",1,1\n"
+                + "D," + supplierId + ",2023-03-04,,,,,999999999,1,1\n";
+        ImportReport report = importService.importOrders(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), PurchaseImportService.Format.CSV, 1);
+
+        assertEquals(7, report.getRowsRead());
+        assertEquals(2, report.getRowsImported());
+        assertEquals(5, report.getRowsRejected());
+        assertEquals(3, report.getRecordsWritten());
+        assertEquals(List.of(
+                new ImportReport.RowError(5, "Quantidade inválida para o produto " + second),
+                new ImportReport.RowError(6, "Pedido B já rejeitado"),
+                new ImportReport.RowError(7, "Fornecedor não encontrado: 999999999"),
+                new ImportReport.RowError(8, "Produtos não encontrados: [999999999]")), report.getErrors());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            PurchaseOrder order = orderRepository.findFirstByCodeOrderByIdDesc("PO-" + run + ", lote \"1\"").orElseThrow();
+            assertEquals(supplierId, order.getSupplier().getId());
+            assertEquals(LocalDate.of(2023, 3, 1), order.getOrderDate());
+            assertEquals(LocalDate.of(2023, 3, 10), order.getDeliveryDate());
+            assertEquals(PurchaseOrder.Status.RECEIVED, order.getStatus());
+            assertEquals(3.0, order.getTotalAmount(), 1e-9);
+            assertEquals(List.of(first, second), order.getItems().stream()
+                    .map(item -> item.getProduct().getId()).toList());
+            assertEquals(List.of(2.0, 4.0), order.getItems().stream().map(PurchaseOrderItem::getQuantity).toList());
+        });
+        assertEquals(receivedBefore + 1, dashboardAggregates.count(received));
+    }
+
+    @Test
+    void ndjsonImportsEachLineAsAnOrderAndReportsBadLines() throws Exception {
+        Long supplierId = supplier().getId();
+        Long productId = product().getId();
+        String ndjson = "{\"supplier\":{\"id\":" + supplierId + "},\"purchaseDate\":\"2023-04-01\","
+                + "\"items\":[{\"product\":" + productId + ",\"quantity\":3,\"unitPrice\":2}]}\n"
+                + "\n"
+                + "{\"supplier\":" + supplierId + ",\"items\":[]}\n"
+                + "{\"supplier\":" + supplierId + ",\"status\":\"LOST\",\"items\":[{\"product\":" + productId + ",\"quantity\":1}]}\n"
+                + "{nao é json\n";
+        ImportReport report = importService.importOrders(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), PurchaseImportService.Format.NDJSON, null);
+
+        assertEquals(4, report.getRowsRead());
+        assertEquals(1, report.getRowsImported());
+        assertEquals(3, report.getRowsRejected());
+        assertEquals(3, report.getErrors().get(0).line());
+        assertEquals("Pedido sem itens", report.getErrors().get(0).message());
+        assertEquals("Status inválido: LOST", report.getErrors().get(1).message());
+        assertEquals(5, report.getErrors().get(2).line());
+
+        // Sem código no arquivo: numerado pelo gerador, no ano do pedido
+        List<PurchaseOrderRepository.PageRow> rows = orderRepository.findPageBySupplier(supplierId, PageRequest.of(0, 10));
+        assertEquals(1, rows.size());
+        PurchaseOrder imported = rows.get(0).getPurchaseOrder();
+        assertTrue(imported.getCode().startsWith("PO-2023-"), imported.getCode());
+        assertEquals(PurchaseOrder.Status.ISSUED, imported.getStatus());
+        assertEquals(6.0, imported.getTotalAmount(), 1e-9);
+    }
+
+    private Supplier supplier() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Importação " + System.nanoTime());
+        return supplierRepository.save(supplier);
+    }
+
+    private Product product() {
+        Product product = new Product();
+        product.setSku("PIMP-" + System.nanoTime());
+        product.setName("Produto importado");
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.supply_manager.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseOrderCodeGeneratorTest {
+
+    @Autowired
+    private PurchaseOrderCodeGenerator codeGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void codesAreSequentialPerYearAcrossBlocks() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            codes.add(codeGenerator.next(2031));
+        }
+        assertEquals("PO-2031-0001", codes.get(0));
+        assertEquals("PO-2031-0120", codes.get(119));
+        assertEquals("PO-2032-0001", codeGenerator.next(2032));
+        // Três blocos de 50 tomados para 2031: outra instância começa no quarto
+        PurchaseOrderCodeGenerator otherInstance =
+                new PurchaseOrderCodeGenerator(jdbcTemplate, transactionManager, 50);
+        assertEquals("PO-2031-0151", otherInstance.next(2031));
+    }
+
+    @Test
+    void blockRefillDoesNotNeedASecondConnectionWhenThePoolIsExhausted() throws Exception {
+        codeGenerator.next(2050);
+        // Cada thread segura uma conexão do pool (todas em uso) e cruza várias trocas de bloco
+        int connections = ((HikariDataSource) dataSource).getMaximumPoolSize();
+        CyclicBarrier allHoldingAConnection = new CyclicBarrier(connections);
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            calls.add(pool.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+                jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                try {
+                    allHoldingAConnection.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int n = 0; n < 120; n++) {
+                    assertTrue(codes.add(codeGenerator.next(2050)));
+                }
+            })));
+        }
+        for (Future<?> call : calls) {
+            call.get(20, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(connections * 120, codes.size());
+    }
+
+    @Test
+    void concurrentCallersNeverReceiveTheSameCode() throws Exception {
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            calls.add(pool.submit(() -> assertTrue(codes.add(codeGenerator.next(2040)))));
+        }
+        for (Future<?> call : calls) {
+            call.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(400, codes.size());
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.controller.PurchaseController;
+import com.example.supply_manager.controller.PurchaseOrderController;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.model.WarehouseLocation;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderItemRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import com.example.supply_manager.repository.WarehouseLocationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PutawayServiceTest {
+
+    @Autowired
+    private PutawayService putawayService;
+
+    @Autowired
+    private WarehouseLocationRepository locationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PurchaseController controller;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PurchaseOrderItemRepository itemRepository;
+
+    @Autowired
+    private PurchaseOrderController legacyController;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Test
+    void reservationsNeverOverfillALocationEvenWithAStaleIndex() throws Exception {
+        WarehouseLocation large = location(10.0);
+        WarehouseLocation small = location(5.0);
+        putawayService.refresh();
+
+        assertEquals(small.getId(), putawayService.reserve(4.0));
+        assertEquals(large.getId(), putawayService.reserve(4.0));
+
+        // Outra instância ocupa o local grande sem passar por este índice
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(tx -> locationRepository.reserveSpace(large.getId(), 6.0));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Long>> reservations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            reservations.add(pool.submit(() -> putawayService.reserve(0.5)));
+        }
+        int granted = 0;
+        for (Future<Long> reservation : reservations) {
+            if (reservation.get(30, TimeUnit.SECONDS) != null) {
+                granted++;
+            }
+        }
+        pool.shutdown();
+
+        // Só sobrava 1 m³ no local pequeno
+        assertEquals(2, granted);
+        for (WarehouseLocation location : List.of(large, small)) {
+            WarehouseLocation current = locationRepository.findById(location.getId()).orElseThrow();
+            assertTrue(current.getUsedVolume() <= current.getCapacityVolume());
+        }
+    }
+
+    @Test
+    void cancelingAnOrderGivesBackItsReservation() {
+        Line line = createLine(product(0.5), 10);
+        double reserved = used(line.suggestedLocationId());
+
+        controller.updateStatus(line.orderId(), Map.of("status", "CANCELED"));
+        assertEquals(reserved - 5.0, used(line.suggestedLocationId()), 1e-9);
+
+        // Reativado, o pedido volta a reservar
+        var reactivated = controller.updateStatus(line.orderId(), Map.of("status", "PENDING")).getBody();
+        assertNotNull(reactivated.items.get(0).suggestedLocationId);
+        assertEquals(5.0, itemRepository.findById(line.id()).orElseThrow().getReservedVolume(), 1e-9);
+    }
+
+    @Test
+    void changingTheQuantityResizesTheReservation() {
+        Line line = createLine(product(0.5), 10);
+        double reserved = used(line.suggestedLocationId());
+
+        PurchaseController.PurchaseRequest edit = new PurchaseController.PurchaseRequest();
+        PurchaseController.PurchaseItemRequest item = new PurchaseController.PurchaseItemRequest();
+        item.id = line.id();
+        item.product = line.productId();
+        item.quantity = 4;
+        item.unitPrice = 1.0;
+        edit.items = List.of(item);
+        var updated = (PurchaseController.PurchaseResponse) controller.update(line.orderId(), edit).getBody();
+
+        assertEquals(line.suggestedLocationId(), updated.items.get(0).suggestedLocationId);
+        assertEquals(reserved - 3.0, used(line.suggestedLocationId()), 1e-9);
+        assertEquals(2.0, itemRepository.findById(line.id()).orElseThrow().getReservedVolume(), 1e-9);
+    }
+
+    @Test
+    void changingTheProductResizesTheReservationAndReleasesWhatWasReserved() {
+        Line line = createLine(product(0.5), 10);
+        double reserved = used(line.suggestedLocationId());
+
+        PurchaseController.PurchaseItemRequest change = new PurchaseController.PurchaseItemRequest();
+        change.product = product(0.2).getId();
+        controller.updateItem(line.orderId(), line.id(), change);
+        assertEquals(reserved - 3.0, used(line.suggestedLocationId()), 1e-9);
+
+        // A remoção devolve o volume reservado (2 m³), não o recalculado de outro produto
+        controller.deleteItem(line.orderId(), line.id());
+        assertEquals(reserved - 5.0, used(line.suggestedLocationId()), 1e-9);
+    }
+
+    @Test
+    void legacyHeaderPutKeepsTheLinesTheirCounterAndReservations() {
+        Line line = createLine(product(0.5), 10);
+        double reserved = used(line.suggestedLocationId());
+
+        // Corpo só com cabeçalho (itens nunca vêm no JSON de PurchaseOrder)
+        PurchaseOrder header = new PurchaseOrder();
+        header.setExpectedDate(LocalDate.of(2031, 5, 20));
+        legacyController.update(line.orderId(), header);
+
+        PurchaseOrder order = orderRepository.findById(line.orderId()).orElseThrow();
+        assertEquals(LocalDate.of(2031, 5, 20), order.getExpectedDate());
+        assertEquals(1, order.getOutstandingLines());
+        assertEquals(10.0, order.getTotalAmount(), 1e-9);
+        assertEquals(5.0, itemRepository.findById(line.id()).orElseThrow().getReservedVolume(), 1e-9);
+        assertEquals(reserved, used(line.suggestedLocationId()), 1e-9);
+
+        // Cancelado pelo PUT legado, o pedido também devolve o espaço
+        PurchaseOrder canceled = new PurchaseOrder();
+        canceled.setStatus(PurchaseOrder.Status.CANCELED);
+        legacyController.update(line.orderId(), canceled);
+        assertEquals(reserved - 5.0, used(line.suggestedLocationId()), 1e-9);
+        assertTrue(itemRepository.existsById(line.id()));
+    }
+
+    private record Line(Long orderId, Long id, Long productId, Long suggestedLocationId) {
+    }
+
+    private Line createLine(Product product, int quantity) {
+        location(1000.0);
+        putawayService.refresh();
+        Supplier supplier = new Supplier();
+        supplier.setName("Fornecedor armazenagem " + System.nanoTime());
+        PurchaseController.PurchaseRequest request = new PurchaseController.PurchaseRequest();
+        request.supplier = supplierRepository.save(supplier).getId();
+        PurchaseController.PurchaseItemRequest item = new PurchaseController.PurchaseItemRequest();
+        item.product = product.getId();
+        item.quantity = quantity;
+        item.unitPrice = 1.0;
+        request.items = List.of(item);
+        var created = controller.create(request).getBody();
+        PurchaseController.PurchaseItemResponse saved = created.items.get(0);
+        assertNotNull(saved.suggestedLocationId);
+        return new Line(created.id, saved.id, product.getId(), saved.suggestedLocationId);
+    }
+
+    private Product product(double volume) {
+        Product product = new Product();
+        product.setSku("PA-" + System.nanoTime());
+        product.setName("Produto armazenagem");
+        product.setVolume(volume);
+        return productRepository.save(product);
+    }
+
+    private double used(Long locationId) {
+        return locationRepository.findById(locationId).orElseThrow().getUsedVolume();
+    }
+
+    private WarehouseLocation location(double capacity) {
+        WarehouseLocation location = new WarehouseLocation();
+        location.setCode("PA-" + System.nanoTime());
+        location.setCapacityVolume(capacity);
+        location.setUsedVolume(0.0);
+        return locationRepository.save(location);
+    }
+}
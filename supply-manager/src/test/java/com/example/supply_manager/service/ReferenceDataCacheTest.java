@@ -0,0 +1,99 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.controller.SupplierController;
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.model.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private SupplierController supplierController;
+
+    @Autowired
+    private ReferenceDataCache referenceCache;
+
+    @Test
+    void readsAreServedFromTheCacheUntilAWriteInvalidatesThem() {
+        Supplier newSupplier = new Supplier();
+        newSupplier.setName("Fornecedor em cache");
+        Supplier supplier = supplierController.create(newSupplier);
+
+        ProductDTO dto = new ProductDTO();
+        dto.setSku("CACHE-" + System.nanoTime());
+        dto.setName("Antes");
+        dto.setPreferredSupplierId(supplier.getId());
+        ProductDTO created = productService.createProduct(dto);
+
+        ReadThroughCache.Stats before = referenceCache.stats().get(0);
+        assertEquals("Antes", productService.getProductById(created.getId()).getName());
+        assertEquals("Antes", productService.getProductById(created.getId()).getName());
+        ReadThroughCache.Stats after = referenceCache.stats().get(0);
+        assertEquals(before.misses() + 1, after.misses());
+        assertEquals(before.hits() + 1, after.hits());
+
+        created.setName("Depois");
+        productService.updateProduct(created.getId(), created);
+        assertEquals("Depois", productService.getProductById(created.getId()).getName());
+        productService.deleteProduct(created.getId());
+        assertFalse(productService.getProductById(created.getId()).isActive());
+
+        assertEquals("Fornecedor em cache", supplierController.getById(supplier.getId(), get()).getBody().getName());
+        Supplier renamed = supplierController.getById(supplier.getId(), get()).getBody();
+        renamed.setName("Fornecedor renomeado");
+        // A cópia devolvida não altera o valor em cache
+        assertEquals("Fornecedor em cache", supplierController.getById(supplier.getId(), get()).getBody().getName());
+        supplierController.update(supplier.getId(), renamed);
+        assertEquals("Fornecedor renomeado", supplierController.getById(supplier.getId(), get()).getBody().getName());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesAndExpiresByTtl() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        ReadThroughCache<Integer, String> lru = new ReadThroughCache<>("lru", true, 2, 60_000);
+        lru.get(1, key -> load(loads, key));
+        lru.get(2, key -> load(loads, key));
+        lru.get(1, key -> load(loads, key));
+        lru.get(3, key -> load(loads, key)); // remove 2, o menos usado
+        lru.get(1, key -> load(loads, key));
+        assertEquals(3, loads.get());
+        lru.get(2, key -> load(loads, key));
+        assertEquals(4, loads.get());
+        assertEquals(2, lru.stats().evictions());
+
+        ReadThroughCache<Integer, String> ttl = new ReadThroughCache<>("ttl", true, 10, 20);
+        ttl.get(1, key -> load(loads, key));
+        Thread.sleep(40);
+        ttl.get(1, key -> load(loads, key));
+        assertEquals(6, loads.get());
+        assertEquals(1, ttl.stats().evictions());
+
+        ReadThroughCache<Integer, String> disabled = new ReadThroughCache<>("off", false, 10, 60_000);
+        disabled.get(1, key -> load(loads, key));
+        disabled.get(1, key -> load(loads, key));
+        assertEquals(8, loads.get());
+    }
+
+    private static ServletWebRequest get() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
+    }
+
+    private static Optional<String> load(AtomicInteger loads, Integer key) {
+        loads.incrementAndGet();
+        return Optional.of("v" + key);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.dto.ProductDTO;
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.Supplier;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderItemRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.StockBalanceRepository;
+import com.example.supply_manager.repository.SupplierRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ReplenishmentPlannerTest {
+
+    @Autowired private ProductRepository productRepository;
+    @Autowired private SupplierRepository supplierRepository;
+    @Autowired private PurchaseOrderRepository orderRepository;
+    @Autowired private StockBalanceRepository balanceRepository;
+    @Autowired private PurchaseOrderItemRepository itemRepository;
+    @Autowired private PurchaseOrderCodeGenerator codeGenerator;
+    @Autowired private DashboardAggregateService dashboardAggregates;
+    @Autowired private StockLedgerService stockLedger;
+    @Autowired private EntityManager entityManager;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ProductService productService;
+
+    @Test
+    void createsOneDraftPerSupplierForProductsBelowTheirReorderPoint() {
+        Supplier first = supplier("Reposição A");
+        Supplier second = supplier("Reposição B");
+
+        Product lot = product(first, 10.0, 20.0, true);       // 4 em estoque: pede o lote de 20
+        Product onOrder = product(first, 10.0, null, true);   // 3 a receber: completa até 10
+        Product covered = product(second, 5.0, null, true);   // 8 em estoque: não pede
+        Product empty = product(second, 5.0, 1.0, true);      // sem estoque: pede 5
+        Product orphan = product(null, 5.0, null, true);      // sem fornecedor: só reportado
+        product(second, 5.0, null, false);                    // inativo: ignorado
+
+        stockLedger.receive(lot.getId(), null, 4.0, "INV", null);
+        stockLedger.receive(covered.getId(), null, 8.0, "INV", null);
+        PurchaseOrder issued = new PurchaseOrder();
+        issued.setSupplier(first);
+        issued.setStatus(PurchaseOrder.Status.ISSUED);
+        issued.setOrderDate(LocalDate.now());
+        issued.setTotalAmount(0.0);
+        PurchaseOrderItem item = new PurchaseOrderItem();
+        item.setProduct(onOrder);
+        item.setQuantity(3.0);
+        issued.addItem(item);
+        orderRepository.save(issued);
+
+        // Partições de um id e um fornecedor por transação: exercita a divisão e o agrupamento
+        ReplenishmentPlanner planner = new ReplenishmentPlanner(productRepository, balanceRepository, itemRepository,
+                codeGenerator, dashboardAggregates, entityManager, transactionManager, 1, 4, 1);
+        ReplenishmentPlanner.PlanReport report = planner.run();
+        assertTrue(report.withoutSupplier() >= 1);
+        assertTrue(report.ordersCreated() >= 2);
+
+        Map<Long, Double> firstDraft = draftLines(first);
+        assertEquals(Map.of(lot.getId(), 20.0, onOrder.getId(), 7.0), firstDraft);
+        assertEquals(Map.of(empty.getId(), 5.0), draftLines(second));
+        assertFalse(draftLines(first).containsKey(orphan.getId()));
+
+        // Os rascunhos contam como pedido em aberto: a segunda execução não duplica
+        assertEquals(0, planner.run().ordersCreated());
+        assertEquals(1, orderRepository.findByStatus(PurchaseOrder.Status.DRAFT).stream()
+                .filter(o -> o.getSupplier().getId().equals(first.getId())).count());
+    }
+
+    @Test
+    void reorderSettingsRoundTripThroughAProductUpdate() {
+        Product product = product(supplier("Reposição C"), 5.0, null, true);
+
+        ProductDTO changes = productService.getProductById(product.getId());
+        changes.setReorderPoint(12.0);
+        changes.setReorderQuantity(30.0);
+        productService.updateProduct(product.getId(), changes);
+
+        ProductDTO updated = productService.getProductById(product.getId());
+        assertEquals(12.0, updated.getReorderPoint());
+        assertEquals(30.0, updated.getReorderQuantity());
+    }
+
+    private Map<Long, Double> draftLines(Supplier supplier) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            List<PurchaseOrder> drafts = orderRepository.findByStatus(PurchaseOrder.Status.DRAFT).stream()
+                    .filter(o -> o.getSupplier().getId().equals(supplier.getId()))
+                    .toList();
+            assertEquals(1, drafts.size());
+            PurchaseOrder draft = drafts.get(0);
+            assertNotNull(draft.getCode());
+            assertEquals(draft.getItems().size(), draft.getOutstandingLines());
+            return draft.getItems().stream().collect(Collectors.toMap(
+                    i -> i.getProduct().getId(), PurchaseOrderItem::getQuantity));
+        });
+    }
+
+    private Supplier supplier(String name) {
+        Supplier supplier = new Supplier();
+        supplier.setName(name + " " + System.nanoTime());
+        return supplierRepository.save(supplier);
+    }
+
+    private Product product(Supplier supplier, Double reorderPoint, Double reorderQuantity, boolean active) {
+        Product product = new Product();
+        product.setSku("ROP-" + System.nanoTime());
+        product.setName("Produto reposição");
+        product.setPreferredSupplier(supplier);
+        product.setReorderPoint(reorderPoint);
+        product.setReorderQuantity(reorderQuantity);
+        product.setDefaultPrice(BigDecimal.valueOf(2));
+        product.setActive(active);
+        return productRepository.save(product);
+    }
+}
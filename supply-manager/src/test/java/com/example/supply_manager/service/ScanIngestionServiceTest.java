@@ -0,0 +1,85 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderItemRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ScanIngestionServiceTest {
+
+    private static final int UNITS_PER_LINE = 500;
+
+    @Autowired
+    private ScanIngestionService scanIngestionService;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private PurchaseOrderItemRepository itemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void scansAreCoalescedPerLineAndAcknowledgedIndividually() throws Exception {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setStatus(PurchaseOrder.Status.ISSUED);
+        order.setTotalAmount(0.0);
+        for (int i = 0; i < 2; i++) {
+            Product product = new Product();
+            product.setSku("SCAN-" + System.nanoTime() + "-" + i);
+            product.setName("Produto " + i);
+            PurchaseOrderItem item = new PurchaseOrderItem();
+            item.setProduct(productRepository.save(product));
+            item.setQuantity((double) UNITS_PER_LINE);
+            order.addItem(item);
+        }
+        order.recountOutstandingLines();
+        order = orderRepository.save(order);
+        Long orderId = order.getId();
+        List<Long> itemIds = order.getItems().stream().map(PurchaseOrderItem::getId).toList();
+
+        // 1000 leituras válidas e uma para um item inexistente no mesmo lote
+        List<ScanIngestionService.Scan> scans = new ArrayList<>();
+        for (int n = 0; n < 2 * UNITS_PER_LINE; n++) {
+            scans.add(new ScanIngestionService.Scan("s" + n, orderId, itemIds.get(n % 2), null));
+        }
+        scans.add(new ScanIngestionService.Scan("bad", orderId, -1L, 1.0));
+
+        List<ScanIngestionService.ScanAck> acks = scanIngestionService.submitAll(scans).get(30, TimeUnit.SECONDS);
+
+        assertEquals(scans.size(), acks.size());
+        assertEquals(2 * UNITS_PER_LINE, acks.stream().filter(ScanIngestionService.ScanAck::accepted).count());
+        ScanIngestionService.ScanAck rejected = acks.get(acks.size() - 1);
+        assertEquals("bad", rejected.scanId());
+        assertFalse(rejected.accepted());
+        assertEquals("Item não encontrado", rejected.message());
+
+        for (Long itemId : itemIds) {
+            assertEquals(UNITS_PER_LINE, itemRepository.findById(itemId).orElseThrow().getReceivedQuantity());
+        }
+        PurchaseOrder received = orderRepository.findById(orderId).orElseThrow();
+        assertEquals(0, received.getOutstandingLines());
+        assertEquals(PurchaseOrder.Status.RECEIVED, received.getStatus());
+    }
+
+    @Test
+    void invalidScansAreRejectedWithoutQueueing() throws Exception {
+        ScanIngestionService.ScanAck ack = scanIngestionService
+                .submit(new ScanIngestionService.Scan("zero", 1L, 1L, 0.0)).get(1, TimeUnit.SECONDS);
+        assertFalse(ack.accepted());
+    }
+}
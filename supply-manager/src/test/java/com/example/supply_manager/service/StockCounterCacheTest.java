@@ -0,0 +1,89 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.StockBalance;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.StockBalanceRepository;
+import com.example.supply_manager.repository.StockMovementRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class StockCounterCacheTest {
+
+    @Autowired
+    private StockBalanceRepository balanceRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private InventoryValuationService valuation;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void balancesAreWrittenBehindAndRecoveredFromTheLedgerAfterACrash() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        StockCounterCache cache = enabledCache();
+        StockLedgerService ledger = new StockLedgerService(balanceRepository, entityManager, cache, valuation);
+        Long productId = product();
+
+        for (int i = 0; i < 5; i++) {
+            tx.executeWithoutResult(s -> ledger.receive(productId, null, 2.5, "PO-2030-0002", null));
+        }
+        // Leitura vem do contador; o saldo no banco só muda na gravação adiada
+        assertEquals(12.5, ledger.onHand(productId, null));
+        assertTrue(balanceRepository.findById(key(productId)).isEmpty());
+
+        cache.flush();
+        assertEquals(12.5, balanceRepository.findById(key(productId)).orElseThrow().getQuantity());
+
+        // Saída maior que o saldo é recusada; saída desfeita devolve a reserva
+        assertThrows(IllegalStateException.class,
+                () -> tx.executeWithoutResult(s -> ledger.issue(productId, null, 20.0, "REQ")));
+        tx.executeWithoutResult(s -> {
+            ledger.issue(productId, null, 10.0, "REQ");
+            s.setRollbackOnly();
+        });
+        assertEquals(12.5, ledger.onHand(productId, null));
+
+        // Movimentos confirmados mas não gravados no saldo: "queda" antes do flush
+        tx.executeWithoutResult(s -> ledger.issue(productId, null, 4.0, "REQ"));
+        tx.executeWithoutResult(s -> ledger.receive(productId, null, 1.0, "PO-2030-0002", null));
+
+        StockCounterCache restarted = enabledCache();
+        restarted.warm();
+        assertEquals(9.5, restarted.onHand(productId, StockBalance.NO_LOCATION));
+        assertEquals(9.5, balanceRepository.findById(key(productId)).orElseThrow().getQuantity());
+        assertTrue(movementRepository.sumUnapplied().isEmpty());
+    }
+
+    private StockCounterCache enabledCache() {
+        return new StockCounterCache(balanceRepository, movementRepository, transactionManager, true);
+    }
+
+    private static StockBalance.Key key(Long productId) {
+        return new StockBalance.Key(productId, StockBalance.NO_LOCATION);
+    }
+
+    private Long product() {
+        Product product = new Product();
+        product.setSku("CNT-" + System.nanoTime());
+        product.setName("Produto contador");
+        return productRepository.save(product).getId();
+    }
+}
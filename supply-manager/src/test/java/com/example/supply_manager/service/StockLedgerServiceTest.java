@@ -0,0 +1,95 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.PurchaseOrder;
+import com.example.supply_manager.model.PurchaseOrderItem;
+import com.example.supply_manager.model.StockMovement;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.PurchaseOrderRepository;
+import com.example.supply_manager.repository.StockMovementRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class StockLedgerServiceTest {
+
+    @Autowired
+    private StockLedgerService stockLedger;
+
+    @Autowired
+    private ReceivingService receivingService;
+
+    @Autowired
+    private PurchaseOrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Test
+    void receivingAppendsInMovementsAndIssuesNeverGoNegative() {
+        Product product = product();
+        PurchaseOrder order = new PurchaseOrder();
+        order.setCode("PO-2030-0001");
+        order.setStatus(PurchaseOrder.Status.ISSUED);
+        order.setTotalAmount(0.0);
+        PurchaseOrderItem item = new PurchaseOrderItem();
+        item.setProduct(product);
+        item.setQuantity(10.0);
+        order.addItem(item);
+        order.recountOutstandingLines();
+        order = orderRepository.save(order);
+        Long itemId = order.getItems().get(0).getId();
+
+        receivingService.receive(order.getId(), itemId, 6.0);
+        receivingService.receive(order.getId(), itemId, 4.0);
+        assertEquals(10.0, stockLedger.onHand(product.getId(), null));
+
+        stockLedger.issue(product.getId(), null, 7.0, "REQ-1");
+        assertThrows(IllegalStateException.class, () -> stockLedger.issue(product.getId(), null, 5.0, "REQ-2"));
+        assertEquals(3.0, stockLedger.onHand(product.getId(), null));
+
+        List<StockMovementRepository.MovementView> ledger =
+                movementRepository.findMovements(product.getId(), PageRequest.of(0, 10)).getContent();
+        assertEquals(3, ledger.size());
+        assertEquals(StockMovement.MovementType.OUT, ledger.get(0).getType());
+        assertEquals("PO-2030-0001", ledger.get(2).getReference());
+    }
+
+    @Test
+    void concurrentFirstMovementsShareOneBalanceRow() throws Exception {
+        Product product = product();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            calls.add(pool.submit(() -> stockLedger.receive(product.getId(), null, 1.0, "AJUSTE", null)));
+        }
+        for (Future<?> call : calls) {
+            call.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, stockLedger.balancesOf(product.getId()).size());
+        assertEquals(200.0, stockLedger.onHand(product.getId(), null));
+    }
+
+    private Product product() {
+        Product product = new Product();
+        product.setSku("STK-" + System.nanoTime());
+        product.setName("Produto estoque");
+        return productRepository.save(product);
+    }
+}
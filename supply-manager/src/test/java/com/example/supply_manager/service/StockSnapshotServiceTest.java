@@ -0,0 +1,72 @@
+package com.example.supply_manager.service;
+
+import com.example.supply_manager.model.Product;
+import com.example.supply_manager.model.StockMovement;
+import com.example.supply_manager.repository.ArchivedStockMovementRepository;
+import com.example.supply_manager.repository.ProductRepository;
+import com.example.supply_manager.repository.StockMovementRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class StockSnapshotServiceTest {
+
+    @Autowired
+    private StockSnapshotService snapshotService;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private ArchivedStockMovementRepository archiveRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void asOfCombinesTheNearestSnapshotWithLaterAndArchivedMovements() {
+        Product product = new Product();
+        product.setSku("ASOF-" + System.nanoTime());
+        product.setName("Produto auditado");
+        product = productRepository.save(product);
+
+        movement(product, StockMovement.MovementType.IN, 10.0, LocalDateTime.of(2019, 1, 10, 9, 0));
+        movement(product, StockMovement.MovementType.OUT, 3.0, LocalDateTime.of(2019, 2, 10, 9, 0));
+        snapshotService.takeSnapshot(LocalDateTime.of(2019, 3, 1, 0, 0));
+        movement(product, StockMovement.MovementType.IN, 4.0, LocalDateTime.of(2019, 3, 10, 9, 0));
+
+        assertEquals(0.0, onHand(product.getId(), LocalDateTime.of(2019, 1, 5, 0, 0)));
+        assertEquals(7.0, onHand(product.getId(), LocalDateTime.of(2019, 2, 15, 0, 0)));
+        assertEquals(7.0, onHand(product.getId(), LocalDateTime.of(2019, 3, 1, 0, 0)));
+        assertEquals(11.0, onHand(product.getId(), LocalDateTime.of(2019, 3, 31, 23, 59)));
+
+        // Compactação: movimentos antes do corte do snapshot vão para o arquivo sem mudar o resultado
+        long archived = snapshotService.archive(LocalDateTime.of(2019, 2, 1, 0, 0));
+        assertTrue(archived >= 1);
+        assertTrue(archiveRepository.count() >= 1);
+        assertEquals(10.0, onHand(product.getId(), LocalDateTime.of(2019, 1, 20, 0, 0)));
+        assertEquals(7.0, onHand(product.getId(), LocalDateTime.of(2019, 2, 15, 0, 0)));
+        assertEquals(11.0, onHand(product.getId(), LocalDateTime.of(2019, 3, 31, 23, 59)));
+    }
+
+    private double onHand(Long productId, LocalDateTime at) {
+        List<StockSnapshotService.Balance> balances = snapshotService.asOf(at, productId);
+        return balances.stream().mapToDouble(StockSnapshotService.Balance::quantity).sum();
+    }
+
+    private void movement(Product product, StockMovement.MovementType type, double quantity, LocalDateTime date) {
+        StockMovement movement = new StockMovement();
+        movement.setProduct(product);
+        movement.setType(type);
+        movement.setQuantity(quantity);
+        movement.setMovementDate(date);
+        movement.setBalanceApplied(true);
+        movementRepository.save(movement);
+    }
+}
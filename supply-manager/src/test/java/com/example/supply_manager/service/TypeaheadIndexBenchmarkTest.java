@@ -0,0 +1,58 @@
+package com.example.supply_manager.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Fora do build padrão (1M produtos, medição de latência): mvn test -Pbenchmark
+@Tag("benchmark")
+class TypeaheadIndexBenchmarkTest {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int QUERIES = 5_000;
+    private static final int WARMUP = 1_000;
+
+    private static final String[] KINDS = {"Parafuso", "Porca", "Arruela", "Rebite", "Bucha", "Abraçadeira",
+            "Luva", "Cabo", "Fita", "Mangueira", "Conector", "Disjuntor", "Tomada", "Lâmpada", "Tinta"};
+    private static final String[] DETAILS = {"sextavado", "inox", "zincado", "galvanizado", "nylon", "latão",
+            "flexível", "isolante", "elétrico", "hidráulico", "branco", "preto", "azul", "reforçado", "térmico"};
+
+    @Test
+    void suggestsPrefixesOverOneMillionProducts() {
+        Random random = new Random(11);
+        List<TypeaheadIndex.Entry> entries = new ArrayList<>(PRODUCTS);
+        for (int id = 1; id <= PRODUCTS; id++) {
+            String sku = String.format("SKU-%07d", id);
+            String name = KINDS[random.nextInt(KINDS.length)] + " " + DETAILS[random.nextInt(DETAILS.length)]
+                    + " " + (1 + random.nextInt(100)) + "mm";
+            entries.add(new TypeaheadIndex.Entry(id, name, sku + " " + name));
+        }
+        TypeaheadIndex index = new TypeaheadIndex();
+        index.load(entries);
+
+        List<String> queries = List.of("sku-01234", "par", "abraca", "cabo flex", "inox", "lamp", "sku-0999999",
+                "disjuntor term", "t", "50mm");
+        for (int i = 0; i < WARMUP; i++) {
+            index.suggest(queries.get(i % queries.size()), 10);
+        }
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = queries.get(i % queries.size());
+            long start = System.nanoTime();
+            List<TypeaheadIndex.Suggestion> suggestions = index.suggest(query, 10);
+            latencies[i] = System.nanoTime() - start;
+            assertFalse(suggestions.isEmpty(), query);
+        }
+        Arrays.sort(latencies);
+        double p99 = latencies[(int) (QUERIES * 0.99)] / 1e3;
+
+        assertEquals(999999L, index.suggest("SKU-0999999", 10).get(0).id());
+        assertTrue(p99 < 1_000, "p99 " + p99 + " us");
+    }
+}
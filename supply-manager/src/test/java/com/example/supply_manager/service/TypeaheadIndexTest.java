@@ -0,0 +1,99 @@
+package com.example.supply_manager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypeaheadIndexTest {
+
+    @Test
+    void mergesWritesSinceLoadAndDropsReplacedEntries() {
+        TypeaheadIndex index = new TypeaheadIndex();
+        index.load(List.of(
+                new TypeaheadIndex.Entry(1, "Cabo flexível", "CAB-10 Cabo flexível"),
+                new TypeaheadIndex.Entry(2, "Cabeçote", "CAB-20 Cabeçote"),
+                new TypeaheadIndex.Entry(3, "Parafuso", "PAR-01 Parafuso")));
+
+        assertEquals(List.of(1L, 2L), ids(index.suggest("cab", 10)));
+        assertEquals(List.of(1L), ids(index.suggest("cabo fl", 10)));
+        assertEquals(List.of(1L), ids(index.suggest("FLEXIVEL", 10)));
+        assertEquals(List.of(3L), ids(index.suggest("par-0", 10)));
+
+        // Escritas depois da carga ficam no overlay e entram na ordem alfabética
+        index.put(4, "Cabide", "CAB-05 Cabide");
+        index.put(3, "Cabo de aço", "PAR-01 Cabo de aço");
+        assertEquals(List.of(4L, 1L, 2L, 3L), ids(index.suggest("cab", 10)));
+        assertEquals(List.of(3L, 1L), ids(index.suggest("cabo", 10)));
+        assertTrue(index.suggest("parafuso", 10).isEmpty());
+        assertEquals("Cabo de aço", index.suggest("aco", 1).get(0).label());
+
+        index.remove(1);
+        assertEquals(List.of(3L), ids(index.suggest("cabo", 10)));
+        assertEquals(List.of(4L, 2L), ids(index.suggest("cab", 2)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void compactsOverlayIntoSortedArray() {
+        TypeaheadIndex index = new TypeaheadIndex();
+        index.load(List.of());
+        for (int id = 1; id <= 5_000; id++) {
+            index.put(id, "Item " + id, String.format("IT-%05d Item", id));
+        }
+        // Reescreve metade: as entradas antigas somem na compactação
+        for (int id = 1; id <= 2_500; id++) {
+            index.put(id, "Peça " + id, String.format("PC-%05d Peça", id));
+        }
+        assertEquals(5_000, index.size());
+        assertEquals(List.of(2_501L, 2_502L), ids(index.suggest("it-", 2)));
+        assertEquals(List.of(1L, 2L, 3L), ids(index.suggest("pc", 3)));
+        assertEquals(List.of(2_500L), ids(index.suggest("pc-02500", 5)));
+    }
+
+    @Test
+    void writesDuringACompactionSurviveTheSwap() throws Exception {
+        TypeaheadIndex index = new TypeaheadIndex();
+        index.load(List.of());
+        // Quatro escritores disparam várias compactações enquanto os outros continuam gravando e removendo
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            int first = writer * 5_000;
+            writers.add(pool.submit(() -> {
+                for (int id = first + 1; id <= first + 5_000; id++) {
+                    index.put(id, "Item " + id, String.format("IT-%05d Item", id));
+                    if (id % 2 == 0) {
+                        index.put(id, "Peça " + id, String.format("PC-%05d Peça", id));
+                    }
+                    if (id % 10 == 0) {
+                        index.remove(id);
+                    }
+                    index.suggest("it-" + id, 1);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(18_000, index.size());
+        assertEquals(List.of(19_999L), ids(index.suggest("it-19999", 5)));
+        assertEquals(List.of(12_344L), ids(index.suggest("pc-12344", 5)));
+        assertTrue(index.suggest("it-12344", 5).isEmpty());
+        assertTrue(index.suggest("pc-12340", 5).isEmpty());
+        assertEquals(List.of(1L, 3L), ids(index.suggest("it-", 2)));
+        assertEquals(List.of(2L, 4L), ids(index.suggest("pc-", 2)));
+    }
+
+    private static List<Long> ids(List<TypeaheadIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(TypeaheadIndex.Suggestion::id).toList();
+    }
+}